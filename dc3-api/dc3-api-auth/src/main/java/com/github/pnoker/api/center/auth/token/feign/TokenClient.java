@@ -18,16 +18,20 @@ package com.github.pnoker.api.center.auth.token.feign;
 
 import com.github.pnoker.api.center.auth.token.hystrix.TokenClientHystrix;
 import com.github.pnoker.common.bean.R;
+import com.github.pnoker.common.bean.Token;
 import com.github.pnoker.common.constant.Common;
 import com.github.pnoker.common.model.User;
 import com.github.pnoker.common.valid.Auth;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 import javax.validation.constraints.NotNull;
+import java.util.Map;
 
 /**
  * <p>令牌 FeignClient
@@ -38,14 +42,23 @@ import javax.validation.constraints.NotNull;
 public interface TokenClient {
 
     /**
-     * 生成用户 Token 令牌
+     * 生成用户 Token 令牌，只返回访问令牌
      *
      * @param user
-     * @return TokenDto
+     * @return String
      */
     @PostMapping
     R<String> generateToken(@Validated(Auth.class) @RequestBody User user);
 
+    /**
+     * 生成用户 Token 令牌对，包含访问令牌与刷新令牌
+     *
+     * @param user
+     * @return Token
+     */
+    @PostMapping("/pair")
+    R<Token> generateTokenPair(@Validated(Auth.class) @RequestBody User user);
+
     /**
      * 检测用户 Token 令牌是否有效
      *
@@ -55,4 +68,30 @@ public interface TokenClient {
     @PostMapping("/{token}")
     R<Boolean> checkTokenValid(@NotNull @PathVariable(value = "token") String token);
 
+    /**
+     * 使用刷新令牌换取新的令牌对，原刷新令牌随即吊销
+     *
+     * @param token 刷新令牌，通过 Token 请求头传递，避免出现在请求路径和访问日志中
+     * @return Token
+     */
+    @PostMapping("/refresh")
+    R<Token> refreshToken(@NotNull @RequestHeader(value = Common.Header.TOKEN) String token);
+
+    /**
+     * 吊销 Token 令牌
+     *
+     * @param token 通过 Token 请求头传递，避免出现在请求路径和访问日志中
+     * @return Boolean
+     */
+    @PostMapping("/revoke")
+    R<Boolean> revokeToken(@NotNull @RequestHeader(value = Common.Header.TOKEN) String token);
+
+    /**
+     * 查询尚未过期的已吊销令牌
+     *
+     * @return 令牌 ID 与过期时间
+     */
+    @GetMapping("/revoked")
+    R<Map<String, Long>> revokedTokens();
+
 }
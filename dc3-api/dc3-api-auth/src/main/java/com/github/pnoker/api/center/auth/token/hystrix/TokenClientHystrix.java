@@ -18,11 +18,14 @@ package com.github.pnoker.api.center.auth.token.hystrix;
 
 import com.github.pnoker.api.center.auth.token.feign.TokenClient;
 import com.github.pnoker.common.bean.R;
+import com.github.pnoker.common.bean.Token;
 import com.github.pnoker.common.model.User;
 import feign.hystrix.FallbackFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 /**
  * <p>TokenClientHystrix
  *
@@ -44,11 +47,31 @@ public class TokenClientHystrix implements FallbackFactory<TokenClient> {
                 return R.fail(message);
             }
 
+            @Override
+            public R<Token> generateTokenPair(User user) {
+                return R.fail(message);
+            }
+
             @Override
             public R<Boolean> checkTokenValid(String token) {
                 return R.fail(message);
             }
 
+            @Override
+            public R<Token> refreshToken(String token) {
+                return R.fail(message);
+            }
+
+            @Override
+            public R<Boolean> revokeToken(String token) {
+                return R.fail(message);
+            }
+
+            @Override
+            public R<Map<String, Long>> revokedTokens() {
+                return R.fail(message);
+            }
+
         };
     }
 }
\ No newline at end of file
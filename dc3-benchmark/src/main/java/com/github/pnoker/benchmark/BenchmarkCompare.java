@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.pnoker.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对比两次 JMH JSON 结果，输出每个基准（含参数）的得分变化
+ * <p>
+ * 吞吐模式得分越高越好，其余模式得分越低越好；变化超过阈值且超出两次误差之和时标记为 REGRESSION 或 IMPROVED，
+ * 存在 REGRESSION 时进程以 1 退出，可用于持续集成
+ * <p>
+ * 运行：java -cp benchmarks.jar [-Dthreshold=5] com.github.pnoker.benchmark.BenchmarkCompare base.json current.json
+ *
+ * @author pnoker
+ */
+public class BenchmarkCompare {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkCompare <base.json> <current.json>");
+            System.exit(2);
+        }
+        double threshold = Double.parseDouble(System.getProperty("threshold", "5"));
+        Map<String, JsonNode> base = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        System.out.printf("%-72s %16s %16s %9s  %s%n", "benchmark", "base", "current", "change", "");
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = base.get(entry.getKey());
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            double score = now.path("primaryMetric").path("score").asDouble();
+            if (null == before) {
+                System.out.printf("%-72s %16s %16s %9s  %s%n", entry.getKey(), "-", format(score, unit), "", "NEW");
+                continue;
+            }
+
+            double baseScore = before.path("primaryMetric").path("score").asDouble();
+            double error = error(before) + error(now);
+            double change = baseScore == 0 ? 0 : (score - baseScore) / baseScore * 100;
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            boolean significant = Math.abs(change) >= threshold && Math.abs(score - baseScore) > error;
+            String verdict = "";
+            if (significant) {
+                boolean better = higherIsBetter == change > 0;
+                verdict = better ? "IMPROVED" : "REGRESSION";
+                if (!better) {
+                    regressions++;
+                }
+            }
+            System.out.printf("%-72s %16s %16s %+8.1f%%  %s%n", entry.getKey(), format(baseScore, unit), format(score, unit), change, verdict);
+        }
+        for (String key : base.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-72s %16s %16s %9s  %s%n", key, "", "-", "", "REMOVED");
+            }
+        }
+        if (regressions > 0) {
+            System.out.printf("%n%d regression(s) over %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 基准名去掉包名，追加参数，例如 DriverContextBenchmark.device:devices=100
+     */
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>(64);
+        for (JsonNode node : new ObjectMapper().readTree(file)) {
+            String benchmark = node.path("benchmark").asText();
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+            Iterator<Map.Entry<String, JsonNode>> params = node.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(key.indexOf(":") < 0 ? ':' : ',').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), node);
+        }
+        return results;
+    }
+
+    private static double error(JsonNode node) {
+        double error = node.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String format(double score, String unit) {
+        return String.format("%.3f %s", score, unit);
+    }
+}
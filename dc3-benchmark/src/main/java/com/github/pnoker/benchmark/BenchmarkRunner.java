@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.pnoker.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 运行基准测试并将结果以 JSON 格式保存，文件以当前 git 提交命名，用于 BenchmarkCompare 对比不同提交的结果
+ * <p>
+ * 运行：java -cp benchmarks.jar com.github.pnoker.benchmark.BenchmarkRunner [include regex] [label]
+ * 结果：benchmark-results/{label}.json，label 默认为 git rev-parse --short HEAD，可通过 -DresultDir 指定目录
+ * <p>
+ * 也可以直接使用 JMH 的命令行：java -jar benchmarks.jar -rf json -rff result.json
+ *
+ * @author pnoker
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        String label = args.length > 1 ? args[1] : commit();
+
+        File directory = new File(System.getProperty("resultDir", "benchmark-results"));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("can't create result directory " + directory.getAbsolutePath());
+        }
+        File result = new File(directory, label + ".json");
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.getPath());
+        new Runner(options.build()).run();
+        System.out.printf("%nresult saved to %s%n", result.getAbsolutePath());
+    }
+
+    /**
+     * 当前 git 提交，工作区有修改时追加 -dirty，不在 git 仓库中时使用时间戳
+     */
+    private static String commit() {
+        String commit = git("rev-parse", "--short", "HEAD");
+        if (null == commit) {
+            return String.valueOf(System.currentTimeMillis());
+        }
+        String status = git("status", "--porcelain", "--untracked-files=no");
+        return null == status || status.isEmpty() ? commit : commit + "-dirty";
+    }
+
+    private static String git(String... args) {
+        String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            StringBuilder output = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while (null != (line = reader.readLine())) {
+                    output.append(line).append('\n');
+                }
+            }
+            return process.waitFor() == 0 ? output.toString().trim() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.benchmark;
+
+import com.github.pnoker.common.bean.Pages;
+import com.github.pnoker.common.cache.CacheKeyGenerator;
+import com.github.pnoker.common.dto.PointDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存 Key 生成基准测试，对比 toString 拼接与 @CacheKey 字段哈希
+ * <p>
+ * 使用 -prof gc 查看每次调用的内存分配（gc.alloc.rate.norm）
+ *
+ * @author pnoker
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    private final KeyGenerator concatKeyGenerator = (target, method, params) -> {
+        StringBuilder sb = new StringBuilder();
+        sb.append(target.getClass().getName());
+        sb.append(".");
+        sb.append(method.getName());
+        sb.append("#");
+        for (Object obj : params) {
+            sb.append(obj.toString());
+        }
+        return sb.toString();
+    };
+    private final KeyGenerator cacheKeyGenerator = new CacheKeyGenerator();
+
+    private Method method;
+    private PointDto pointDto;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = CacheKeyBenchmark.class.getMethod("list", PointDto.class);
+        pointDto = new PointDto();
+        pointDto.setName("temperature").setType("float").setRw((short) 0).setProfileId(1L);
+        pointDto.setDescription("benchmark point");
+        pointDto.setPage(new Pages().setCurrent(2).setSize(50));
+    }
+
+    public Object list(PointDto pointDto) {
+        return null;
+    }
+
+    @Benchmark
+    public Object concatKey() {
+        return concatKeyGenerator.generate(this, method, pointDto);
+    }
+
+    @Benchmark
+    public Object hashKey() {
+        return cacheKeyGenerator.generate(this, method, pointDto);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.pnoker.benchmark;
+
+import com.github.pnoker.common.model.Device;
+import com.github.pnoker.common.model.Point;
+import com.github.pnoker.common.sdk.bean.AttributeInfo;
+import com.github.pnoker.common.sdk.bean.DriverContext;
+import com.github.pnoker.common.sdk.util.DriverUtils;
+import com.github.pnoker.driver.service.netty.DeviceNameIndex;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DriverContext 查找与 DriverUtils 类型转换基准测试
+ * <p>
+ * deviceIdByName 为 ListeningVirtual 驱动原先按报文中的名称创建 String 后查找，deviceNameIndex 为按字节查找
+ *
+ * @author pnoker
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverContextBenchmark {
+
+    private static final int NAME_LENGTH = 22;
+    private static final int POINTS = 10;
+
+    @Param({"100", "10000"})
+    private int devices;
+
+    private DriverContext driverContext;
+    private DeviceNameIndex deviceNameIndex;
+    private Map<String, AttributeInfo> infoMap;
+
+    private Long[] deviceIds;
+    private String[] deviceNames;
+    private ByteBuf[] frames;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Map<Long, Device> deviceMap = new ConcurrentHashMap<>(devices * 2);
+        Map<String, Long> deviceNameMap = new ConcurrentHashMap<>(devices * 2);
+        Map<Long, Map<Long, Map<String, AttributeInfo>>> devicePointInfoMap = new ConcurrentHashMap<>(devices * 2);
+        Map<Long, Point> pointMap = new HashMap<>(POINTS * 2);
+        Map<Long, Map<String, AttributeInfo>> pointInfoMap = new HashMap<>(POINTS * 2);
+        for (long pointId = 1; pointId <= POINTS; pointId++) {
+            Point point = new Point().setName("point-" + pointId).setType("float").setProfileId(1L);
+            point.setId(pointId);
+            pointMap.put(pointId, point);
+
+            Map<String, AttributeInfo> map = new HashMap<>(8);
+            map.put("key", new AttributeInfo("62", "string"));
+            map.put("start", new AttributeInfo("23", "int"));
+            map.put("end", new AttributeInfo("27", "int"));
+            map.put("scale", new AttributeInfo("0.1", "float"));
+            pointInfoMap.put(pointId, map);
+        }
+        infoMap = pointInfoMap.get(1L);
+
+        deviceIds = new Long[devices];
+        deviceNames = new String[devices];
+        frames = new ByteBuf[devices];
+        for (int i = 0; i < devices; i++) {
+            Long deviceId = (long) i + 1;
+            String name = String.format("BenchmarkDevice%07d", i);
+            Device device = new Device().setName(name).setProfileId(1L);
+            device.setId(deviceId);
+            deviceMap.put(deviceId, device);
+            deviceNameMap.put(name, deviceId);
+            devicePointInfoMap.put(deviceId, pointInfoMap);
+
+            deviceIds[i] = deviceId;
+            deviceNames[i] = name;
+            frames[i] = Unpooled.directBuffer(NAME_LENGTH).writeBytes(name.getBytes(CharsetUtil.ISO_8859_1));
+        }
+
+        driverContext = new DriverContext();
+        driverContext.setDeviceMap(deviceMap);
+        driverContext.setDeviceNameMap(deviceNameMap);
+        driverContext.setProfilePointMap(new ConcurrentHashMap<>(Collections.singletonMap(1L, pointMap)));
+        driverContext.setDevicePointInfoMap(devicePointInfoMap);
+        deviceNameIndex = new DeviceNameIndex(driverContext);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (ByteBuf frame : frames) {
+            frame.release();
+        }
+    }
+
+    private int next() {
+        int index = next + 1;
+        next = index == devices ? 0 : index;
+        return next;
+    }
+
+    @Benchmark
+    public Object device() {
+        return driverContext.getDevice(deviceIds[next()]);
+    }
+
+    @Benchmark
+    public Object devicePoint() {
+        return driverContext.getDevicePoint(deviceIds[next()], (long) ThreadLocalRandom.current().nextInt(1, POINTS + 1));
+    }
+
+    @Benchmark
+    public Object devicePointInfo() {
+        return driverContext.getDevicePointInfo(deviceIds[next()], (long) ThreadLocalRandom.current().nextInt(1, POINTS + 1));
+    }
+
+    @Benchmark
+    public Object deviceIdByName() {
+        return driverContext.getDeviceIdByName(frames[next()].toString(0, NAME_LENGTH, CharsetUtil.ISO_8859_1));
+    }
+
+    @Benchmark
+    public Object deviceNameIndex() {
+        return deviceNameIndex.getDeviceId(frames[next()], 0, NAME_LENGTH);
+    }
+
+    @Benchmark
+    public Object attributeInt() {
+        return DriverUtils.attribute(infoMap, "start");
+    }
+
+    @Benchmark
+    public Object attributeFloat() {
+        return DriverUtils.attribute(infoMap, "scale");
+    }
+
+    @Benchmark
+    public Object valueString() {
+        return DriverUtils.value("string", deviceNames[next()]);
+    }
+}
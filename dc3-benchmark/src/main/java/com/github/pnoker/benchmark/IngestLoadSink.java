@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.pnoker.benchmark;
+
+import com.github.pnoker.common.bean.driver.PointValue;
+import com.github.pnoker.common.sdk.service.rabbit.PointValueService;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测用的位号值接收端，代替 RabbitMQ、dc3-data 的 PointValueReceiver 以及 Mongo
+ * <p>
+ * 每个位号值按驱动与 dc3-data 相同的 Jackson2JsonMessageConverter 序列化、反序列化，
+ * 按 PointValueServiceImpl 的方式计算 createTime、interval，可选的 storeMicros 模拟每个位号值的入库耗时。
+ * 液位位号的原始值为设备发送报文时的 System.nanoTime()，用于统计设备到接收端的端到端延迟。
+ *
+ * @author pnoker
+ */
+public class IngestLoadSink extends PointValueService {
+
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    private final Long timestampPointId;
+    private final long storeNanos;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 设备发送到接收端的延迟（微秒）
+     */
+    private final Histogram endToEnd = new Histogram();
+    /**
+     * originTime 到接收端的延迟，即 PointValue.interval（微秒，毫秒精度）
+     */
+    private final Histogram interval = new Histogram();
+
+    /**
+     * @param timestampPointId 原始值为发送时间的位号
+     * @param storeMicros      每个位号值模拟的入库耗时（微秒）
+     */
+    public IngestLoadSink(Long timestampPointId, long storeMicros) {
+        this.timestampPointId = timestampPointId;
+        this.storeNanos = TimeUnit.MICROSECONDS.toNanos(storeMicros);
+    }
+
+    @Override
+    public void pointValueSender(List<PointValue> pointValues) {
+        for (PointValue pointValue : pointValues) {
+            pointValueSender(pointValue);
+        }
+        if (storeNanos > 0) {
+            LockSupport.parkNanos(storeNanos * pointValues.size());
+        }
+    }
+
+    @Override
+    public void pointValueSender(PointValue pointValue) {
+        try {
+            Message message = converter.toMessage(pointValue, new MessageProperties());
+            PointValue receive = (PointValue) converter.fromMessage(message);
+            long now = System.nanoTime();
+            long createTime = System.currentTimeMillis();
+            receive.setCreateTime(createTime).setInterval(createTime - receive.getOriginTime());
+
+            interval.record(TimeUnit.MILLISECONDS.toMicros(receive.getInterval()));
+            if (timestampPointId.equals(receive.getPointId())) {
+                endToEnd.record(TimeUnit.NANOSECONDS.toMicros(now - Long.parseLong(receive.getRawValue())));
+            }
+            bytes.add(message.getBody().length);
+            received.increment();
+        } catch (Exception e) {
+            failed.increment();
+        }
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public Histogram getEndToEnd() {
+        return endToEnd;
+    }
+
+    public Histogram getInterval() {
+        return interval;
+    }
+
+    /**
+     * 对数线性分桶的并发直方图，每个 2 的幂区间分 16 个桶，相对误差不超过 1/16
+     */
+    public static class Histogram {
+        private static final int SUB_BUCKETS = 16;
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder total = new LongAdder();
+
+        public void record(long value) {
+            counts.incrementAndGet(index(Math.max(0, value)));
+            total.increment();
+        }
+
+        public long count() {
+            return total.sum();
+        }
+
+        /**
+         * @param percentile 0 ~ 100
+         * @return 对应分位所在桶的下界
+         */
+        public long percentile(double percentile) {
+            long count = count();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return lowerBound(i);
+                }
+            }
+            return lowerBound(counts.length() - 1);
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) ((value >>> (exp - 4)) & (SUB_BUCKETS - 1));
+            return (exp - 3) * SUB_BUCKETS + sub;
+        }
+
+        private static long lowerBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exp = index / SUB_BUCKETS + 3;
+            return (SUB_BUCKETS + (long) (index % SUB_BUCKETS)) << (exp - 4);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.pnoker.benchmark;
+
+import com.github.pnoker.common.model.Device;
+import com.github.pnoker.common.model.Point;
+import com.github.pnoker.common.sdk.bean.AttributeInfo;
+import com.github.pnoker.common.sdk.bean.DriverContext;
+import com.github.pnoker.common.sdk.bean.DriverProperty;
+import com.github.pnoker.common.sdk.service.rabbit.PointValueService;
+import com.github.pnoker.driver.service.netty.MqttServerHandler;
+import com.github.pnoker.driver.service.netty.NettyServer;
+import com.github.pnoker.driver.service.netty.NettyServerHandler;
+import com.github.pnoker.driver.service.netty.PointFrameParser;
+import com.github.pnoker.driver.service.netty.PointValuePublisher;
+import com.github.pnoker.driver.service.netty.UdpServerHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.mqtt.MqttDecoder;
+import io.netty.handler.codec.mqtt.MqttEncoder;
+import io.netty.handler.codec.mqtt.MqttMessageBuilders;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.netty.handler.codec.mqtt.MqttVersion;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 接入吞吐压测，模拟 N 个设备按固定频率向 ListeningVirtual 驱动推送报文
+ * <p>
+ * 驱动的 NettyServer、PointFrameParser、PointValuePublisher 在进程内运行，设备与位号配置直接写入 DriverContext，
+ * 消息组件及之后的链路由 IngestLoadSink 代替，不需要 RabbitMQ、Mongo 以及 dc3-manager。
+ * 每秒输出发送帧数、接收位号值数以及延迟分位，结束时输出持续吞吐、端到端延迟、interval 与丢失数量。
+ * <p>
+ * 运行：java -cp benchmarks.jar [-Dprotocol=tcp|udp|mqtt] [-Ddevices=1000] [-Drate=10] [-Dduration=60]
+ * [-Dwarmup=5] [-DstoreMicros=0] [-DclientThreads=2] com.github.pnoker.benchmark.IngestLoadTest
+ *
+ * @author pnoker
+ */
+public class IngestLoadTest {
+
+    /**
+     * 报文格式见 PointFrameParser：设备名称[22]+关键字[1]+海拔[4]+速度[8]+液位[8]+方向[4]+锁定[1]+经纬[21]
+     */
+    private static final int FRAME_LENGTH = 69;
+    private static final int NAME_LENGTH = 22;
+    private static final byte KEY = 0x62;
+    private static final int LEVEL_OFFSET = 35;
+    private static final String LALO = "131.231456,021.568211";
+
+    private static final Long PROFILE_ID = 1L;
+    private static final Long LEVEL_POINT_ID = 3L;
+    /**
+     * 位号：名称、类型、起始字节、结束字节
+     */
+    private static final Object[][] POINTS = {
+            {"海拔", "float", 23, 27},
+            {"速度", "double", 27, 35},
+            {"液位", "long", 35, 43},
+            {"方向", "int", 43, 47},
+            {"锁定", "boolean", 47, 48},
+            {"经纬", "string", 48, 69}
+    };
+
+    private final String protocol = System.getProperty("protocol", "tcp");
+    private final int devices = Integer.getInteger("devices", 1000);
+    private final double rate = Double.parseDouble(System.getProperty("rate", "10"));
+    private final int duration = Integer.getInteger("duration", 60);
+    private final int warmup = Integer.getInteger("warmup", 5);
+    private final long storeMicros = Long.getLong("storeMicros", 0L);
+    private final int clientThreads = Integer.getInteger("clientThreads", 2);
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final List<Channel> channels = new ArrayList<>();
+
+    private AnnotationConfigApplicationContext context;
+    private IngestLoadSink sink;
+    private MeterRegistry meterRegistry;
+    private EventLoopGroup clientGroup;
+
+    public static void main(String[] args) throws Exception {
+        new IngestLoadTest().run();
+    }
+
+    private void run() throws Exception {
+        int port = freePort();
+        System.out.printf("protocol=%s, devices=%d, rate=%s frames/s per device, %d points per frame, offered %.0f points/s%n",
+                protocol, devices, rate, POINTS.length, devices * rate * POINTS.length);
+        startDriver(port);
+        try {
+            connectDevices(port);
+            measure();
+        } finally {
+            if (null != clientGroup) {
+                clientGroup.shutdownGracefully().syncUninterruptibly();
+            }
+            context.close();
+        }
+    }
+
+    /**
+     * 在进程内启动驱动的接入链路，Spring 仅装配接入相关的 Bean
+     */
+    private void startDriver(int port) {
+        context = new AnnotationConfigApplicationContext();
+        Map<String, Object> properties = new HashMap<>(8);
+        properties.put("driver.custom.socket.port", port);
+        properties.put("driver.custom.socket.udp-port", port);
+        properties.put("driver.custom.socket.mqtt-port", port);
+        properties.put("driver.custom.socket.frame-length", FRAME_LENGTH);
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("loadtest", properties));
+
+        sink = new IngestLoadSink(LEVEL_POINT_ID, storeMicros);
+        meterRegistry = new SimpleMeterRegistry();
+        DriverProperty driverProperty = new DriverProperty();
+        driverProperty.setName("LoadTestDriver");
+
+        context.registerBean(DriverContext.class, this::driverContext);
+        context.registerBean(DriverProperty.class, () -> driverProperty);
+        context.registerBean(RabbitTemplate.class, RabbitTemplate::new);
+        context.registerBean(MeterRegistry.class, () -> meterRegistry);
+        context.registerBean("pointValueService", PointValueService.class, () -> sink);
+        context.register(PointValuePublisher.class, PointFrameParser.class,
+                NettyServerHandler.class, UdpServerHandler.class, MqttServerHandler.class, NettyServer.class);
+        context.refresh();
+
+        NettyServer nettyServer = context.getBean(NettyServer.class);
+        switch (protocol) {
+            case "udp":
+                nettyServer.startUdp(port);
+                break;
+            case "mqtt":
+                nettyServer.startMqtt(port);
+                break;
+            default:
+                nettyServer.start(port);
+                break;
+        }
+    }
+
+    /**
+     * 设备与位号配置，所有设备共用一个模板
+     */
+    private DriverContext driverContext() {
+        Map<Long, Device> deviceMap = new ConcurrentHashMap<>(devices * 2);
+        Map<String, Long> deviceNameMap = new ConcurrentHashMap<>(devices * 2);
+        Map<Long, Map<Long, Map<String, AttributeInfo>>> devicePointInfoMap = new ConcurrentHashMap<>(devices * 2);
+        Map<Long, Point> pointMap = new HashMap<>(16);
+        Map<Long, Map<String, AttributeInfo>> pointInfoMap = new HashMap<>(16);
+
+        for (int i = 0; i < POINTS.length; i++) {
+            Long pointId = (long) i + 1;
+            Point point = new Point().setName((String) POINTS[i][0]).setType((String) POINTS[i][1])
+                    .setBase(0f).setMultiple(1f).setFormat("%.3f").setProfileId(PROFILE_ID);
+            point.setId(pointId);
+            pointMap.put(pointId, point);
+
+            Map<String, AttributeInfo> infoMap = new HashMap<>(4);
+            infoMap.put("key", new AttributeInfo(String.format("%02x", KEY), "string"));
+            infoMap.put("start", new AttributeInfo(String.valueOf(POINTS[i][2]), "int"));
+            infoMap.put("end", new AttributeInfo(String.valueOf(POINTS[i][3]), "int"));
+            pointInfoMap.put(pointId, infoMap);
+        }
+
+        for (int i = 0; i < devices; i++) {
+            Long deviceId = (long) i + 1;
+            Device device = new Device().setName(deviceName(i)).setProfileId(PROFILE_ID);
+            device.setId(deviceId);
+            deviceMap.put(deviceId, device);
+            deviceNameMap.put(device.getName(), deviceId);
+            devicePointInfoMap.put(deviceId, pointInfoMap);
+        }
+
+        DriverContext driverContext = new DriverContext();
+        driverContext.setDeviceMap(deviceMap);
+        driverContext.setDeviceNameMap(deviceNameMap);
+        driverContext.setProfilePointMap(new ConcurrentHashMap<>(Collections.singletonMap(PROFILE_ID, pointMap)));
+        driverContext.setDevicePointInfoMap(devicePointInfoMap);
+        return driverContext;
+    }
+
+    /**
+     * 建立设备连接并按频率发送报文，每个设备的发送任务在其连接所属的线程中调度
+     */
+    private void connectDevices(int port) throws InterruptedException {
+        clientGroup = new NioEventLoopGroup(clientThreads, new DefaultThreadFactory("dc3-loadtest-device"));
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+
+        if ("udp".equals(protocol)) {
+            Bootstrap bootstrap = new Bootstrap().group(clientGroup).channel(NioDatagramChannel.class)
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .handler(new ChannelInboundHandlerAdapter());
+            for (int i = 0; i < clientThreads; i++) {
+                channels.add(bootstrap.bind(0).sync().channel());
+            }
+            for (int i = 0; i < devices; i++) {
+                Channel channel = channels.get(i % clientThreads);
+                byte[] frame = frame(i);
+                schedule(channel, period, () -> channel.writeAndFlush(new DatagramPacket(frame(channel, frame), address)));
+            }
+            return;
+        }
+
+        boolean mqtt = "mqtt".equals(protocol);
+        Bootstrap bootstrap = new Bootstrap().group(clientGroup).channel(NioSocketChannel.class)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel socketChannel) {
+                        if (mqtt) {
+                            socketChannel.pipeline().addLast(new MqttDecoder(), MqttEncoder.INSTANCE);
+                        }
+                    }
+                });
+        for (int i = 0; i < devices; i++) {
+            Channel channel = bootstrap.connect(address).sync().channel();
+            channels.add(channel);
+            byte[] frame = frame(i);
+            if (mqtt) {
+                String name = deviceName(i);
+                channel.writeAndFlush(MqttMessageBuilders.connect().clientId(name)
+                        .protocolVersion(MqttVersion.MQTT_3_1_1).cleanSession(true).keepAlive(60).build());
+                String topic = "dc3/" + name;
+                schedule(channel, period, () -> channel.writeAndFlush(MqttMessageBuilders.publish()
+                        .topicName(topic).qos(MqttQoS.AT_MOST_ONCE).retained(false).messageId(0)
+                        .payload(frame(channel, frame)).build()));
+            } else {
+                schedule(channel, period, () -> channel.writeAndFlush(frame(channel, frame)));
+            }
+        }
+    }
+
+    /**
+     * 按周期发送，连接写缓冲区超过高水位时跳过本次发送，记为 throttled
+     */
+    private void schedule(Channel channel, long period, Runnable send) {
+        long initialDelay = ThreadLocalRandom.current().nextLong(period);
+        channel.eventLoop().scheduleAtFixedRate(() -> {
+            if (!channel.isActive()) {
+                return;
+            }
+            if (!channel.isWritable()) {
+                throttled.increment();
+                return;
+            }
+            send.run();
+            sent.increment();
+        }, initialDelay, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 每秒输出一次吞吐，预热结束后开始统计，结束时等待队列中的位号值发送完成
+     */
+    private void measure() throws InterruptedException {
+        long startSent = 0;
+        long startReceived = 0;
+        long startBytes = 0;
+        long startTime = 0;
+        long lastSent = 0;
+        long lastReceived = 0;
+        for (int second = 1; second <= warmup + duration; second++) {
+            Thread.sleep(1000);
+            long nowSent = sent.sum();
+            long nowReceived = sink.getReceived();
+            System.out.printf("%s %3ds  sent %8d frames/s  received %9d points/s  e2e p50 %s p99 %s  queued %6.0f  dropped %6.0f  throttled %d%n",
+                    second <= warmup ? "warmup " : "measure", second, nowSent - lastSent, nowReceived - lastReceived,
+                    micros(sink.getEndToEnd().percentile(50)), micros(sink.getEndToEnd().percentile(99)),
+                    gauge("dc3.listening.publish.queue"), counter("dc3.listening.publish.dropped"), throttled.sum());
+            lastSent = nowSent;
+            lastReceived = nowReceived;
+            if (second == warmup) {
+                startSent = nowSent;
+                startReceived = nowReceived;
+                startBytes = sink.getBytes();
+                startTime = System.nanoTime();
+            }
+        }
+        long endReceived = sink.getReceived();
+        long endBytes = sink.getBytes();
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        channels.forEach(Channel::close);
+        long expected = sent.sum() * POINTS.length;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        long previous = -1;
+        while (sink.getReceived() < expected && System.nanoTime() < deadline && sink.getReceived() != previous) {
+            previous = sink.getReceived();
+            Thread.sleep(500);
+        }
+
+        IngestLoadSink.Histogram endToEnd = sink.getEndToEnd();
+        IngestLoadSink.Histogram interval = sink.getInterval();
+        System.out.println();
+        System.out.printf("sustained        %.0f frames/s, %.0f points/s, %.1f MB/s message body%n",
+                (sent.sum() - startSent) / seconds, (endReceived - startReceived) / seconds, (endBytes - startBytes) / seconds / 1e6);
+        System.out.printf("end to end       p50 %s  p90 %s  p99 %s  p99.9 %s  max %s%n",
+                micros(endToEnd.percentile(50)), micros(endToEnd.percentile(90)), micros(endToEnd.percentile(99)),
+                micros(endToEnd.percentile(99.9)), micros(endToEnd.percentile(100)));
+        System.out.printf("interval         p50 %s  p99 %s  max %s%n",
+                micros(interval.percentile(50)), micros(interval.percentile(99)), micros(interval.percentile(100)));
+        System.out.printf("points           expected %d  received %d  lost %d  (publish dropped %.0f, sink failed %d)%n",
+                expected, sink.getReceived(), Math.max(0, expected - sink.getReceived()),
+                counter("dc3.listening.publish.dropped"), sink.getFailed());
+        System.out.printf("frames           sent %d  throttled %d%n", sent.sum(), throttled.sum());
+    }
+
+    private double gauge(String name) {
+        return Search.in(meterRegistry).name(name).gauges().stream().mapToDouble(Gauge::value).sum();
+    }
+
+    private double counter(String name) {
+        return Search.in(meterRegistry).name(name).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static String micros(long micros) {
+        return micros < 1000 ? micros + "us" : String.format("%.1fms", micros / 1000.0);
+    }
+
+    private static String deviceName(int index) {
+        return String.format("LoadTestDevice%08d", index);
+    }
+
+    /**
+     * 设备报文模板，液位字段在发送时写入 System.nanoTime()
+     */
+    private static byte[] frame(int index) {
+        ByteBuf byteBuf = PooledByteBufAllocator.DEFAULT.heapBuffer(FRAME_LENGTH);
+        try {
+            byteBuf.writeBytes(deviceName(index).getBytes(StandardCharsets.ISO_8859_1), 0, NAME_LENGTH);
+            byteBuf.writeByte(KEY);
+            byteBuf.writeFloat(1567.23f);
+            byteBuf.writeDouble(45.67);
+            byteBuf.writeLong(0);
+            byteBuf.writeInt(index % 360);
+            byteBuf.writeBoolean(index % 2 == 0);
+            byteBuf.writeBytes(LALO.getBytes(StandardCharsets.ISO_8859_1));
+            byte[] frame = new byte[FRAME_LENGTH];
+            byteBuf.readBytes(frame);
+            return frame;
+        } finally {
+            byteBuf.release();
+        }
+    }
+
+    private static ByteBuf frame(Channel channel, byte[] template) {
+        ByteBuf byteBuf = channel.alloc().directBuffer(FRAME_LENGTH);
+        byteBuf.writeBytes(template);
+        byteBuf.setLong(LEVEL_OFFSET, System.nanoTime());
+        return byteBuf;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.pnoker.benchmark;
+
+import com.github.pnoker.common.model.Device;
+import com.github.pnoker.common.model.Point;
+import com.github.pnoker.common.sdk.bean.AttributeInfo;
+import com.github.pnoker.common.sdk.bean.DriverContext;
+import com.github.pnoker.common.sdk.service.rabbit.PointValueService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 位号值处理基准测试，PointValueService.convertValue 包含位号查找与 processValue 的格式化
+ *
+ * @author pnoker
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointValueBenchmark {
+
+    private static final Long DEVICE_ID = 1L;
+    private static final Long POINT_ID = 1L;
+    private static final Long PROFILE_ID = 1L;
+
+    @Param({"float", "int", "boolean", "string"})
+    private String type;
+
+    private PointValueService pointValueService;
+    private String rawValue;
+
+    @Setup
+    public void setup() {
+        Point point = new Point("point-1", type, (short) 0, 0f, 0f, 100f, 1f, false, "%.3f", "℃", PROFILE_ID);
+        point.setId(POINT_ID);
+        Device device = new Device().setName("device-1").setProfileId(PROFILE_ID);
+        device.setId(DEVICE_ID);
+
+        Map<Long, Point> pointMap = new HashMap<>(4);
+        pointMap.put(POINT_ID, point);
+        DriverContext driverContext = new DriverContext();
+        driverContext.setDeviceMap(new ConcurrentHashMap<>(Collections.singletonMap(DEVICE_ID, device)));
+        driverContext.setProfilePointMap(new ConcurrentHashMap<>(Collections.singletonMap(PROFILE_ID, pointMap)));
+        driverContext.setDevicePointInfoMap(new ConcurrentHashMap<>(Collections.singletonMap(DEVICE_ID,
+                Collections.singletonMap(POINT_ID, Collections.singletonMap("start", new AttributeInfo("0", "int"))))));
+
+        pointValueService = new PointValueService();
+        Field field = ReflectionUtils.findField(PointValueService.class, "driverContext");
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, pointValueService, driverContext);
+
+        switch (type) {
+            case "int":
+                rawValue = "45";
+                break;
+            case "boolean":
+                rawValue = "true";
+                break;
+            case "string":
+                rawValue = "131.231456,021.568211";
+                break;
+            default:
+                rawValue = "1567.23";
+                break;
+        }
+    }
+
+    @Benchmark
+    public Object convertValue() {
+        return pointValueService.convertValue(DEVICE_ID, POINT_ID, rawValue);
+    }
+}
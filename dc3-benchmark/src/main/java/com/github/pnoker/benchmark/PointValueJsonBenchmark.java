@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.pnoker.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.pnoker.common.bean.driver.PointValue;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PointValue JSON 序列化基准测试，message 为驱动与 dc3-data 之间使用的 Jackson2JsonMessageConverter，
+ * json 为直接使用 ObjectMapper 的开销，两者之差即消息属性与类型头的开销
+ *
+ * @author pnoker
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointValueJsonBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+
+    private PointValue pointValue;
+    private byte[] json;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        pointValue = new PointValue(1L, 1L, "1567.23", "1567.230");
+        json = objectMapper.writeValueAsBytes(pointValue);
+        message = converter.toMessage(pointValue, new MessageProperties());
+    }
+
+    @Benchmark
+    public byte[] toJson() throws IOException {
+        return objectMapper.writeValueAsBytes(pointValue);
+    }
+
+    @Benchmark
+    public Object fromJson() throws IOException {
+        return objectMapper.readValue(json, PointValue.class);
+    }
+
+    @Benchmark
+    public Object toMessage() {
+        return converter.toMessage(pointValue, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object fromMessage() {
+        return converter.fromMessage(message);
+    }
+}
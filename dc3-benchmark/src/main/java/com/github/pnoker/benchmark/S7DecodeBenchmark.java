@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.benchmark;
+
+import com.github.pnoker.driver.bean.PointVariable;
+import com.github.s7connector.api.S7Type;
+import com.github.s7connector.api.annotation.S7Variable;
+import com.github.s7connector.impl.serializer.S7Decoder;
+import com.github.s7connector.impl.serializer.S7Decoders;
+import com.github.s7connector.impl.serializer.S7SerializerImpl;
+import com.github.s7connector.impl.serializer.parser.BeanEntry;
+import com.github.s7connector.impl.serializer.parser.BeanParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plc S7 位号解码基准测试，对比每次解析 BeanEntry 并经 Converter 解码与预先构建的 S7Decoder 的耗时
+ * <p>
+ * 建议配合 -prof gc 查看每次解码的内存分配
+ *
+ * @author pnoker
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class S7DecodeBenchmark {
+
+    private static final int POINTS = 100;
+
+    @Param({"bool", "int", "dint", "word", "real", "time", "string", "datetime"})
+    private String type;
+
+    private byte[] buffer;
+    private PointVariable[] pointVariables;
+    private S7Decoder[] decoders;
+
+    @Setup
+    public void setup() {
+        // string 占用 2 字节头 + 20 字节内容
+        int size = "string".equals(type) ? 22 : 8;
+        buffer = new byte[POINTS * size];
+        new Random(7).nextBytes(buffer);
+
+        pointVariables = new PointVariable[POINTS];
+        decoders = new S7Decoder[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            pointVariables[i] = new PointVariable(1, i * size, i % 8, size, type);
+            decoders[i] = S7Decoders.of(pointVariables[i]);
+        }
+        if ("string".equals(type)) {
+            for (int i = 0; i < POINTS; i++) {
+                buffer[i * size] = 20;
+                buffer[i * size + 1] = (byte) (i % 21);
+            }
+        }
+        if ("datetime".equals(type)) {
+            for (int i = 0; i < POINTS; i++) {
+                // BCD: 20-01-15 10:30:00
+                System.arraycopy(new byte[]{0x20, 0x01, 0x15, 0x10, 0x30, 0x00, 0x00, 0x00}, 0, buffer, i * size, 8);
+            }
+        }
+    }
+
+    /**
+     * 原实现：每个位号解析一次 BeanEntry 并新建 Converter
+     */
+    @Benchmark
+    public void converter(Blackhole blackhole) throws Exception {
+        for (PointVariable pointVariable : pointVariables) {
+            BeanEntry entry = BeanParser.parse(pointVariable);
+            blackhole.consume(entry.serializer.extract(entry.type, buffer, entry.byteOffset, entry.bitOffset));
+        }
+    }
+
+    /**
+     * 按位号查找解码器
+     */
+    @Benchmark
+    public void decoderLookup(Blackhole blackhole) {
+        for (PointVariable pointVariable : pointVariables) {
+            blackhole.consume(S7SerializerImpl.extractBytes(pointVariable, buffer, 0));
+        }
+    }
+
+    /**
+     * 预先缓存解码器
+     */
+    @Benchmark
+    public void decoderCached(Blackhole blackhole) {
+        for (int i = 0; i < POINTS; i++) {
+            blackhole.consume(decoders[i].decode(buffer, pointVariables[i].getByteOffset()));
+        }
+    }
+
+    /**
+     * 注解 Bean 解码，BeanParser 解析结果已缓存
+     */
+    @State(Scope.Benchmark)
+    public static class BeanState {
+        private final byte[] buffer = new byte[32];
+
+        @Setup
+        public void setup() {
+            new Random(7).nextBytes(buffer);
+        }
+    }
+
+    @Benchmark
+    public Object bean(BeanState state) {
+        return S7SerializerImpl.extractBytes(DataBlock.class, state.buffer, 0);
+    }
+
+    public static class DataBlock {
+        @S7Variable(byteOffset = 0, bitOffset = 0, type = S7Type.BOOL)
+        public Boolean running;
+        @S7Variable(byteOffset = 2, type = S7Type.INT)
+        public Short speed;
+        @S7Variable(byteOffset = 4, type = S7Type.DINT)
+        public Long counter;
+        @S7Variable(byteOffset = 8, type = S7Type.REAL)
+        public Float temperature;
+        @S7Variable(byteOffset = 12, type = S7Type.BYTE, arraySize = 16)
+        public byte[] raw;
+    }
+}
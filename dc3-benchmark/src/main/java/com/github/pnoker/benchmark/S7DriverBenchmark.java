@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.benchmark;
+
+import com.github.pnoker.driver.bean.PointVariable;
+import com.github.s7connector.api.S7Connector;
+import com.github.s7connector.api.S7Serializer;
+import com.github.s7connector.api.factory.S7ConnectorFactory;
+import com.github.s7connector.api.factory.S7SerializerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plc S7 驱动端到端基准测试，连接本地 S7Simulator 批量读写位号
+ * <p>
+ * readPoints / writePoints 的吞吐即每秒位号数，readCycle 的 p0.99 即一个采集周期（一次批量读取全部位号）的 p99 耗时
+ *
+ * @author pnoker
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class S7DriverBenchmark {
+
+    private static final int POINTS = 200;
+    private static final String[] TYPES = {"real", "dint", "int", "bool", "word"};
+
+    /**
+     * 每个请求的模拟应答延迟（毫秒），0 只测量驱动与协议栈本身的开销
+     */
+    @Param({"0", "2"})
+    private double latency;
+
+    /**
+     * 每个连接同时发送的请求数
+     */
+    @Param({"1", "4"})
+    private int pipeline;
+
+    private S7Simulator simulator;
+    private S7Connector connector;
+    private S7Serializer serializer;
+
+    private List<PointVariable> pointVariables;
+    private List<Object> values;
+
+    @Setup
+    public void setup() throws Exception {
+        simulator = new S7Simulator(0, 8, 480, latency, latency / 2);
+        connector = S7ConnectorFactory.buildTCPConnector()
+                .withHost("127.0.0.1").withPort(simulator.getPort())
+                .withTimeout(5000)
+                .withPipeline(pipeline)
+                .build();
+        serializer = S7SerializerFactory.buildSerializer(connector);
+
+        // 4 个 DB 交错分布，位号间隔 12 字节，相邻位号不会合并为一个区间
+        Random random = new Random(7);
+        pointVariables = new ArrayList<>(POINTS);
+        values = new ArrayList<>(POINTS);
+        for (int i = 0; i < POINTS; i++) {
+            String type = TYPES[i % TYPES.length];
+            PointVariable pointVariable = new PointVariable(1 + i % 4, (i / 4) * 12, i % 8, 4, type);
+            pointVariables.add(pointVariable);
+            switch (type) {
+                case "real":
+                    values.add(random.nextFloat());
+                    break;
+                case "dint":
+                    values.add((long) random.nextInt());
+                    break;
+                case "int":
+                    values.add((short) random.nextInt());
+                    break;
+                case "bool":
+                    values.add(random.nextBoolean());
+                    break;
+                default:
+                    values.add(random.nextInt(0xFFFF));
+                    break;
+            }
+        }
+        serializer.store(pointVariables, values);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connector.close();
+        simulator.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public List<Object> readPoints() {
+        return serializer.dispense(pointVariables);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int[] writePoints() {
+        return serializer.store(pointVariables, values);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Object> readCycle() {
+        return serializer.dispense(pointVariables);
+    }
+}
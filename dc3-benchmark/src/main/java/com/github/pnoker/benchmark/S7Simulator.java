@@ -0,0 +1,367 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.benchmark;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plc S7 模拟器，ISO-on-TCP 回环服务端，用于在没有 PLC 的环境下测试 plcs7 驱动的吞吐与延迟
+ * <p>
+ * 支持 COTP 连接建立、PDU 长度与并行任务数（AmQ）协商、DB/M/I/Q 区的多变量读写（含位写入），
+ * 每个请求按 latency + 随机 jitter 延迟应答，单个连接同时处理的请求数不超过协商的 AmQ。
+ * <p>
+ * 单独运行：java -cp benchmarks.jar com.github.pnoker.benchmark.S7Simulator [port] [amq] [pdu] [latencyMs]
+ *
+ * @author pnoker
+ */
+public class S7Simulator implements AutoCloseable {
+
+    private static final int TPKT_HEADER = 4;
+    private static final int COTP_DT = 3;
+    private static final int S7_HEADER = 10;
+    private static final int PARAM = TPKT_HEADER + COTP_DT + S7_HEADER;
+
+    private static final int FUNC_SETUP = 0xF0;
+    private static final int FUNC_READ = 0x04;
+    private static final int FUNC_WRITE = 0x05;
+
+    private static final int AREA_INPUTS = 0x81;
+    private static final int AREA_OUTPUTS = 0x82;
+    private static final int AREA_FLAGS = 0x83;
+    private static final int AREA_DB = 0x84;
+
+    private static final int TRANSPORT_BIT = 0x01;
+    private static final int ITEM_OK = 0xFF;
+    private static final int ITEM_ADDRESS_OUT_OF_RANGE = 0x05;
+    private static final int ITEM_NOT_AVAILABLE = 0x0A;
+
+    private final int maxAmQ;
+    private final int pduLength;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final int areaSize;
+    private final int dbCount;
+
+    /**
+     * area code 或 DB 序号（area code << 16 | dbNum），数据区
+     */
+    private final Map<Integer, byte[]> memory = new HashMap<>(16);
+
+    private final ServerSocket serverSocket;
+    private final ScheduledExecutorService responder;
+    private final Map<Socket, Boolean> sockets = new ConcurrentHashMap<>(16);
+    private final AtomicLong requests = new AtomicLong();
+    private volatile boolean running = true;
+
+    /**
+     * @param port      监听端口，0 表示随机端口
+     * @param maxAmQ    协商的最大并行任务数
+     * @param pduLength 协商的 PDU 长度
+     * @param latency   每个请求的固定应答延迟（毫秒）
+     * @param jitter    额外的随机应答延迟上限（毫秒）
+     * @throws IOException
+     */
+    public S7Simulator(int port, int maxAmQ, int pduLength, double latency, double jitter) throws IOException {
+        this(port, maxAmQ, pduLength, latency, jitter, 65536, 16);
+    }
+
+    /**
+     * @param areaSize 每个数据区（DB/M/I/Q）的字节数
+     * @param dbCount  DB 数量，DB 序号从 1 开始
+     */
+    public S7Simulator(int port, int maxAmQ, int pduLength, double latency, double jitter, int areaSize, int dbCount) throws IOException {
+        this.maxAmQ = maxAmQ;
+        this.pduLength = pduLength;
+        this.latencyNanos = (long) (latency * 1_000_000);
+        this.jitterNanos = (long) (jitter * 1_000_000);
+        this.areaSize = areaSize;
+        this.dbCount = dbCount;
+
+        memory.put(AREA_INPUTS, new byte[areaSize]);
+        memory.put(AREA_OUTPUTS, new byte[areaSize]);
+        memory.put(AREA_FLAGS, new byte[areaSize]);
+        for (int dbNum = 1; dbNum <= dbCount; dbNum++) {
+            memory.put(AREA_DB << 16 | dbNum, new byte[areaSize]);
+        }
+
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.responder = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread thread = new Thread(r, "s7-simulator-responder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread acceptor = new Thread(this::accept, "s7-simulator-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 已处理的读写请求数
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * 获取数据区，直接读写用于准备或校验数据
+     *
+     * @param areaCode DaveArea code
+     * @param dbNum    DB 序号，非 DB 区忽略
+     * @return
+     */
+    public byte[] area(int areaCode, int dbNum) {
+        return memory.get(areaCode == AREA_DB ? AREA_DB << 16 | dbNum : areaCode);
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket socket : sockets.keySet()) {
+            socket.close();
+        }
+        responder.shutdownNow();
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.put(socket, Boolean.TRUE);
+                Thread thread = new Thread(() -> serve(socket), "s7-simulator-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("s7 simulator accept fail, " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 每个连接一个读线程，请求在响应线程池中延迟应答，未应答的请求数达到 AmQ 时停止读取
+     */
+    private void serve(Socket socket) {
+        Semaphore amq = new Semaphore(maxAmQ);
+        try (Socket s = socket) {
+            DataInputStream in = new DataInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            while (running) {
+                byte[] packet = readPacket(in);
+                if ((packet[5] & 0xFF) == 0xE0) {
+                    // COTP connection request -> connection confirm
+                    packet[5] = (byte) 0xD0;
+                    send(out, packet);
+                    continue;
+                }
+                int func = packet[PARAM] & 0xFF;
+                if (func == FUNC_SETUP) {
+                    send(out, setup(packet));
+                    continue;
+                }
+                amq.acquire();
+                long delay = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos) : 0);
+                responder.schedule(() -> {
+                    try {
+                        send(out, func == FUNC_WRITE ? write(packet) : read(packet));
+                        requests.incrementAndGet();
+                    } catch (IOException ignored) {
+                        // connection closed by the driver
+                    } finally {
+                        amq.release();
+                    }
+                }, delay, TimeUnit.NANOSECONDS);
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // connection closed
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private static byte[] readPacket(DataInputStream in) throws IOException {
+        byte[] header = new byte[TPKT_HEADER];
+        in.readFully(header);
+        int length = (header[2] & 0xFF) << 8 | (header[3] & 0xFF);
+        byte[] packet = new byte[length];
+        System.arraycopy(header, 0, packet, 0, TPKT_HEADER);
+        in.readFully(packet, TPKT_HEADER, length - TPKT_HEADER);
+        return packet;
+    }
+
+    private static void send(OutputStream out, byte[] packet) throws IOException {
+        synchronized (out) {
+            out.write(packet);
+            out.flush();
+        }
+    }
+
+    private byte[] setup(byte[] request) {
+        int calling = Math.min(maxAmQ, word(request, PARAM + 2));
+        int called = Math.min(maxAmQ, word(request, PARAM + 4));
+        int pdu = Math.min(pduLength, word(request, PARAM + 6));
+        byte[] param = {(byte) FUNC_SETUP, 0, (byte) (calling >> 8), (byte) calling, (byte) (called >> 8), (byte) called,
+                (byte) (pdu >> 8), (byte) pdu};
+        return response(request, param, new byte[0]);
+    }
+
+    private byte[] read(byte[] request) {
+        int items = request[PARAM + 1] & 0xFF;
+        byte[] data = new byte[pduLength];
+        int pos = 0;
+        for (int i = 0; i < items; i++) {
+            int item = PARAM + 2 + 12 * i;
+            boolean bit = (request[item + 3] & 0xFF) == TRANSPORT_BIT;
+            int count = word(request, item + 4);
+            int address = (request[item + 9] & 0xFF) << 16 | (request[item + 10] & 0xFF) << 8 | (request[item + 11] & 0xFF);
+            byte[] area = memory(request[item + 8] & 0xFF, word(request, item + 6));
+            int start = address >> 3;
+            int length = bit ? 1 : count;
+
+            int code = null == area ? ITEM_NOT_AVAILABLE : start + length > area.length ? ITEM_ADDRESS_OUT_OF_RANGE : ITEM_OK;
+            if (code != ITEM_OK || pos + 4 + length > data.length) {
+                data[pos] = (byte) (code != ITEM_OK ? code : ITEM_ADDRESS_OUT_OF_RANGE);
+                pos += 4;
+                continue;
+            }
+            data[pos] = (byte) ITEM_OK;
+            data[pos + 1] = (byte) (bit ? 0x03 : 0x04);
+            int bits = bit ? 1 : length * 8;
+            data[pos + 2] = (byte) (bits >> 8);
+            data[pos + 3] = (byte) bits;
+            synchronized (area) {
+                if (bit) {
+                    data[pos + 4] = (byte) ((area[start] >> (address & 0x07)) & 0x01);
+                } else {
+                    System.arraycopy(area, start, data, pos + 4, length);
+                }
+            }
+            pos += 4 + length;
+            // every item but the last is padded to an even length
+            if (length % 2 == 1 && i < items - 1) {
+                pos++;
+            }
+        }
+        byte[] trimmed = new byte[pos];
+        System.arraycopy(data, 0, trimmed, 0, pos);
+        return response(request, new byte[]{(byte) FUNC_READ, (byte) items}, trimmed);
+    }
+
+    private byte[] write(byte[] request) {
+        int items = request[PARAM + 1] & 0xFF;
+        byte[] data = new byte[items];
+        int pos = PARAM + 2 + 12 * items;
+        for (int i = 0; i < items; i++) {
+            int item = PARAM + 2 + 12 * i;
+            boolean bit = (request[item + 3] & 0xFF) == TRANSPORT_BIT;
+            int address = (request[item + 9] & 0xFF) << 16 | (request[item + 10] & 0xFF) << 8 | (request[item + 11] & 0xFF);
+            byte[] area = memory(request[item + 8] & 0xFF, word(request, item + 6));
+            int start = address >> 3;
+            int length = word(request, pos + 2);
+            if ((request[pos + 1] & 0xFF) == 0x04) {
+                // length in bits
+                length >>= 3;
+            }
+
+            int code = null == area ? ITEM_NOT_AVAILABLE : start + (bit ? 1 : length) > area.length ? ITEM_ADDRESS_OUT_OF_RANGE : ITEM_OK;
+            if (code == ITEM_OK) {
+                synchronized (area) {
+                    if (bit) {
+                        int mask = 0x01 << (address & 0x07);
+                        area[start] = (byte) (request[pos + 4] != 0 ? area[start] | mask : area[start] & ~mask);
+                    } else {
+                        System.arraycopy(request, pos + 4, area, start, length);
+                    }
+                }
+            }
+            data[i] = (byte) code;
+            pos += 4 + length + (length % 2);
+        }
+        return response(request, new byte[]{(byte) FUNC_WRITE, (byte) items}, data);
+    }
+
+    private byte[] memory(int areaCode, int dbNum) {
+        if (areaCode == AREA_DB) {
+            return dbNum >= 1 && dbNum <= dbCount ? memory.get(AREA_DB << 16 | dbNum) : null;
+        }
+        return memory.get(areaCode);
+    }
+
+    /**
+     * 应答报文：TPKT + COTP DT + ack data 头（12 字节，携带请求的 PDU 引用）+ 参数 + 数据
+     */
+    private static byte[] response(byte[] request, byte[] param, byte[] data) {
+        int length = TPKT_HEADER + COTP_DT + 12 + param.length + data.length;
+        byte[] packet = new byte[length];
+        packet[0] = 0x03;
+        packet[2] = (byte) (length >> 8);
+        packet[3] = (byte) length;
+        packet[4] = 0x02;
+        packet[5] = (byte) 0xF0;
+        packet[6] = (byte) 0x80;
+        int header = TPKT_HEADER + COTP_DT;
+        packet[header] = 0x32;
+        packet[header + 1] = 0x03;
+        packet[header + 4] = request[header + 4];
+        packet[header + 5] = request[header + 5];
+        packet[header + 6] = (byte) (param.length >> 8);
+        packet[header + 7] = (byte) param.length;
+        packet[header + 8] = (byte) (data.length >> 8);
+        packet[header + 9] = (byte) data.length;
+        System.arraycopy(param, 0, packet, header + 12, param.length);
+        System.arraycopy(data, 0, packet, header + 12 + param.length, data.length);
+        return packet;
+    }
+
+    private static int word(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF) << 8 | (buffer[offset + 1] & 0xFF);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 102;
+        int amq = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int pdu = args.length > 2 ? Integer.parseInt(args[2]) : 480;
+        double latency = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+        S7Simulator simulator = new S7Simulator(port, amq, pdu, latency, latency / 2);
+        System.out.printf("s7 simulator listening on %d, amq=%d, pdu=%d, latency=%sms%n", simulator.getPort(), amq, pdu, latency);
+        while (true) {
+            long before = simulator.getRequests();
+            Thread.sleep(10_000);
+            System.out.printf("%d requests/s%n", (simulator.getRequests() - before) / 10);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.benchmark;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.github.pnoker.common.config.RedisSerializerConfig;
+import com.github.pnoker.common.model.Device;
+import com.github.pnoker.common.model.Point;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis Value 序列化基准测试，对比 json / smile 的编解码耗时与数据体积
+ * <p>
+ * 数据体积在 Setup 阶段输出到控制台
+ *
+ * @author pnoker
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"JSON", "SMILE"})
+    private RedisSerializerConfig.Type type;
+
+    private RedisSerializer<Object> serializer;
+
+    private Point point;
+    private Device device;
+    private Page<Point> page;
+
+    private byte[] pointBytes;
+    private byte[] deviceBytes;
+    private byte[] pageBytes;
+
+    @Setup
+    public void setup() {
+        RedisSerializerConfig config = new RedisSerializerConfig();
+        config.setType(type);
+        serializer = config.redisValueSerializer();
+
+        point = point(1L);
+        device = new Device("device-1", "9F1C0A7E2B5D4C3A8E6F1B2D3C4A5E6F", (short) 1, 1L, 1L);
+        device.setId(1L);
+        device.setDescription("benchmark device");
+        device.setCreateTime(new Date());
+        device.setUpdateTime(new Date());
+
+        List<Point> records = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            records.add(point(i));
+        }
+        page = new Page<>(1, 20, 200);
+        page.setRecords(records);
+
+        pointBytes = serializer.serialize(point);
+        deviceBytes = serializer.serialize(device);
+        pageBytes = serializer.serialize(page);
+        System.out.printf("%n[%s] payload size: point=%d bytes, device=%d bytes, page(20 points)=%d bytes%n",
+                type, pointBytes.length, deviceBytes.length, pageBytes.length);
+    }
+
+    private Point point(long id) {
+        Point point = new Point("point-" + id, "float", (short) 0, 0f, 0f, 100f, 1f, false, "%.3f", "℃", 1L);
+        point.setId(id);
+        point.setDescription("benchmark point");
+        point.setCreateTime(new Date());
+        point.setUpdateTime(new Date());
+        return point;
+    }
+
+    @Benchmark
+    public byte[] serializePoint() {
+        return serializer.serialize(point);
+    }
+
+    @Benchmark
+    public Object deserializePoint() {
+        return serializer.deserialize(pointBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeDevice() {
+        return serializer.serialize(device);
+    }
+
+    @Benchmark
+    public Object deserializeDevice() {
+        return serializer.deserialize(deviceBytes);
+    }
+
+    @Benchmark
+    public byte[] serializePage() {
+        return serializer.serialize(page);
+    }
+
+    @Benchmark
+    public Object deserializePage() {
+        return serializer.deserialize(pageBytes);
+    }
+}
@@ -19,6 +19,7 @@ package com.github.pnoker.center.auth.api;
 import com.github.pnoker.api.center.auth.token.feign.TokenClient;
 import com.github.pnoker.center.auth.service.TokenService;
 import com.github.pnoker.common.bean.R;
+import com.github.pnoker.common.bean.Token;
 import com.github.pnoker.common.constant.Common;
 import com.github.pnoker.common.model.User;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +27,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.annotation.Resource;
+import java.util.Map;
 
 /**
  * 用户 Client 接口实现
@@ -42,7 +44,17 @@ public class TokenApi implements TokenClient {
     @Override
     public R<String> generateToken(User user) {
         try {
-            String token = tokenService.generateToken(user);
+            String token = tokenService.generateAccessToken(user);
+            return null != token ? R.ok(token, "") : R.fail();
+        } catch (Exception e) {
+            return R.fail(e.getMessage());
+        }
+    }
+
+    @Override
+    public R<Token> generateTokenPair(User user) {
+        try {
+            Token token = tokenService.generateToken(user);
             return null != token ? R.ok(token, "") : R.fail();
         } catch (Exception e) {
             return R.fail(e.getMessage());
@@ -53,4 +65,27 @@ public class TokenApi implements TokenClient {
     public R<Boolean> checkTokenValid(String token) {
         return tokenService.checkTokenValid(token) ? R.ok() : R.fail();
     }
+
+    @Override
+    public R<Token> refreshToken(String token) {
+        try {
+            return R.ok(tokenService.refreshToken(token), "");
+        } catch (Exception e) {
+            return R.fail(e.getMessage());
+        }
+    }
+
+    @Override
+    public R<Boolean> revokeToken(String token) {
+        return tokenService.revokeToken(token) ? R.ok() : R.fail();
+    }
+
+    @Override
+    public R<Map<String, Long>> revokedTokens() {
+        try {
+            return R.ok(tokenService.revokedTokens());
+        } catch (Exception e) {
+            return R.fail(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.center.auth.bean;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 授权中心配置文件 auth.token 字段内容
+ *
+ * @author pnoker
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "auth.token")
+public class TokenProperty {
+    /**
+     * 访问令牌有效时长，吊销前已签发的访问令牌最多在此时长内有效
+     */
+    private Duration accessTtl = Duration.ofMinutes(15);
+    /**
+     * 旧接口 POST /token 只返回访问令牌且没有刷新令牌，沿用原有的有效时长
+     */
+    private Duration legacyAccessTtl = Duration.ofHours(6);
+    /**
+     * 刷新令牌有效时长，刷新令牌只能使用一次
+     */
+    private Duration refreshTtl = Duration.ofDays(7);
+}
@@ -16,8 +16,11 @@
 
 package com.github.pnoker.center.auth.service;
 
+import com.github.pnoker.common.bean.Token;
 import com.github.pnoker.common.model.User;
 
+import java.util.Map;
+
 /**
  * Token Interface
  *
@@ -25,12 +28,43 @@ import com.github.pnoker.common.model.User;
  */
 public interface TokenService {
     /**
-     * 生成用户的Token令牌
+     * 生成用户的Token令牌对
      *
      * @param user
      * @return
      */
-    String generateToken(User user);
+    Token generateToken(User user);
+
+    /**
+     * 生成用户的访问令牌，供只返回访问令牌的旧接口使用，有效时长为 legacyAccessTtl
+     *
+     * @param user
+     * @return
+     */
+    String generateAccessToken(User user);
+
+    /**
+     * 使用刷新令牌换取新的令牌对，原刷新令牌随即吊销
+     *
+     * @param token
+     * @return
+     */
+    Token refreshToken(String token);
+
+    /**
+     * 吊销用户的Token令牌
+     *
+     * @param token
+     * @return 令牌有效且本次吊销成功返回 true
+     */
+    boolean revokeToken(String token);
+
+    /**
+     * 查询尚未过期的已吊销令牌
+     *
+     * @return 令牌 ID 与过期时间
+     */
+    Map<String, Long> revokedTokens();
 
     /**
      * 校验用户的Token令牌是否有效
@@ -16,45 +16,160 @@
 
 package com.github.pnoker.center.auth.service.impl;
 
+import com.github.pnoker.center.auth.bean.TokenProperty;
 import com.github.pnoker.center.auth.service.TokenService;
 import com.github.pnoker.center.auth.service.UserService;
+import com.github.pnoker.common.bean.Token;
+import com.github.pnoker.common.constant.Common;
 import com.github.pnoker.common.exception.ServiceException;
 import com.github.pnoker.common.model.User;
 import com.github.pnoker.common.utils.KeyUtil;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 令牌服务接口实现类
+ * <p>
+ * 吊销的令牌 ID 记录在 Redis 有序集合中，分值为令牌的过期时间，过期后清除；
+ * 吊销时同时发布到 Common.Token.TOPIC，网关据此维护本地的吊销集合
  *
  * @author pnoker
  */
 @Slf4j
 @Service
+@EnableConfigurationProperties({TokenProperty.class})
 public class TokenServiceImpl implements TokenService {
     @Resource
     private UserService userService;
+    @Resource
+    private TokenProperty tokenProperty;
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public Token generateToken(User user) {
+        return issue(authenticate(user).getName());
+    }
+
+    @Override
+    public String generateAccessToken(User user) {
+        return KeyUtil.generateToken(authenticate(user).getName(), Common.Token.ACCESS, tokenProperty.getLegacyAccessTtl().toMillis());
+    }
+
+    @Override
+    public Token refreshToken(String token) {
+        Claims claims = parse(token);
+        if (null == claims || !Common.Token.REFRESH.equals(claims.get(Common.Token.TYPE))) {
+            throw new ServiceException("刷新令牌无效或已过期");
+        }
+        // 刷新令牌只能使用一次，并发刷新时只有一个请求能够吊销成功
+        if (!revoke(claims)) {
+            throw new ServiceException("刷新令牌已被使用或吊销");
+        }
+        if (null == userService.selectByName(claims.getSubject())) {
+            throw new ServiceException("用户不存在");
+        }
+        return issue(claims.getSubject());
+    }
+
+    @Override
+    public boolean revokeToken(String token) {
+        Claims claims = parse(token);
+        return null != claims && revoke(claims);
+    }
 
     @Override
-    public String generateToken(User user) {
+    public Map<String, Long> revokedTokens() {
+        long now = System.currentTimeMillis();
+        stringRedisTemplate.opsForZSet().removeRangeByScore(Common.Token.REVOKED, 0, now);
+        Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet().rangeByScoreWithScores(Common.Token.REVOKED, now, Double.MAX_VALUE);
+        Map<String, Long> revoked = new HashMap<>(null == tuples ? 16 : tuples.size() * 2);
+        if (null != tuples) {
+            tuples.forEach(tuple -> revoked.put(tuple.getValue(), null == tuple.getScore() ? now : tuple.getScore().longValue()));
+        }
+        return revoked;
+    }
+
+    @Override
+    public boolean checkTokenValid(String token) {
+        Claims claims = parse(token);
+        return null != claims && null == stringRedisTemplate.opsForZSet().score(Common.Token.REVOKED, claims.getId());
+    }
+
+    /**
+     * 校验用户名与密码
+     *
+     * @param user
+     * @return 数据库中的用户
+     */
+    private User authenticate(User user) {
         User select = userService.selectByName(user.getName());
         if (null != select) {
             if (select.getPassword().equals(user.getPassword())) {
-                return KeyUtil.generateToken(user.getName());
+                return select;
             }
         }
         throw new ServiceException("用户不存在或者密码不匹配");
     }
 
-    @Override
-    public boolean checkTokenValid(String token) {
+    /**
+     * 签发访问令牌与刷新令牌
+     *
+     * @param name
+     * @return
+     */
+    private Token issue(String name) {
+        long now = System.currentTimeMillis();
+        long accessTtl = tokenProperty.getAccessTtl().toMillis();
+        long refreshTtl = tokenProperty.getRefreshTtl().toMillis();
+        return new Token(
+                KeyUtil.generateToken(name, Common.Token.ACCESS, accessTtl),
+                KeyUtil.generateToken(name, Common.Token.REFRESH, refreshTtl),
+                now + accessTtl,
+                now + refreshTtl
+        );
+    }
+
+    /**
+     * 记录吊销的令牌 ID 并通知网关
+     *
+     * @param claims
+     * @return 本次新增返回 true，已吊销过返回 false
+     */
+    private boolean revoke(Claims claims) {
+        String id = claims.getId();
+        long expiration = claims.getExpiration().getTime();
+        Boolean added = stringRedisTemplate.opsForZSet().add(Common.Token.REVOKED, id, expiration);
+        if (!Boolean.TRUE.equals(added)) {
+            return false;
+        }
+        stringRedisTemplate.convertAndSend(Common.Token.TOPIC, id + ":" + expiration);
+        stringRedisTemplate.opsForZSet().removeRangeByScore(Common.Token.REVOKED, 0, System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * 校验签名与有效期并解析令牌
+     *
+     * @param token
+     * @return 令牌无效返回 null
+     */
+    private Claims parse(String token) {
         try {
-            KeyUtil.parserToken(token);
-            return true;
+            Claims claims = KeyUtil.parserToken(token);
+            return null == claims.getId() || null == claims.getExpiration() ? null : claims;
         } catch (Exception e) {
-            return false;
+            log.debug("token parse fail,{}", e.getMessage());
+            return null;
         }
     }
 }
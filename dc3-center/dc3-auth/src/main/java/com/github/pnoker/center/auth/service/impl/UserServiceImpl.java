@@ -106,13 +106,13 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.USER + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.USER + Common.Cache.ID, key = "#id", sync = true)
     public User selectById(Long id) {
         return userMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.USER + Common.Cache.NAME, key = "#name", unless = "#result==null")
+    @Cacheable(value = Common.Cache.USER + Common.Cache.NAME, key = "#name", sync = true)
     public User selectByName(String name) {
         LambdaQueryWrapper<User> queryWrapper = Wrappers.<User>query().lambda()
                 .eq(User::getName, name)
@@ -121,7 +121,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.USER + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.USER + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<User> list(UserDto userDto) {
         if (!Optional.ofNullable(userDto.getPage()).isPresent()) {
             userDto.setPage(new Pages());
@@ -24,12 +24,15 @@ import com.github.pnoker.center.manager.mapper.DeviceMapper;
 import com.github.pnoker.center.manager.service.DeviceService;
 import com.github.pnoker.center.manager.service.NotifyService;
 import com.github.pnoker.common.bean.Pages;
+import com.github.pnoker.common.cache.TaggedKey;
 import com.github.pnoker.common.constant.Common;
 import com.github.pnoker.common.dto.DeviceDto;
 import com.github.pnoker.common.exception.ServiceException;
 import com.github.pnoker.common.model.Device;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
@@ -51,6 +54,8 @@ public class DeviceServiceImpl implements DeviceService {
     private DeviceMapper deviceMapper;
     @Resource
     private NotifyService notifyService;
+    @Resource
+    private CacheManager cacheManager;
 
     @Override
     @Caching(
@@ -61,7 +66,7 @@ public class DeviceServiceImpl implements DeviceService {
             },
             evict = {
                     @CacheEvict(value = Common.Cache.DEVICE + Common.Cache.DIC, allEntries = true, condition = "#result!=null"),
-                    @CacheEvict(value = Common.Cache.DEVICE + Common.Cache.LIST, allEntries = true, condition = "#result!=null")
+                    @CacheEvict(value = Common.Cache.DEVICE + Common.Cache.LIST, key = "T(com.github.pnoker.common.cache.TaggedKey).tag(#device.profileId)", condition = "#result!=null")
             }
     )
     public Device add(Device device) {
@@ -107,13 +112,15 @@ public class DeviceServiceImpl implements DeviceService {
             },
             evict = {
                     @CacheEvict(value = Common.Cache.DEVICE + Common.Cache.DIC, allEntries = true, condition = "#result!=null"),
-                    @CacheEvict(value = Common.Cache.DEVICE + Common.Cache.LIST, allEntries = true, condition = "#result!=null")
+                    @CacheEvict(value = Common.Cache.DEVICE + Common.Cache.LIST, key = "T(com.github.pnoker.common.cache.TaggedKey).tag(#device.profileId)", condition = "#result!=null")
             }
     )
     public Device update(Device device) {
         device.setCode(null);
         device.setUpdateTime(null);
+        Device old = deviceMapper.selectById(device.getId());
         if (deviceMapper.updateById(device) > 0) {
+            evictMovedList(old, device);
             Device select = selectById(device.getId());
             device.setCode(select.getCode()).setGroupId(select.getGroupId()).setName(select.getName());
             notifyService.notifyDriverUpdateDevice(device.getId(), device.getProfileId());
@@ -123,13 +130,13 @@ public class DeviceServiceImpl implements DeviceService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.ID, key = "#id", sync = true)
     public Device selectById(Long id) {
         return deviceMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.CODE, key = "#code", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.CODE, key = "#code", sync = true)
     public Device selectByCode(String code) {
         LambdaQueryWrapper<Device> queryWrapper = Wrappers.<Device>query().lambda();
         queryWrapper.eq(Device::getCode, code);
@@ -137,7 +144,7 @@ public class DeviceServiceImpl implements DeviceService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.GROUP_NAME, key = "#groupId+'.'+#name", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.GROUP_NAME, key = "#groupId+'.'+#name", sync = true)
     public Device selectDeviceByNameAndGroup(long groupId, String name) {
         LambdaQueryWrapper<Device> queryWrapper = Wrappers.<Device>query().lambda();
         queryWrapper.eq(Device::getGroupId, groupId);
@@ -146,7 +153,7 @@ public class DeviceServiceImpl implements DeviceService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<Device> list(DeviceDto deviceDto) {
         if (!Optional.ofNullable(deviceDto.getPage()).isPresent()) {
             deviceDto.setPage(new Pages());
@@ -189,4 +196,19 @@ public class DeviceServiceImpl implements DeviceService {
         }
         return code;
     }
+
+    /**
+     * 设备移动到其他模板时，原父级的列表缓存同样失效
+     *
+     * @param old
+     * @param device
+     */
+    private void evictMovedList(Device old, Device device) {
+        if (null != old && !old.getProfileId().equals(device.getProfileId())) {
+            Cache cache = cacheManager.getCache(Common.Cache.DEVICE + Common.Cache.LIST);
+            if (null != cache) {
+                cache.evict(TaggedKey.tag(old.getProfileId()));
+            }
+        }
+    }
 }
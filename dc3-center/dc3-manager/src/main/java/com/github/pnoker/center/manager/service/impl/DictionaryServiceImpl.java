@@ -37,7 +37,7 @@ public class DictionaryServiceImpl implements DictionaryService {
     private PointMapper pointMapper;
 
     @Override
-    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.DIC, key = "'dirver_dic'", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.DIC, key = "'dirver_dic'", sync = true)
     public List<Dictionary> driverDictionary() {
         List<Dictionary> dictionaryList = new ArrayList<>();
         LambdaQueryWrapper<Driver> queryWrapper = Wrappers.<Driver>query().lambda();
@@ -50,7 +50,7 @@ public class DictionaryServiceImpl implements DictionaryService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DRIVER_ATTRIBUTE + Common.Cache.DIC, key = "'driver_attribute_dic'", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DRIVER_ATTRIBUTE + Common.Cache.DIC, key = "'driver_attribute_dic'", sync = true)
     public List<Dictionary> driverAttributeDictionary() {
         List<Dictionary> driverDictionaryList = driverDictionary();
         for (Dictionary driverDictionary : driverDictionaryList) {
@@ -70,7 +70,7 @@ public class DictionaryServiceImpl implements DictionaryService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT_ATTRIBUTE + Common.Cache.DIC, key = "'point_attribute_dic'", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT_ATTRIBUTE + Common.Cache.DIC, key = "'point_attribute_dic'", sync = true)
     public List<Dictionary> pointAttributeDictionary() {
         List<Dictionary> driverDictionaryList = driverDictionary();
         for (Dictionary driverDictionary : driverDictionaryList) {
@@ -90,7 +90,7 @@ public class DictionaryServiceImpl implements DictionaryService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.PROFILE + Common.Cache.DIC, key = "'profile_dic'", unless = "#result==null")
+    @Cacheable(value = Common.Cache.PROFILE + Common.Cache.DIC, key = "'profile_dic'", sync = true)
     public List<Dictionary> profileDictionary() {
         List<Dictionary> driverDictionaryList = driverDictionary();
         for (Dictionary driverDictionary : driverDictionaryList) {
@@ -110,7 +110,7 @@ public class DictionaryServiceImpl implements DictionaryService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.GROUP + Common.Cache.DIC, key = "'group_dic'", unless = "#result==null")
+    @Cacheable(value = Common.Cache.GROUP + Common.Cache.DIC, key = "'group_dic'", sync = true)
     public List<Dictionary> groupDictionary() {
         List<Dictionary> dictionaryList = new ArrayList<>();
         LambdaQueryWrapper<Group> queryWrapper = Wrappers.<Group>query().lambda();
@@ -123,7 +123,7 @@ public class DictionaryServiceImpl implements DictionaryService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.DIC, key = "'device_dic.'+#parent", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DEVICE + Common.Cache.DIC, key = "'device_dic.'+#parent", sync = true)
     public List<Dictionary> deviceDictionary(String parent) {
         List<Dictionary> dictionaryList = new ArrayList<>();
         switch (parent) {
@@ -190,7 +190,7 @@ public class DictionaryServiceImpl implements DictionaryService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT + Common.Cache.DIC, key = "'point_dic.'+#parent", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT + Common.Cache.DIC, key = "'point_dic.'+#parent", sync = true)
     public List<Dictionary> pointDictionary(String parent) {
         List<Dictionary> dictionaryList = new ArrayList<>();
         switch (parent) {
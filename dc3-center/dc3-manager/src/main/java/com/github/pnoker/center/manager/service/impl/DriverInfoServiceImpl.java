@@ -23,11 +23,14 @@ import com.github.pnoker.center.manager.mapper.DriverInfoMapper;
 import com.github.pnoker.center.manager.service.DriverInfoService;
 import com.github.pnoker.center.manager.service.NotifyService;
 import com.github.pnoker.common.bean.Pages;
+import com.github.pnoker.common.cache.TaggedKey;
 import com.github.pnoker.common.constant.Common;
 import com.github.pnoker.common.dto.DriverInfoDto;
 import com.github.pnoker.common.exception.ServiceException;
 import com.github.pnoker.common.model.DriverInfo;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
@@ -49,6 +52,8 @@ public class DriverInfoServiceImpl implements DriverInfoService {
     private DriverInfoMapper driverInfoMapper;
     @Resource
     private NotifyService notifyService;
+    @Resource
+    private CacheManager cacheManager;
 
     @Override
     @Caching(
@@ -58,7 +63,7 @@ public class DriverInfoServiceImpl implements DriverInfoService {
             },
             evict = {
                     @CacheEvict(value = Common.Cache.DRIVER_INFO + Common.Cache.DIC, allEntries = true, condition = "#result!=null"),
-                    @CacheEvict(value = Common.Cache.DRIVER_INFO + Common.Cache.LIST, allEntries = true, condition = "#result!=null")
+                    @CacheEvict(value = Common.Cache.DRIVER_INFO + Common.Cache.LIST, key = "T(com.github.pnoker.common.cache.TaggedKey).tag(#driverInfo.profileId)", condition = "#result!=null")
             }
     )
     public DriverInfo add(DriverInfo driverInfo) {
@@ -102,7 +107,7 @@ public class DriverInfoServiceImpl implements DriverInfoService {
             },
             evict = {
                     @CacheEvict(value = Common.Cache.DRIVER_INFO + Common.Cache.DIC, allEntries = true, condition = "#result!=null"),
-                    @CacheEvict(value = Common.Cache.DRIVER_INFO + Common.Cache.LIST, allEntries = true, condition = "#result!=null")
+                    @CacheEvict(value = Common.Cache.DRIVER_INFO + Common.Cache.LIST, key = "T(com.github.pnoker.common.cache.TaggedKey).tag(#driverInfo.profileId)", condition = "#result!=null")
             }
     )
     public DriverInfo update(DriverInfo driverInfo) {
@@ -112,7 +117,9 @@ public class DriverInfoServiceImpl implements DriverInfoService {
         if (!update) {
             throw new ServiceException("driver info already exists");
         }
+        DriverInfo old = driverInfoMapper.selectById(driverInfo.getId());
         if (driverInfoMapper.updateById(driverInfo) > 0) {
+            evictMovedList(old, driverInfo);
             notifyService.notifyDriverUpdateDriverInfo(driverInfo.getId(), driverInfo.getProfileId());
             return selectById(driverInfo.getId());
         }
@@ -120,13 +127,13 @@ public class DriverInfoServiceImpl implements DriverInfoService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DRIVER_INFO + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DRIVER_INFO + Common.Cache.ID, key = "#id", sync = true)
     public DriverInfo selectById(Long id) {
         return driverInfoMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DRIVER_INFO + Common.Cache.DRIVER_INFO_ID, key = "#driverAttributeId+'.'+#profileId", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DRIVER_INFO + Common.Cache.DRIVER_INFO_ID, key = "#driverAttributeId+'.'+#profileId", sync = true)
     public DriverInfo selectByDriverAttributeId(Long driverAttributeId, Long profileId) {
         LambdaQueryWrapper<DriverInfo> queryWrapper = Wrappers.<DriverInfo>query().lambda();
         queryWrapper.eq(DriverInfo::getDriverAttributeId, driverAttributeId);
@@ -135,7 +142,7 @@ public class DriverInfoServiceImpl implements DriverInfoService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DRIVER_INFO + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DRIVER_INFO + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<DriverInfo> list(DriverInfoDto driverInfoDto) {
         if (!Optional.ofNullable(driverInfoDto.getPage()).isPresent()) {
             driverInfoDto.setPage(new Pages());
@@ -157,4 +164,19 @@ public class DriverInfoServiceImpl implements DriverInfoService {
         return queryWrapper;
     }
 
+    /**
+     * 驱动配置移动到其他模板时，原父级的列表缓存同样失效
+     *
+     * @param old
+     * @param driverInfo
+     */
+    private void evictMovedList(DriverInfo old, DriverInfo driverInfo) {
+        if (null != old && !old.getProfileId().equals(driverInfo.getProfileId())) {
+            Cache cache = cacheManager.getCache(Common.Cache.DRIVER_INFO + Common.Cache.LIST);
+            if (null != cache) {
+                cache.evict(TaggedKey.tag(old.getProfileId()));
+            }
+        }
+    }
+
 }
@@ -119,13 +119,13 @@ public class DriverServiceImpl implements DriverService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.ID, key = "#id", sync = true)
     public Driver selectById(Long id) {
         return driverMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.SERVICE_NAME, key = "#serviceName", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.SERVICE_NAME, key = "#serviceName", sync = true)
     public Driver selectByServiceName(String serviceName) {
         LambdaQueryWrapper<Driver> queryWrapper = Wrappers.<Driver>query().lambda();
         queryWrapper.eq(Driver::getServiceName, serviceName);
@@ -133,7 +133,7 @@ public class DriverServiceImpl implements DriverService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.HOST_PORT, key = "#host+'.'+#port", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.HOST_PORT, key = "#host+'.'+#port", sync = true)
     public Driver selectByHostPort(String host, Integer port) {
         LambdaQueryWrapper<Driver> queryWrapper = Wrappers.<Driver>query().lambda();
         queryWrapper.eq(Driver::getHost, host);
@@ -142,7 +142,7 @@ public class DriverServiceImpl implements DriverService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.DRIVER + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<Driver> list(DriverDto driverDto) {
         if (!Optional.ofNullable(driverDto.getPage()).isPresent()) {
             driverDto.setPage(new Pages());
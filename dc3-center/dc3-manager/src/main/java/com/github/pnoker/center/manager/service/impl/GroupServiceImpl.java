@@ -116,13 +116,13 @@ public class GroupServiceImpl implements GroupService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.GROUP + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.GROUP + Common.Cache.ID, key = "#id", sync = true)
     public Group selectById(Long id) {
         return groupMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.GROUP + Common.Cache.NAME, key = "#name", unless = "#result==null")
+    @Cacheable(value = Common.Cache.GROUP + Common.Cache.NAME, key = "#name", sync = true)
     public Group selectByName(String name) {
         LambdaQueryWrapper<Group> queryWrapper = Wrappers.<Group>query().lambda();
         queryWrapper.like(Group::getName, name);
@@ -130,7 +130,7 @@ public class GroupServiceImpl implements GroupService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.GROUP + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.GROUP + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<Group> list(GroupDto groupDto) {
         if (!Optional.ofNullable(groupDto.getPage()).isPresent()) {
             groupDto.setPage(new Pages());
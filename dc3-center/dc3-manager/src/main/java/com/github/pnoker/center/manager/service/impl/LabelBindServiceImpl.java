@@ -91,13 +91,13 @@ public class LabelBindServiceImpl implements LabelBindService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.LABEL_BIND + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.LABEL_BIND + Common.Cache.ID, key = "#id", sync = true)
     public LabelBind selectById(Long id) {
         return labelBindMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.LABEL_BIND + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.LABEL_BIND + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<LabelBind> list(LabelBindDto labelBindDto) {
         if (!Optional.ofNullable(labelBindDto.getPage()).isPresent()) {
             labelBindDto.setPage(new Pages());
@@ -116,13 +116,13 @@ public class LabelServiceImpl implements LabelService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.LABEL + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.LABEL + Common.Cache.ID, key = "#id", sync = true)
     public Label selectById(Long id) {
         return labelMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.LABEL + Common.Cache.NAME, key = "#name", unless = "#result==null")
+    @Cacheable(value = Common.Cache.LABEL + Common.Cache.NAME, key = "#name", sync = true)
     public Label selectByName(String name) {
         LambdaQueryWrapper<Label> queryWrapper = Wrappers.<Label>query().lambda();
         queryWrapper.like(Label::getName, name);
@@ -130,7 +130,7 @@ public class LabelServiceImpl implements LabelService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.LABEL + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.LABEL + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<Label> list(LabelDto labelDto) {
         if (!Optional.ofNullable(labelDto.getPage()).isPresent()) {
             labelDto.setPage(new Pages());
@@ -105,13 +105,13 @@ public class PointAttributeServiceImpl implements PointAttributeService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT_ATTRIBUTE + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT_ATTRIBUTE + Common.Cache.ID, key = "#id", sync = true)
     public PointAttribute selectById(Long id) {
         return pointAttributeMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT_ATTRIBUTE + Common.Cache.NAME, key = "#name", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT_ATTRIBUTE + Common.Cache.NAME, key = "#name", sync = true)
     public PointAttribute selectByNameAndDriverId(String name, Long driverId) {
         LambdaQueryWrapper<PointAttribute> queryWrapper = Wrappers.<PointAttribute>query().lambda();
         queryWrapper.eq(PointAttribute::getName, name);
@@ -120,7 +120,7 @@ public class PointAttributeServiceImpl implements PointAttributeService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT_ATTRIBUTE + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT_ATTRIBUTE + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<PointAttribute> list(PointAttributeDto pointAttributeDto) {
         if (!Optional.ofNullable(pointAttributeDto.getPage()).isPresent()) {
             pointAttributeDto.setPage(new Pages());
@@ -23,11 +23,14 @@ import com.github.pnoker.center.manager.service.NotifyService;
 import com.github.pnoker.center.manager.service.PointInfoService;
 import com.github.pnoker.center.manager.mapper.PointInfoMapper;
 import com.github.pnoker.common.bean.Pages;
+import com.github.pnoker.common.cache.TaggedKey;
 import com.github.pnoker.common.constant.Common;
 import com.github.pnoker.common.dto.PointInfoDto;
 import com.github.pnoker.common.exception.ServiceException;
 import com.github.pnoker.common.model.PointInfo;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
@@ -49,6 +52,8 @@ public class PointInfoServiceImpl implements PointInfoService {
     private PointInfoMapper pointInfoMapper;
     @Resource
     private NotifyService notifyService;
+    @Resource
+    private CacheManager cacheManager;
 
     @Override
     @Caching(
@@ -58,7 +63,7 @@ public class PointInfoServiceImpl implements PointInfoService {
             },
             evict = {
                     @CacheEvict(value = Common.Cache.POINT_INFO + Common.Cache.DIC, allEntries = true, condition = "#result!=null"),
-                    @CacheEvict(value = Common.Cache.POINT_INFO + Common.Cache.LIST, allEntries = true, condition = "#result!=null")
+                    @CacheEvict(value = Common.Cache.POINT_INFO + Common.Cache.LIST, key = "T(com.github.pnoker.common.cache.TaggedKey).tag(#pointInfo.deviceId)", condition = "#result!=null")
             }
     )
     public PointInfo add(PointInfo pointInfo) {
@@ -102,7 +107,7 @@ public class PointInfoServiceImpl implements PointInfoService {
             },
             evict = {
                     @CacheEvict(value = Common.Cache.POINT_INFO + Common.Cache.DIC, allEntries = true, condition = "#result!=null"),
-                    @CacheEvict(value = Common.Cache.POINT_INFO + Common.Cache.LIST, allEntries = true, condition = "#result!=null")
+                    @CacheEvict(value = Common.Cache.POINT_INFO + Common.Cache.LIST, key = "T(com.github.pnoker.common.cache.TaggedKey).tag(#pointInfo.deviceId)", condition = "#result!=null")
             }
     )
     public PointInfo update(PointInfo pointInfo) {
@@ -112,7 +117,9 @@ public class PointInfoServiceImpl implements PointInfoService {
         if (!update) {
             throw new ServiceException("point info already exists");
         }
+        PointInfo old = pointInfoMapper.selectById(pointInfo.getId());
         if (pointInfoMapper.updateById(pointInfo) > 0) {
+            evictMovedList(old, pointInfo);
             notifyService.notifyDriverUpdatePointInfo(pointInfo.getId(), pointInfo.getDeviceId());
             return selectById(pointInfo.getId());
         }
@@ -120,13 +127,13 @@ public class PointInfoServiceImpl implements PointInfoService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT_INFO + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT_INFO + Common.Cache.ID, key = "#id", sync = true)
     public PointInfo selectById(Long id) {
         return pointInfoMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT_INFO + Common.Cache.POINT_INFO_ID, key = "#pointAttributeId+'.'+#deviceId+'.'+#pointId", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT_INFO + Common.Cache.POINT_INFO_ID, key = "#pointAttributeId+'.'+#deviceId+'.'+#pointId", sync = true)
     public PointInfo selectByPointAttributeId(Long pointAttributeId, Long deviceId, Long pointId) {
         LambdaQueryWrapper<PointInfo> queryWrapper = Wrappers.<PointInfo>query().lambda();
         queryWrapper.eq(PointInfo::getPointAttributeId, pointAttributeId);
@@ -136,7 +143,7 @@ public class PointInfoServiceImpl implements PointInfoService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT_INFO + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT_INFO + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<PointInfo> list(PointInfoDto pointInfoDto) {
         if (!Optional.ofNullable(pointInfoDto.getPage()).isPresent()) {
             pointInfoDto.setPage(new Pages());
@@ -161,4 +168,19 @@ public class PointInfoServiceImpl implements PointInfoService {
         return queryWrapper;
     }
 
+    /**
+     * 位号配置移动到其他设备时，原父级的列表缓存同样失效
+     *
+     * @param old
+     * @param pointInfo
+     */
+    private void evictMovedList(PointInfo old, PointInfo pointInfo) {
+        if (null != old && !old.getDeviceId().equals(pointInfo.getDeviceId())) {
+            Cache cache = cacheManager.getCache(Common.Cache.POINT_INFO + Common.Cache.LIST);
+            if (null != cache) {
+                cache.evict(TaggedKey.tag(old.getDeviceId()));
+            }
+        }
+    }
+
 }
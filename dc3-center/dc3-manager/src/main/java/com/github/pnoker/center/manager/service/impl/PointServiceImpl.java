@@ -23,12 +23,15 @@ import com.github.pnoker.center.manager.service.NotifyService;
 import com.github.pnoker.center.manager.mapper.PointMapper;
 import com.github.pnoker.center.manager.service.PointService;
 import com.github.pnoker.common.bean.Pages;
+import com.github.pnoker.common.cache.TaggedKey;
 import com.github.pnoker.common.constant.Common;
 import com.github.pnoker.common.dto.PointDto;
 import com.github.pnoker.common.exception.ServiceException;
 import com.github.pnoker.common.model.Point;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
@@ -50,6 +53,8 @@ public class PointServiceImpl implements PointService {
     private PointMapper pointMapper;
     @Resource
     private NotifyService notifyService;
+    @Resource
+    private CacheManager cacheManager;
 
     @Override
     @Caching(
@@ -59,7 +64,7 @@ public class PointServiceImpl implements PointService {
             },
             evict = {
                     @CacheEvict(value = Common.Cache.POINT + Common.Cache.DIC, allEntries = true, condition = "#result!=null"),
-                    @CacheEvict(value = Common.Cache.POINT + Common.Cache.LIST, allEntries = true, condition = "#result!=null")
+                    @CacheEvict(value = Common.Cache.POINT + Common.Cache.LIST, key = "T(com.github.pnoker.common.cache.TaggedKey).tag(#point.profileId)", condition = "#result!=null")
             }
     )
     public Point add(Point point) {
@@ -103,7 +108,7 @@ public class PointServiceImpl implements PointService {
             },
             evict = {
                     @CacheEvict(value = Common.Cache.POINT + Common.Cache.DIC, allEntries = true, condition = "#result!=null"),
-                    @CacheEvict(value = Common.Cache.POINT + Common.Cache.LIST, allEntries = true, condition = "#result!=null")
+                    @CacheEvict(value = Common.Cache.POINT + Common.Cache.LIST, key = "T(com.github.pnoker.common.cache.TaggedKey).tag(#point.profileId)", condition = "#result!=null")
             }
     )
     public Point update(Point point) {
@@ -116,6 +121,7 @@ public class PointServiceImpl implements PointService {
             }
         }
         if (pointMapper.updateById(point) > 0) {
+            evictMovedList(selectById, point);
             Point select = selectById(point.getId());
             point.setName(select.getName());
             notifyService.notifyDriverUpdatePoint(point.getId(), point.getProfileId());
@@ -125,13 +131,13 @@ public class PointServiceImpl implements PointService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT + Common.Cache.ID, key = "#id", sync = true)
     public Point selectById(Long id) {
         return pointMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT + Common.Cache.NAME, key = "#profileId+'.'+#name", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT + Common.Cache.NAME, key = "#profileId+'.'+#name", sync = true)
     public Point selectByNameAndProfile(Long profileId, String name) {
         LambdaQueryWrapper<Point> queryWrapper = Wrappers.<Point>query().lambda();
         queryWrapper.eq(Point::getName, name);
@@ -140,7 +146,7 @@ public class PointServiceImpl implements PointService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.POINT + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.POINT + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<Point> list(PointDto pointDto) {
         if (!Optional.ofNullable(pointDto.getPage()).isPresent()) {
             pointDto.setPage(new Pages());
@@ -171,4 +177,19 @@ public class PointServiceImpl implements PointService {
         return queryWrapper;
     }
 
+    /**
+     * 位号移动到其他模板时，原父级的列表缓存同样失效
+     *
+     * @param old
+     * @param point
+     */
+    private void evictMovedList(Point old, Point point) {
+        if (null != old && !old.getProfileId().equals(point.getProfileId())) {
+            Cache cache = cacheManager.getCache(Common.Cache.POINT + Common.Cache.LIST);
+            if (null != cache) {
+                cache.evict(TaggedKey.tag(old.getProfileId()));
+            }
+        }
+    }
+
 }
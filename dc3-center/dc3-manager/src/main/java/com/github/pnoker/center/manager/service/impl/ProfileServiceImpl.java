@@ -142,13 +142,13 @@ public class ProfileServiceImpl implements ProfileService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.PROFILE + Common.Cache.ID, key = "#id", unless = "#result==null")
+    @Cacheable(value = Common.Cache.PROFILE + Common.Cache.ID, key = "#id", sync = true)
     public Profile selectById(Long id) {
         return profileMapper.selectById(id);
     }
 
     @Override
-    @Cacheable(value = Common.Cache.PROFILE + Common.Cache.NAME, key = "#name", unless = "#result==null")
+    @Cacheable(value = Common.Cache.PROFILE + Common.Cache.NAME, key = "#name", sync = true)
     public Profile selectByName(String name) {
         LambdaQueryWrapper<Profile> queryWrapper = Wrappers.<Profile>query().lambda();
         queryWrapper.like(Profile::getName, name);
@@ -156,7 +156,7 @@ public class ProfileServiceImpl implements ProfileService {
     }
 
     @Override
-    @Cacheable(value = Common.Cache.PROFILE + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", unless = "#result==null")
+    @Cacheable(value = Common.Cache.PROFILE + Common.Cache.LIST, keyGenerator = "commonKeyGenerator", sync = true)
     public Page<Profile> list(ProfileDto profileDto) {
         if (!Optional.ofNullable(profileDto.getPage()).isPresent()) {
             profileDto.setPage(new Pages());
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.common.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 标记列表缓存的父级 ID 字段，例如位号的 profileId
+ * <p>
+ * 列表缓存按该字段的值分组维护缓存代数，单条记录写入时只失效所属父级的列表页
+ *
+ * @author pnoker
+ */
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheTag {
+}
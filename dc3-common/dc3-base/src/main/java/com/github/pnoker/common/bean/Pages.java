@@ -18,6 +18,7 @@ package com.github.pnoker.common.bean;
 
 import com.baomidou.mybatisplus.core.metadata.OrderItem;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.github.pnoker.common.annotation.CacheKey;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -40,10 +41,15 @@ import java.util.List;
 public class Pages implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    @CacheKey
     private long current = 1;
+    @CacheKey
     private long size = 20;
+    @CacheKey
     private long startTime;
+    @CacheKey
     private long endTime;
+    @CacheKey
     private List<OrderItem> orders = new ArrayList<>();
 
     public <T> Page<T> convert() {
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.common.bean;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 令牌对，访问令牌过期后使用刷新令牌换取新的令牌对
+ *
+ * @author pnoker
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Token {
+    private String accessToken;
+    private String refreshToken;
+
+    /**
+     * 过期时间，毫秒时间戳
+     */
+    private long accessExpiration;
+    private long refreshExpiration;
+}
@@ -61,6 +61,30 @@ public interface Common {
         String POINT_VALUE_QUEUE = "point.value.queue";
     }
 
+    /**
+     * 请求头
+     * 网关校验 Token 后将其中的信息以 X-Dc3-* 请求头转发给下游服务，客户端传入的同名请求头在所有路由上都会被网关移除
+     */
+    interface Header {
+        String TOKEN = "Token";
+        String USER = "X-Dc3-User";
+        String TOKEN_ISSUED_AT = "X-Dc3-Token-Issued-At";
+        String TOKEN_EXPIRATION = "X-Dc3-Token-Expiration";
+    }
+
+    /**
+     * 令牌常量
+     * 访问令牌短期有效，过期后使用刷新令牌换取新的令牌对；吊销的令牌 ID 记录在 Redis 中并通过 TOPIC 通知网关
+     */
+    interface Token {
+        String TYPE = "typ";
+        String ACCESS = "access";
+        String REFRESH = "refresh";
+
+        String REVOKED = "dc3_token_revoked";
+        String TOPIC = "dc3_token_revoked_topic";
+    }
+
     /**
      * 数据类型
      */
@@ -118,6 +142,9 @@ public interface Common {
         String POINT_INFO_ID = "_point_info_id";
         String GROUP_NAME = "_group_name";
 
+        String TOPIC = "dc3_cache_topic";
+        String GENERATION = "dc3_cache_generation";
+
         String DRIVER = "driver";
         String DRIVER_ATTRIBUTE = "driver_attribute";
         String POINT_ATTRIBUTE = "point_attribute";
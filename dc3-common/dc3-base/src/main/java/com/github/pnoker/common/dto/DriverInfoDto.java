@@ -17,6 +17,7 @@
 package com.github.pnoker.common.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.pnoker.common.annotation.CacheKey;
 import com.github.pnoker.common.base.Converter;
 import com.github.pnoker.common.bean.Pages;
 import com.github.pnoker.common.model.DriverInfo;
@@ -38,6 +39,7 @@ import org.springframework.beans.BeanUtils;
 public class DriverInfoDto extends DriverInfo implements Converter<DriverInfo, DriverInfoDto> {
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
+    @CacheKey
     private Pages page;
 
     @Override
@@ -17,6 +17,7 @@
 package com.github.pnoker.common.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.pnoker.common.annotation.CacheKey;
 import com.github.pnoker.common.bean.Pages;
 import com.github.pnoker.common.model.Rtmp;
 import com.github.pnoker.common.base.Converter;
@@ -42,13 +43,16 @@ import java.io.Serializable;
 public class RtmpDto implements Serializable, Converter<Rtmp, RtmpDto> {
     private static final long serialVersionUID = 1L;
 
+    @CacheKey
     private String name;
     private Short videoType;
     private Boolean run;
+    @CacheKey
     private Boolean autoStart;
     private Long userId;
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
+    @CacheKey
     private Pages page;
 
     public RtmpDto(boolean autoStart) {
@@ -16,6 +16,7 @@
 
 package com.github.pnoker.common.dto;
 
+import com.github.pnoker.common.annotation.CacheKey;
 import com.github.pnoker.common.base.Converter;
 import com.github.pnoker.common.bean.Pages;
 import com.github.pnoker.common.model.User;
@@ -34,6 +35,7 @@ import org.springframework.beans.BeanUtils;
 @EqualsAndHashCode(callSuper = true)
 public class UserDto extends User implements Converter<User, UserDto> {
 
+    @CacheKey
     private Pages page;
 
     @Override
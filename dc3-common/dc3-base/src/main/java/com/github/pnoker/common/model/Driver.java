@@ -16,6 +16,7 @@
 
 package com.github.pnoker.common.model;
 
+import com.github.pnoker.common.annotation.CacheKey;
 import com.github.pnoker.common.valid.Insert;
 import com.github.pnoker.common.valid.Update;
 import lombok.*;
@@ -38,17 +39,21 @@ public class Driver extends Description {
 
     @NotBlank(message = "name can't be empty", groups = {Insert.class})
     @Pattern(regexp = "^[A-Za-z0-9\\u4e00-\\u9fa5][A-Za-z0-9\\u4e00-\\u9fa5-_]{1,31}$", message = "invalid name,contains invalid characters or length is not in the range of 2~32", groups = {Insert.class, Update.class})
+    @CacheKey
     private String name;
 
     @NotBlank(message = "service name can't be empty", groups = {Insert.class})
     @Pattern(regexp = "^[A-Za-z0-9\\u4e00-\\u9fa5][A-Za-z0-9\\u4e00-\\u9fa5-_]{1,31}$", message = "invalid service name,contains invalid characters or length is not in the range of 2~32", groups = {Insert.class, Update.class})
+    @CacheKey
     private String serviceName;
 
     @NotBlank(message = "host can't be empty", groups = {Insert.class})
     @Pattern(regexp = "^((2(5[0-5]|[0-4]\\d))|[0-1]?\\d{1,2})(\\.((2(5[0-5]|[0-4]\\d))|[0-1]?\\d{1,2})){3}$", message = "invalid host", groups = {Insert.class, Update.class})
+    @CacheKey
     private String host;
 
     @Min(value = 8600, message = "invalid port,port range is 8600-8799", groups = {Insert.class, Update.class})
     @Max(value = 8799, message = "invalid port,port range is 8600-8799", groups = {Insert.class, Update.class})
+    @CacheKey
     private Integer port;
 }
@@ -16,6 +16,7 @@
 
 package com.github.pnoker.common.model;
 
+import com.github.pnoker.common.annotation.CacheKey;
 import com.github.pnoker.common.valid.Insert;
 import com.github.pnoker.common.valid.Update;
 import lombok.*;
@@ -40,18 +41,22 @@ public class DriverAttribute extends Description {
 
     @NotBlank(message = "display name can't be empty", groups = {Insert.class})
     @Pattern(regexp = "^[A-Za-z0-9\\u4e00-\\u9fa5][A-Za-z0-9\\u4e00-\\u9fa5-_]{1,31}$", message = "invalid display name,contains invalid characters or length is not in the range of 2~32", groups = {Insert.class, Update.class})
+    @CacheKey
     private String displayName;
 
     @NotBlank(message = "name can't be empty", groups = {Insert.class})
     @Pattern(regexp = "^[A-Za-z0-9\\u4e00-\\u9fa5][A-Za-z0-9\\u4e00-\\u9fa5-_]{1,31}$", message = "invalid name,contains invalid characters or length is not in the range of 2~32", groups = {Insert.class, Update.class})
+    @CacheKey
     private String name;
 
     /**
      * string/int/double/float/long/boolean
      */
+    @CacheKey
     private String type;
     private String value;
 
     @NotNull(message = "driver id can't be empty", groups = {Insert.class, Update.class})
+    @CacheKey
     private Long driverId;
 }
@@ -16,6 +16,8 @@
 
 package com.github.pnoker.common.model;
 
+import com.github.pnoker.common.annotation.CacheKey;
+import com.github.pnoker.common.annotation.CacheTag;
 import com.github.pnoker.common.valid.Insert;
 import com.github.pnoker.common.valid.Update;
 import lombok.*;
@@ -37,11 +39,14 @@ import javax.validation.constraints.NotNull;
 public class DriverInfo extends Description {
 
     @NotNull(message = "driver attribute id can't be empty", groups = {Insert.class, Update.class})
+    @CacheKey
     private Long driverAttributeId;
 
     private String value;
 
     @NotNull(message = "profile id can't be empty", groups = {Insert.class, Update.class})
+    @CacheKey
+    @CacheTag
     private Long profileId;
 
 }
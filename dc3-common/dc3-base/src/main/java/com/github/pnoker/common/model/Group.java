@@ -16,6 +16,7 @@
 
 package com.github.pnoker.common.model;
 
+import com.github.pnoker.common.annotation.CacheKey;
 import com.github.pnoker.common.valid.Insert;
 import com.github.pnoker.common.valid.Update;
 import lombok.*;
@@ -39,5 +40,6 @@ public class Group extends Description {
 
     @NotBlank(message = "name can't be empty", groups = {Insert.class})
     @Pattern(regexp = "^[A-Za-z0-9\\u4e00-\\u9fa5][A-Za-z0-9\\u4e00-\\u9fa5-_]{1,31}$", message = "invalid name,contains invalid characters or length is not in the range of 2~32", groups = {Insert.class, Update.class})
+    @CacheKey
     private String name;
 }
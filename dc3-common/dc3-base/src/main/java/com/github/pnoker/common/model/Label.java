@@ -16,6 +16,7 @@
 
 package com.github.pnoker.common.model;
 
+import com.github.pnoker.common.annotation.CacheKey;
 import lombok.*;
 import lombok.experimental.Accessors;
 
@@ -32,6 +33,8 @@ import lombok.experimental.Accessors;
 @EqualsAndHashCode(callSuper = true)
 public class Label extends Description {
 
+    @CacheKey
     private String name;
+    @CacheKey
     private String color;
 }
@@ -16,6 +16,7 @@
 
 package com.github.pnoker.common.model;
 
+import com.github.pnoker.common.annotation.CacheKey;
 import com.github.pnoker.common.valid.Insert;
 import com.github.pnoker.common.valid.Update;
 import lombok.*;
@@ -37,10 +38,13 @@ import javax.validation.constraints.NotNull;
 public class LabelBind extends Description {
 
     @NotNull(message = "label id can't be empty", groups = {Insert.class, Update.class})
+    @CacheKey
     private Long labelId;
 
     @NotNull(message = "entity id can't be empty", groups = {Insert.class, Update.class})
+    @CacheKey
     private Long entityId;
 
+    @CacheKey
     private String type;
 }
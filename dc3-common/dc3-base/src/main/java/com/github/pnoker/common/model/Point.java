@@ -16,6 +16,8 @@
 
 package com.github.pnoker.common.model;
 
+import com.github.pnoker.common.annotation.CacheKey;
+import com.github.pnoker.common.annotation.CacheTag;
 import com.github.pnoker.common.valid.Insert;
 import com.github.pnoker.common.valid.Update;
 import lombok.*;
@@ -40,18 +42,24 @@ public class Point extends Description {
 
     @NotBlank(message = "name can't be empty", groups = {Insert.class})
     @Pattern(regexp = "^[A-Za-z0-9\\u4e00-\\u9fa5][A-Za-z0-9\\u4e00-\\u9fa5-_]{1,31}$", message = "invalid name,contains invalid characters or length is not in the range of 2~32", groups = {Insert.class, Update.class})
+    @CacheKey
     private String name;
 
+    @CacheKey
     private String type;
+    @CacheKey
     private Short rw;
     private Float base;
     private Float minimum;
     private Float maximum;
     private Float multiple;
+    @CacheKey
     private Boolean accrue;
     private String format;
     private String unit;
 
     @NotNull(message = "profile id can't be empty", groups = {Insert.class, Update.class})
+    @CacheKey
+    @CacheTag
     private Long profileId;
 }
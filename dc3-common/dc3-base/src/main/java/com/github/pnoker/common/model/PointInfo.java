@@ -16,6 +16,8 @@
 
 package com.github.pnoker.common.model;
 
+import com.github.pnoker.common.annotation.CacheKey;
+import com.github.pnoker.common.annotation.CacheTag;
 import com.github.pnoker.common.valid.Insert;
 import com.github.pnoker.common.valid.Update;
 import lombok.*;
@@ -37,13 +39,17 @@ import javax.validation.constraints.NotNull;
 public class PointInfo extends Description {
 
     @NotNull(message = "point attribute id can't be empty", groups = {Insert.class, Update.class})
+    @CacheKey
     private Long pointAttributeId;
 
     private String value;
 
     @NotNull(message = "device id can't be empty", groups = {Insert.class, Update.class})
+    @CacheKey
+    @CacheTag
     private Long deviceId;
 
     @NotNull(message = "point id can't be empty", groups = {Insert.class, Update.class})
+    @CacheKey
     private Long pointId;
 }
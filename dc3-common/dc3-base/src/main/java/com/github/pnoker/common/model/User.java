@@ -17,6 +17,7 @@
 package com.github.pnoker.common.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.pnoker.common.annotation.CacheKey;
 import com.github.pnoker.common.valid.Auth;
 import com.github.pnoker.common.valid.Insert;
 import com.github.pnoker.common.valid.Update;
@@ -41,6 +42,7 @@ public class User extends Description {
 
     @NotBlank(message = "name can't be empty", groups = {Insert.class, Auth.class})
     @Pattern(regexp = "^[a-zA-Z]\\w{2,15}$", message = "invalid name , /^[a-zA-Z]\\w{2,15}$/", groups = {Insert.class})
+    @CacheKey
     private String name;
 
     @JsonInclude(JsonInclude.Include.NON_DEFAULT)
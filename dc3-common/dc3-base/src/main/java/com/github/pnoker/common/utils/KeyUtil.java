@@ -35,6 +35,7 @@ import java.security.spec.KeySpec;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Date;
+import java.util.UUID;
 
 /**
  * Dc3 平台密钥工具类
@@ -170,6 +171,26 @@ public class KeyUtil {
         return builder.compact();
     }
 
+    /**
+     * 生成指定类型的Token令牌，令牌 ID 随机生成，用于吊销
+     *
+     * @param name 用户名
+     * @param type 令牌类型，Common.Token.ACCESS 或 Common.Token.REFRESH
+     * @param ttl  有效时长，毫秒
+     * @return
+     */
+    public static String generateToken(String name, String type, long ttl) {
+        long now = System.currentTimeMillis();
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject(name)
+                .claim(Common.Token.TYPE, type)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + ttl))
+                .signWith(SignatureAlgorithm.HS256, Common.KEY);
+        return builder.compact();
+    }
+
     /**
      * 解析Token令牌
      *
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.common.cache;
+
+import com.github.pnoker.common.annotation.CacheKey;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 结构化缓存 Key 生成器
+ * <p>
+ * 只对参数中使用 {@link CacheKey} 标记的字段按字段名排序后计算 128 位哈希，
+ * 生成形如 PointServiceImpl.list#3f6c...（32 位十六进制）的定长 Key，
+ * 避免对整个对象调用 toString()，并且不受字段声明顺序影响。
+ * <p>
+ * 没有任何 {@link CacheKey} 字段的类型退化为 toString()。
+ * 参数中含有 {@link com.github.pnoker.common.annotation.CacheTag} 字段时返回 {@link TaggedKey}。
+ *
+ * @author pnoker
+ */
+public class CacheKeyGenerator implements KeyGenerator {
+    private static final long NULL = 0x9E3779B97F4A7C15L;
+    private static final Field[] NONE = new Field[0];
+
+    private final Map<Class<?>, Field[]> fieldMap = new ConcurrentHashMap<>(16);
+    private final Map<Method, String> prefixMap = new ConcurrentHashMap<>(16);
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        Hasher hasher = new Hasher();
+        for (Object param : params) {
+            hash(hasher, param);
+        }
+        String prefix = prefixMap.computeIfAbsent(method, m -> target.getClass().getSimpleName() + "." + m.getName() + "#");
+        return TaggedKey.of(hasher.toKey(prefix), params);
+    }
+
+    private void hash(Hasher hasher, Object value) {
+        if (null == value) {
+            hasher.update(NULL);
+        } else if (value instanceof CharSequence) {
+            hasher.update((CharSequence) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            hasher.update(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            hasher.update(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            hasher.update((Boolean) value ? 1 : 2);
+        } else if (value instanceof Character) {
+            hasher.update((Character) value);
+        } else if (value instanceof Enum) {
+            hasher.update(((Enum<?>) value).name());
+        } else if (value instanceof Date) {
+            hasher.update(((Date) value).getTime());
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            hasher.update(collection.size());
+            for (Object element : collection) {
+                hash(hasher, element);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            hasher.update(length);
+            for (int i = 0; i < length; i++) {
+                hash(hasher, Array.get(value, i));
+            }
+        } else {
+            Field[] fields = fieldMap.computeIfAbsent(value.getClass(), this::cacheKeyFields);
+            if (fields.length == 0) {
+                hasher.update(value.toString());
+                return;
+            }
+            for (Field field : fields) {
+                try {
+                    hash(hasher, field.get(value));
+                } catch (IllegalAccessException e) {
+                    hasher.update(NULL);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取类及其父类中所有 {@link CacheKey} 字段，按字段名排序
+     *
+     * @param clazz
+     * @return
+     */
+    private Field[] cacheKeyFields(Class<?> clazz) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current = clazz; null != current && Object.class != current; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && field.isAnnotationPresent(CacheKey.class)) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        if (fields.isEmpty()) {
+            return NONE;
+        }
+        fields.sort(Comparator.comparing(Field::getName));
+        return fields.toArray(NONE);
+    }
+
+    /**
+     * 双通道 64 位混合哈希，合计 128 位
+     */
+    private static final class Hasher {
+        private long h1 = 0x6A09E667F3BCC908L;
+        private long h2 = 0xBB67AE8584CAA73BL;
+
+        void update(long value) {
+            h1 = Long.rotateLeft(h1 ^ mix(value), 27) * 0x9E3779B97F4A7C15L + 0x52DCE729L;
+            h2 = Long.rotateLeft(h2 ^ mix(value + 0x632BE59BD9B4E019L), 31) * 0xC2B2AE3D27D4EB4FL + 0x38495AB5L;
+        }
+
+        void update(CharSequence value) {
+            int length = value.length();
+            update(length);
+            long word = 0;
+            for (int i = 0; i < length; i++) {
+                word = (word << 16) | value.charAt(i);
+                if ((i & 3) == 3) {
+                    update(word);
+                    word = 0;
+                }
+            }
+            if ((length & 3) != 0) {
+                update(word);
+            }
+        }
+
+        String toKey(String prefix) {
+            StringBuilder sb = new StringBuilder(prefix.length() + 32).append(prefix);
+            appendHex(sb, mix(h1 ^ h2 >>> 1));
+            appendHex(sb, mix(h2 ^ h1 >>> 1));
+            return sb.toString();
+        }
+
+        private static void appendHex(StringBuilder sb, long value) {
+            for (int shift = 60; shift >= 0; shift -= 4) {
+                sb.append(Character.forDigit((int) (value >>> shift) & 0xF, 16));
+            }
+        }
+
+        /**
+         * MurmurHash3 fmix64
+         */
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xFF51AFD7ED558CCDL;
+            value ^= value >>> 33;
+            value *= 0xC4CEB9FE1A85EC53L;
+            value ^= value >>> 33;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.common.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+/**
+ * 多级缓存失效通知消息，通过 Redis Pub/Sub 广播给其他实例
+ *
+ * @author pnoker
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class CacheMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 发送消息的实例ID，用于忽略自身发出的消息
+     */
+    private String instanceId;
+
+    /**
+     * 缓存名称
+     */
+    private String cacheName;
+
+    /**
+     * 带代数的缓存 Key
+     */
+    private String key;
+
+    /**
+     * 新的缓存代数，不为空时表示整个缓存已失效
+     */
+    private Long generation;
+
+    /**
+     * 父级标签，不为空时 generation 为该标签的代数
+     */
+    private String tag;
+}
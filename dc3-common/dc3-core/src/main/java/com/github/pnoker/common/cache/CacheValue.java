@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.common.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+/**
+ * 多级缓存值，记录过期时间和加载耗时，用于概率提前刷新
+ *
+ * @author pnoker
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class CacheValue implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 缓存值
+     */
+    private Object value;
+
+    /**
+     * 过期时间戳（毫秒），0 表示不过期
+     */
+    private long expireTime;
+
+    /**
+     * 加载耗时（毫秒）
+     */
+    private long delta;
+}
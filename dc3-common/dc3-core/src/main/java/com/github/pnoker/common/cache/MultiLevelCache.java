@@ -0,0 +1,403 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 多级缓存，本地 Caffeine 作为一级缓存，Redis 作为二级缓存
+ * <p>
+ * 读取时优先命中本地缓存，未命中再查询 Redis 并回填本地缓存；
+ * 写入和删除时同时操作两级缓存，并通过 Redis Pub/Sub 通知其他实例清除本地缓存。
+ * <p>
+ * 所有 Key 都带有缓存代数（generation），清空缓存（allEntries = true）时只需在 Redis 中递增代数，
+ * 旧代数下的 Key 不再被访问，由 Redis TTL 自然过期，避免 KEYS/SCAN 全量删除。
+ * 列表查询的 {@link TaggedKey} 还带有父级标签的代数，单条记录写入时只递增所属父级的标签代数，
+ * 其他父级的列表页不受影响；跨父级移动时新旧父级一并失效，删除仍然清空整个缓存。
+ * <p>
+ * 使用 @Cacheable(sync = true) 时，同一实例内同一个 Key 只有一个线程回源加载，可选通过 Redis 锁扩展到多实例；
+ * 临近过期时按概率（XFetch）提前由单个请求刷新，避免 Key 同时过期导致数据库瞬时压力。
+ *
+ * @author pnoker
+ */
+@Slf4j
+public class MultiLevelCache extends AbstractValueAdaptingCache {
+    private static final long LOCK_WAIT_INTERVAL = 50;
+    private static final long TAG_MAXIMUM_SIZE = 10000;
+
+    private final String name;
+    private final RedisCache redisCache;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeineCache;
+    private final MultiLevelCacheManager cacheManager;
+    private final long timeToLive;
+    private final long generationTimeToLive;
+    private final ConcurrentMap<String, CompletableFuture<Object>> loadingMap = new ConcurrentHashMap<>(16);
+    private final com.github.benmanes.caffeine.cache.Cache<String, Long> tagGenerationCache;
+
+    private volatile long generation;
+    private volatile long generationExpireTime;
+
+    public MultiLevelCache(String name, RedisCache redisCache, com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeineCache, MultiLevelCacheManager cacheManager, Duration generationTimeToLive) {
+        super(false);
+        this.name = name;
+        this.redisCache = redisCache;
+        this.caffeineCache = caffeineCache;
+        this.cacheManager = cacheManager;
+        Duration ttl = redisCache.getCacheConfiguration().getTtl();
+        this.timeToLive = null != ttl && !ttl.isNegative() ? ttl.toMillis() : 0;
+        this.generationTimeToLive = generationTimeToLive.toMillis();
+        this.tagGenerationCache = Caffeine.newBuilder().maximumSize(TAG_MAXIMUM_SIZE).expireAfterWrite(generationTimeToLive).build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        CacheValue cacheValue = lookupCacheValue(cacheKey(key));
+        return null != cacheValue ? cacheValue.getValue() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = cacheKey(key);
+        CacheValue cacheValue = lookupCacheValue(cacheKey);
+        if (null != cacheValue) {
+            if (shouldRefresh(cacheValue) && !loadingMap.containsKey(cacheKey)) {
+                try {
+                    Object value = load(key, cacheKey, valueLoader, false);
+                    if (null != value) {
+                        return (T) value;
+                    }
+                } catch (ValueRetrievalException e) {
+                    log.warn("Refresh cache {}::{} failed, return the cached value: {}", name, key, e.getMessage());
+                }
+            }
+            return (T) cacheValue.getValue();
+        }
+        return (T) load(key, cacheKey, valueLoader, true);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = cacheKey(key);
+        CacheValue cacheValue = toCacheValue(value, 0);
+        redisCache.put(cacheKey, cacheValue);
+        if (null != cacheValue) {
+            caffeineCache.put(cacheKey, cacheValue);
+        }
+        cacheManager.publish(name, cacheKey, null);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String cacheKey = cacheKey(key);
+        CacheValue cacheValue = toCacheValue(value, 0);
+        ValueWrapper wrapper = redisCache.putIfAbsent(cacheKey, cacheValue);
+        if (null == wrapper) {
+            if (null != cacheValue) {
+                caffeineCache.put(cacheKey, cacheValue);
+            }
+            cacheManager.publish(name, cacheKey, null);
+            return null;
+        }
+        CacheValue current = fromRedisValue(wrapper.get());
+        if (null != current) {
+            caffeineCache.put(cacheKey, current);
+        }
+        return toValueWrapper(null != current ? current.getValue() : null);
+    }
+
+    /**
+     * 删除单个 Key，{@link TaggedKey#tag(Object)} 表示递增该父级标签的代数
+     */
+    @Override
+    public void evict(Object key) {
+        if (key instanceof TaggedKey && ((TaggedKey) key).isEviction()) {
+            evictTag((TaggedKey) key);
+            return;
+        }
+        String cacheKey = cacheKey(key);
+        redisCache.evict(cacheKey);
+        caffeineCache.invalidate(cacheKey);
+        cacheManager.publish(name, cacheKey, null);
+    }
+
+    /**
+     * 递增缓存代数，O(1) 使全部 Key 失效
+     * <p>
+     * 如果 Redis 缓存未设置 TTL，旧代数的 Key 无法自然过期，此时仍然执行 Redis 全量删除
+     */
+    @Override
+    public void clear() {
+        if (timeToLive <= 0) {
+            redisCache.clear();
+        }
+        long next = cacheManager.incrementGeneration(name);
+        updateGeneration(next);
+        cacheManager.publish(name, null, next);
+    }
+
+    /**
+     * 递增父级标签及公共分组的代数，只使该父级和未按父级过滤的列表页失效
+     * <p>
+     * 标签为空或 Redis 缓存未设置 TTL 时退化为 {@link #clear()}
+     *
+     * @param taggedKey
+     */
+    private void evictTag(TaggedKey taggedKey) {
+        if (!taggedKey.hasTag() || timeToLive <= 0) {
+            clear();
+            return;
+        }
+        for (String tag : new String[]{taggedKey.getTag(), TaggedKey.ANY}) {
+            long next = cacheManager.incrementGeneration(name, tag);
+            updateTagGeneration(tag, next);
+            cacheManager.publishTag(name, tag, next);
+        }
+    }
+
+    /**
+     * 仅清除本地缓存，用于响应其他实例的失效通知
+     *
+     * @param key        带代数的缓存 Key
+     * @param generation 新的缓存代数，为空时表示只清除单个 Key
+     * @param tag        父级标签，不为空时 generation 为该标签的代数
+     */
+    public void evictLocal(String key, Long generation, String tag) {
+        if (null != tag) {
+            if (null != generation) {
+                updateTagGeneration(tag, generation);
+            }
+        } else if (null != generation) {
+            updateGeneration(generation);
+        } else if (null != key) {
+            caffeineCache.invalidate(key);
+        }
+    }
+
+    /**
+     * 依次查询本地缓存和 Redis 缓存
+     *
+     * @param cacheKey
+     * @return
+     */
+    private CacheValue lookupCacheValue(String cacheKey) {
+        Object local = caffeineCache.getIfPresent(cacheKey);
+        if (null != local) {
+            return (CacheValue) local;
+        }
+        ValueWrapper wrapper = redisCache.get(cacheKey);
+        CacheValue cacheValue = null != wrapper ? fromRedisValue(wrapper.get()) : null;
+        if (null != cacheValue) {
+            caffeineCache.put(cacheKey, cacheValue);
+        }
+        return cacheValue;
+    }
+
+    /**
+     * 单飞加载：同一个 Key 只有一个线程执行 valueLoader，其他线程等待其结果
+     *
+     * @param key         原始 Key
+     * @param cacheKey    带代数的 Key
+     * @param valueLoader
+     * @param wait        已有线程在加载时是否等待，提前刷新时不等待直接返回 null
+     * @return
+     */
+    private Object load(Object key, String cacheKey, Callable<?> valueLoader, boolean wait) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> loading = loadingMap.putIfAbsent(cacheKey, future);
+        if (null != loading) {
+            if (!wait) {
+                return null;
+            }
+            try {
+                return loading.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        String lockKey = null;
+        try {
+            if (wait) {
+                CacheValue cacheValue = lookupCacheValue(cacheKey);
+                if (null == cacheValue && cacheManager.isLockEnable()) {
+                    lockKey = name + "::lock::" + cacheKey;
+                    if (!cacheManager.tryLock(lockKey)) {
+                        lockKey = null;
+                        cacheValue = waitForValue(cacheKey);
+                    }
+                }
+                if (null != cacheValue) {
+                    future.complete(cacheValue.getValue());
+                    return cacheValue.getValue();
+                }
+            }
+
+            long start = System.currentTimeMillis();
+            Object value = valueLoader.call();
+            CacheValue cacheValue = toCacheValue(value, System.currentTimeMillis() - start);
+            if (null != cacheValue) {
+                redisCache.put(cacheKey, cacheValue);
+                caffeineCache.put(cacheKey, cacheValue);
+                cacheManager.publish(name, cacheKey, null);
+            }
+            future.complete(value);
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loadingMap.remove(cacheKey, future);
+            if (null != lockKey) {
+                cacheManager.unlock(lockKey);
+            }
+        }
+    }
+
+    /**
+     * 其他实例持有加载锁时，轮询等待其写入 Redis，超时后自行加载
+     *
+     * @param cacheKey
+     * @return
+     * @throws InterruptedException
+     */
+    private CacheValue waitForValue(String cacheKey) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + cacheManager.getLockTimeout().toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(LOCK_WAIT_INTERVAL);
+            CacheValue cacheValue = lookupCacheValue(cacheKey);
+            if (null != cacheValue) {
+                return cacheValue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * XFetch 概率提前刷新：越接近过期、加载越慢，提前刷新的概率越大
+     *
+     * @param cacheValue
+     * @return
+     */
+    private boolean shouldRefresh(CacheValue cacheValue) {
+        double beta = cacheManager.getRefreshBeta();
+        if (beta <= 0 || cacheValue.getExpireTime() <= 0) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        double gap = Math.max(cacheValue.getDelta(), 1) * beta * -Math.log(random);
+        return System.currentTimeMillis() + gap >= cacheValue.getExpireTime();
+    }
+
+    private CacheValue toCacheValue(Object value, long delta) {
+        if (null == value) {
+            return null;
+        }
+        long expireTime = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : 0;
+        return new CacheValue(value, expireTime, delta);
+    }
+
+    /**
+     * 兼容升级前直接存储的缓存值
+     *
+     * @param value
+     * @return
+     */
+    private CacheValue fromRedisValue(Object value) {
+        if (null == value || value instanceof CacheValue) {
+            return (CacheValue) value;
+        }
+        return new CacheValue(value, 0, 0);
+    }
+
+    /**
+     * 获取当前缓存代数，本地缓存一段时间，防止丢失失效通知时长期使用旧代数
+     *
+     * @return
+     */
+    private long generation() {
+        if (System.currentTimeMillis() >= generationExpireTime) {
+            updateGeneration(cacheManager.loadGeneration(name));
+        }
+        return generation;
+    }
+
+    private synchronized void updateGeneration(long next) {
+        if (next > generation) {
+            generation = next;
+            caffeineCache.invalidateAll();
+        }
+        generationExpireTime = System.currentTimeMillis() + generationTimeToLive;
+    }
+
+    /**
+     * 获取父级标签的代数，本地缓存一段时间，与缓存代数一致
+     *
+     * @param tag
+     * @return
+     */
+    private long tagGeneration(String tag) {
+        Long tagGeneration = tagGenerationCache.get(tag, t -> cacheManager.loadGeneration(name, t));
+        return null != tagGeneration ? tagGeneration : 0;
+    }
+
+    private void updateTagGeneration(String tag, long next) {
+        tagGenerationCache.asMap().merge(tag, next, Math::max);
+    }
+
+    /**
+     * 缓存 Key 统一转换为带代数的 String，与 Redis Key 及失效通知保持一致
+     * <p>
+     * TaggedKey 额外带有父级标签的代数：{generation}:{tag}@{tagGeneration}:{key}
+     *
+     * @param key
+     * @return
+     */
+    private String cacheKey(Object key) {
+        if (key instanceof TaggedKey) {
+            TaggedKey taggedKey = (TaggedKey) key;
+            String tag = taggedKey.getTag();
+            return generation() + ":" + tag + "@" + tagGeneration(tag) + ":" + taggedKey.getKey();
+        }
+        return generation() + ":" + key;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.common.cache;
+
+import cn.hutool.core.util.IdUtil;
+import com.alibaba.fastjson.JSON;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.pnoker.common.constant.Common;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 多级缓存管理器，在 RedisCacheManager 前增加有界的本地 Caffeine 缓存
+ *
+ * @author pnoker
+ */
+@Slf4j
+public class MultiLevelCacheManager implements CacheManager {
+    private final String instanceId = IdUtil.fastSimpleUUID();
+    private final ConcurrentMap<String, MultiLevelCache> cacheMap = new ConcurrentHashMap<>(16);
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String topic;
+    private final Duration localTimeToLive;
+    private final long localMaximumSize;
+
+    /**
+     * 概率提前刷新系数，越大越早刷新，0 表示关闭
+     */
+    @Getter
+    @Setter
+    private double refreshBeta = 1.0;
+
+    /**
+     * 跨实例加载锁超时时间，为空表示只在实例内单飞加载
+     */
+    @Getter
+    @Setter
+    private Duration lockTimeout;
+
+    private final DefaultRedisScript<Long> unlockScript = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    public MultiLevelCacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate stringRedisTemplate, String topic, Duration localTimeToLive, long localMaximumSize) {
+        this.redisCacheManager = redisCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.topic = topic;
+        this.localTimeToLive = localTimeToLive;
+        this.localMaximumSize = localMaximumSize;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return cacheMap.computeIfAbsent(name, cacheName -> new MultiLevelCache(
+                cacheName,
+                (RedisCache) redisCacheManager.getCache(cacheName),
+                Caffeine.newBuilder().maximumSize(localMaximumSize).expireAfterWrite(localTimeToLive).build(),
+                this,
+                localTimeToLive
+        ));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(cacheMap.keySet());
+    }
+
+    /**
+     * 获取 Redis 中记录的缓存代数
+     *
+     * @param cacheName 缓存名称
+     * @return
+     */
+    public long loadGeneration(String cacheName) {
+        try {
+            Object generation = stringRedisTemplate.opsForHash().get(Common.Cache.GENERATION, cacheName);
+            return null != generation ? Long.parseLong(generation.toString()) : 0;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 递增 Redis 中记录的缓存代数
+     *
+     * @param cacheName 缓存名称
+     * @return 新的缓存代数
+     */
+    public long incrementGeneration(String cacheName) {
+        return stringRedisTemplate.opsForHash().increment(Common.Cache.GENERATION, cacheName, 1);
+    }
+
+    /**
+     * 获取 Redis 中记录的父级标签代数
+     *
+     * @param cacheName 缓存名称
+     * @param tag       父级标签
+     * @return
+     */
+    public long loadGeneration(String cacheName, String tag) {
+        return loadGeneration(cacheName + "#" + tag);
+    }
+
+    /**
+     * 递增 Redis 中记录的父级标签代数
+     *
+     * @param cacheName 缓存名称
+     * @param tag       父级标签
+     * @return 新的标签代数
+     */
+    public long incrementGeneration(String cacheName, String tag) {
+        return incrementGeneration(cacheName + "#" + tag);
+    }
+
+    public boolean isLockEnable() {
+        return null != lockTimeout && !lockTimeout.isZero() && !lockTimeout.isNegative();
+    }
+
+    /**
+     * 获取跨实例加载锁，Redis 异常时视为获取成功，退化为实例内单飞加载
+     *
+     * @param lockKey
+     * @return
+     */
+    public boolean tryLock(String lockKey) {
+        try {
+            Boolean lock = stringRedisTemplate.opsForValue().setIfAbsent(lockKey, instanceId, lockTimeout);
+            return null == lock || lock;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return true;
+        }
+    }
+
+    /**
+     * 释放跨实例加载锁，只释放本实例持有的锁
+     *
+     * @param lockKey
+     */
+    public void unlock(String lockKey) {
+        try {
+            stringRedisTemplate.execute(unlockScript, Collections.singletonList(lockKey), instanceId);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 广播缓存失效通知
+     *
+     * @param cacheName  缓存名称
+     * @param key        带代数的缓存 Key
+     * @param generation 新的缓存代数，不为空时表示整个缓存已失效
+     */
+    public void publish(String cacheName, String key, Long generation) {
+        send(new CacheMessage(instanceId, cacheName, key, generation, null));
+    }
+
+    /**
+     * 广播父级标签失效通知
+     *
+     * @param cacheName  缓存名称
+     * @param tag        父级标签
+     * @param generation 新的标签代数
+     */
+    public void publishTag(String cacheName, String tag, long generation) {
+        send(new CacheMessage(instanceId, cacheName, null, generation, tag));
+    }
+
+    private void send(CacheMessage cacheMessage) {
+        try {
+            stringRedisTemplate.convertAndSend(topic, JSON.toJSONString(cacheMessage));
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 处理其他实例的缓存失效通知，只清除本地缓存
+     *
+     * @param cacheMessage
+     */
+    public void evictLocal(CacheMessage cacheMessage) {
+        if (instanceId.equals(cacheMessage.getInstanceId())) {
+            return;
+        }
+        MultiLevelCache cache = cacheMap.get(cacheMessage.getCacheName());
+        if (null != cache) {
+            cache.evictLocal(cacheMessage.getKey(), cacheMessage.getGeneration(), cacheMessage.getTag());
+        }
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+}
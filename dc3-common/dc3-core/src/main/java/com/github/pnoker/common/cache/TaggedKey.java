@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.common.cache;
+
+import com.github.pnoker.common.annotation.CacheTag;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 带父级标签的缓存 Key
+ * <p>
+ * 查询参数中含有 {@link CacheTag} 字段时，commonKeyGenerator 生成 TaggedKey，
+ * MultiLevelCache 将标签的代数拼入 Key；写入单条记录时通过 {@link #tag(Object)} 只递增该标签的代数：
+ * <pre>
+ * &#64;CacheEvict(value = Common.Cache.POINT + Common.Cache.LIST, key = "T(com.github.pnoker.common.cache.TaggedKey).tag(#point.profileId)")
+ * </pre>
+ * 标签为空的查询（未按父级过滤）归入公共分组，任何标签失效时一并失效。
+ *
+ * @author pnoker
+ */
+public final class TaggedKey {
+    /**
+     * 未按父级过滤的查询所在的分组
+     */
+    public static final String ANY = "*";
+
+    private static final Map<Class<?>, Optional<Field>> TAG_FIELD_MAP = new ConcurrentHashMap<>(16);
+
+    private final Object tag;
+    private final Object key;
+
+    private TaggedKey(Object tag, Object key) {
+        this.tag = tag;
+        this.key = key;
+    }
+
+    /**
+     * 标签失效 Key，用于 @CacheEvict，标签为空时退化为清空整个缓存
+     *
+     * @param tag 父级 ID
+     * @return
+     */
+    public static TaggedKey tag(Object tag) {
+        return new TaggedKey(tag, null);
+    }
+
+    /**
+     * 参数中含有 {@link CacheTag} 字段时返回 TaggedKey，否则原样返回 key
+     *
+     * @param key    缓存 Key
+     * @param params 方法参数
+     * @return
+     */
+    public static Object of(Object key, Object... params) {
+        for (Object param : params) {
+            if (null == param) {
+                continue;
+            }
+            Optional<Field> field = TAG_FIELD_MAP.computeIfAbsent(param.getClass(), TaggedKey::tagField);
+            if (field.isPresent()) {
+                try {
+                    return new TaggedKey(field.get().get(param), key);
+                } catch (IllegalAccessException e) {
+                    return new TaggedKey(null, key);
+                }
+            }
+        }
+        return key;
+    }
+
+    /**
+     * 标签分组名称，未按父级过滤时为 {@link #ANY}
+     *
+     * @return
+     */
+    public String getTag() {
+        return null != tag ? tag.toString() : ANY;
+    }
+
+    public boolean hasTag() {
+        return null != tag;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * 是否为标签失效 Key
+     *
+     * @return
+     */
+    public boolean isEviction() {
+        return null == key;
+    }
+
+    @Override
+    public String toString() {
+        return getTag() + ":" + key;
+    }
+
+    private static Optional<Field> tagField(Class<?> clazz) {
+        for (Class<?> current = clazz; null != current && Object.class != current; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && field.isAnnotationPresent(CacheTag.class)) {
+                    field.setAccessible(true);
+                    return Optional.of(field);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -16,18 +16,23 @@
 
 package com.github.pnoker.common.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.pnoker.common.cache.CacheKeyGenerator;
+import com.github.pnoker.common.cache.CacheMessageListener;
+import com.github.pnoker.common.cache.MultiLevelCacheManager;
+import com.github.pnoker.common.constant.Common;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -42,6 +47,14 @@ import java.time.Duration;
 public class RedisCacheConfig {
     @Setter
     private Duration timeToLive;
+    @Setter
+    private Duration localTimeToLive = Duration.ofSeconds(30);
+    @Setter
+    private long localMaximumSize = 10000;
+    @Setter
+    private double refreshBeta = 1.0;
+    @Setter
+    private Duration lockTimeout;
 
     /**
      * 自定义缓存 Key 生成策略
@@ -58,45 +71,52 @@ public class RedisCacheConfig {
     }
 
     /**
-     * 自定义缓存 Key 生成策略
+     * 自定义缓存 Key 生成策略，对参数中 @CacheKey 标记的查询字段计算哈希
      *
      * @return
      */
     @Bean
     public KeyGenerator commonKeyGenerator() {
-        return (target, method, params) -> {
-            StringBuilder sb = new StringBuilder();
-            sb.append(target.getClass().getName());
-            sb.append(".");
-            sb.append(method.getName());
-            sb.append("#");
-            for (Object obj : params) {
-                sb.append(obj.toString());
-            }
-            return sb.toString();
-        };
+        return new CacheKeyGenerator();
     }
 
     /**
      * 自定义 RedisCacheManager 类，主要是设置序列化，解决乱码问题
+     * <p>
+     * 在 Redis 缓存前增加本地 Caffeine 缓存，各实例间通过 Redis Pub/Sub 保持一致
      *
      * @param factory
+     * @param redisValueSerializer
      * @return
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory factory) {
-        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
-        // 解决查询缓存转换异常的问题
-        ObjectMapper om = new ObjectMapper();
-        om.activateDefaultTyping(om.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL);
-        jackson2JsonRedisSerializer.setObjectMapper(om);
+    public MultiLevelCacheManager cacheManager(RedisConnectionFactory factory, RedisSerializer<Object> redisValueSerializer) {
         // 配置序列化（解决乱码的问题）
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jackson2JsonRedisSerializer))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer))
                 .disableCachingNullValues().entryTtl(timeToLive);
-        RedisCacheManager cacheManager = RedisCacheManager.builder(factory).cacheDefaults(config).build();
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(factory).cacheDefaults(config).build();
+        redisCacheManager.afterPropertiesSet();
+        MultiLevelCacheManager cacheManager = new MultiLevelCacheManager(redisCacheManager, new StringRedisTemplate(factory), Common.Cache.TOPIC, localTimeToLive, localMaximumSize);
+        cacheManager.setRefreshBeta(refreshBeta);
+        cacheManager.setLockTimeout(lockTimeout);
         return cacheManager;
     }
 
+    /**
+     * 监听其他实例的缓存失效通知
+     *
+     * @param factory
+     * @param cacheManager
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheMessageListenerContainer(RedisConnectionFactory factory, MultiLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(new CacheMessageListener(cacheManager), new ChannelTopic(cacheManager.getTopic()));
+        return container;
+    }
+
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.common.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Redis Value 序列化配置，RedisTemplate 与 RedisCacheManager 共用
+ * <p>
+ * - json：Jackson JSON，可读性好，便于排查问题
+ * <p>
+ * - smile：Jackson Smile 二进制格式，字段名与短字符串值（包括类型信息中的类名）以引用方式复用，体积更小，编解码更快
+ * <p>
+ * 反序列化时忽略未知字段，删除模型字段后已有的缓存仍可读取。
+ * 两种格式互不兼容，切换 spring.redis.serializer.type 后需要清空 Redis 中的缓存
+ *
+ * @author pnoker
+ */
+@Configuration
+@ConfigurationProperties(prefix = "spring.redis.serializer")
+public class RedisSerializerConfig {
+    @Setter
+    private Type type = Type.JSON;
+    @Setter
+    private List<String> allowPackages = new ArrayList<>(Arrays.asList(
+            "com.github.pnoker.",
+            "com.baomidou.mybatisplus.",
+            "java.util.",
+            "java.lang.",
+            "java.math."
+    ));
+
+    public enum Type {
+        JSON, SMILE
+    }
+
+    /**
+     * Redis Value 序列化器，只允许反序列化白名单包下的类型，防止多态反序列化漏洞
+     *
+     * @return
+     */
+    @Bean
+    public RedisSerializer<Object> redisValueSerializer() {
+        ObjectMapper om = Type.SMILE.equals(type)
+                ? new ObjectMapper(new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES))
+                : new ObjectMapper();
+        om.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        BasicPolymorphicTypeValidator.Builder validator = BasicPolymorphicTypeValidator.builder();
+        for (String allowPackage : allowPackages) {
+            validator.allowIfSubType(allowPackage);
+        }
+        // 解决查询缓存转换异常的问题
+        om.activateDefaultTyping(validator.build(), ObjectMapper.DefaultTyping.NON_FINAL);
+        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        serializer.setObjectMapper(om);
+        return serializer;
+    }
+}
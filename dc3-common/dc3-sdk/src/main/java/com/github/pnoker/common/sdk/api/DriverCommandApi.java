@@ -23,6 +23,7 @@ import com.github.pnoker.common.sdk.bean.CmdParameter;
 import com.github.pnoker.common.sdk.service.DriverCommandService;
 import com.github.pnoker.common.valid.Read;
 import com.github.pnoker.common.valid.ValidatableList;
+import com.github.pnoker.common.valid.Write;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -70,6 +71,23 @@ public class DriverCommandApi {
         return R.ok(pointValues);
     }
 
+    /**
+     * 批量写，同一设备的位号由驱动打包写入
+     *
+     * @param cmdParameters
+     */
+    @PostMapping("/write")
+    public R<List<Boolean>> writePoint(@Validated(Write.class) @RequestBody ValidatableList<CmdParameter> cmdParameters) {
+        try {
+            if (cmdParameters.size() > MAX_REQUEST_SIZE) {
+                return R.fail("point request size are limited to " + MAX_REQUEST_SIZE);
+            }
+            return R.ok(driverCommandService.write(cmdParameters));
+        } catch (Exception e) {
+            return R.fail(e.getMessage());
+        }
+    }
+
     /**
      * 写
      *
@@ -1,6 +1,9 @@
 package com.github.pnoker.common.sdk.service;
 
 import com.github.pnoker.common.bean.driver.PointValue;
+import com.github.pnoker.common.sdk.bean.CmdParameter;
+
+import java.util.List;
 
 /**
  * @author pnoker
@@ -26,4 +29,12 @@ public interface DriverCommandService {
      */
     Boolean write(Long deviceId, Long pointId, String value);
 
+    /**
+     * 批量写操作，同一设备的位号交给驱动一次写入
+     *
+     * @param cmdParameters
+     * @return 与 cmdParameters 顺序一致的写入结果
+     */
+    List<Boolean> write(List<CmdParameter> cmdParameters);
+
 }
@@ -20,6 +20,8 @@ import com.github.pnoker.common.sdk.bean.AttributeInfo;
 import com.github.pnoker.common.model.Device;
 import com.github.pnoker.common.model.Point;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -54,6 +56,22 @@ public interface DriverService {
      */
     Boolean write(Map<String, AttributeInfo> driverInfo, Map<String, AttributeInfo> pointInfo, AttributeInfo value);
 
+    /**
+     * 批量写操作，同一设备的多个位号，默认逐个写入，驱动可覆盖以打包为更少的请求
+     *
+     * @param driverInfo
+     * @param pointInfos
+     * @param values
+     * @return 每个位号的写入结果
+     */
+    default List<Boolean> write(Map<String, AttributeInfo> driverInfo, List<Map<String, AttributeInfo>> pointInfos, List<AttributeInfo> values) {
+        List<Boolean> results = new ArrayList<>(pointInfos.size());
+        for (int i = 0; i < pointInfos.size(); i++) {
+            results.add(write(driverInfo, pointInfos.get(i), values.get(i)));
+        }
+        return results;
+    }
+
     /**
      * 驱动本身存在定时器，用于定时采集数据和下发数据，该方法为用户自定义操作，系统根据配置定时执行
      */
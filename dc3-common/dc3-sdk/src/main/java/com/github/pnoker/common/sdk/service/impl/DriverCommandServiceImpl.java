@@ -3,6 +3,7 @@ package com.github.pnoker.common.sdk.service.impl;
 import com.github.pnoker.common.bean.driver.PointValue;
 import com.github.pnoker.common.model.Device;
 import com.github.pnoker.common.sdk.bean.AttributeInfo;
+import com.github.pnoker.common.sdk.bean.CmdParameter;
 import com.github.pnoker.common.sdk.bean.DriverContext;
 import com.github.pnoker.common.sdk.service.DriverCommandService;
 import com.github.pnoker.common.sdk.service.DriverService;
@@ -12,6 +13,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author pnoker
@@ -44,4 +50,31 @@ public class DriverCommandServiceImpl implements DriverCommandService {
                 new AttributeInfo(value, driverContext.getDevicePoint(deviceId, pointId).getType()));
     }
 
+    @Override
+    @SneakyThrows
+    public List<Boolean> write(List<CmdParameter> cmdParameters) {
+        Map<Long, List<Integer>> deviceIndexMap = new LinkedHashMap<>(16);
+        for (int i = 0; i < cmdParameters.size(); i++) {
+            deviceIndexMap.computeIfAbsent(cmdParameters.get(i).getDeviceId(), deviceId -> new ArrayList<>()).add(i);
+        }
+
+        Boolean[] results = new Boolean[cmdParameters.size()];
+        for (Map.Entry<Long, List<Integer>> entry : deviceIndexMap.entrySet()) {
+            Long deviceId = entry.getKey();
+            Device device = driverContext.getDevice(deviceId);
+            List<Map<String, AttributeInfo>> pointInfos = new ArrayList<>(entry.getValue().size());
+            List<AttributeInfo> values = new ArrayList<>(entry.getValue().size());
+            for (Integer index : entry.getValue()) {
+                CmdParameter cmdParameter = cmdParameters.get(index);
+                pointInfos.add(driverContext.getDevicePointInfo(deviceId, cmdParameter.getPointId()));
+                values.add(new AttributeInfo(cmdParameter.getValue(), driverContext.getDevicePoint(deviceId, cmdParameter.getPointId()).getType()));
+            }
+            List<Boolean> deviceResults = driverService.write(driverContext.getProfileDriverInfo(device.getProfileId()), pointInfos, values);
+            for (int i = 0; i < deviceResults.size(); i++) {
+                results[entry.getValue().get(i)] = deviceResults.get(i);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
 }
@@ -48,7 +48,12 @@ public class ThreadPool {
                 Thread thread = new Thread(r, "dc3-driver-thread-" + atomicInteger.getAndIncrement());
                 log.debug("{} has been created", thread.getName());
                 return thread;
-            }, (r, e) -> log.error("thread pool rejected"));
+            }, (r, e) -> {
+                log.error("thread pool rejected");
+                if (r instanceof RejectableRunnable) {
+                    ((RejectableRunnable) r).rejected.run();
+                }
+            });
 
     /**
      * 在线程池中执行线程
@@ -58,4 +63,32 @@ public class ThreadPool {
     public void execute(Runnable runnable) {
         poolExecutor.execute(runnable);
     }
+
+    /**
+     * 在线程池中执行线程，线程池拒绝时在调用线程中执行 rejected
+     *
+     * @param runnable
+     * @param rejected
+     */
+    public void execute(Runnable runnable, Runnable rejected) {
+        poolExecutor.execute(new RejectableRunnable(runnable, rejected));
+    }
+
+    /**
+     * 带拒绝回调的线程
+     */
+    private static class RejectableRunnable implements Runnable {
+        private final Runnable runnable;
+        private final Runnable rejected;
+
+        private RejectableRunnable(Runnable runnable, Runnable rejected) {
+            this.runnable = runnable;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+    }
 }
@@ -66,14 +66,22 @@ public class PointValueService {
     }
 
     /**
-     * 批量发送位号值到消息组件
+     * 批量发送位号值到消息组件，整批复用同一个 Channel
      *
      * @param pointValues
      */
     public void pointValueSender(List<PointValue> pointValues) {
-        for (PointValue pointValue : pointValues) {
-            pointValueSender(pointValue);
+        if (pointValues.isEmpty()) {
+            return;
         }
+        String routingKey = "key." + driverProperty.getName();
+        rabbitTemplate.invoke(operations -> {
+            for (PointValue pointValue : pointValues) {
+                log.debug("send point value,{}", pointValue);
+                operations.convertAndSend(Common.Rabbit.TOPIC_EXCHANGE, routingKey, pointValue);
+            }
+            return null;
+        });
     }
 
     /**
@@ -0,0 +1,69 @@
+package com.github.pnoker.driver.bean;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 驱动配置文件 driver.custom.socket 字段内容
+ *
+ * @author pnoker
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "driver.custom.socket")
+public class NettyProperty {
+    /**
+     * TCP 监听端口
+     */
+    private int port = 6270;
+    /**
+     * UDP 监听端口，0 表示不开启
+     */
+    private int udpPort = 0;
+    /**
+     * MQTT 监听端口，0 表示不开启
+     */
+    private int mqttPort = 0;
+    /**
+     * 单条 MQTT 消息的最大字节数
+     */
+    private int mqttMaxMessageSize = 64 * 1024;
+    /**
+     * 报文长度，TCP 流按该长度切分为帧
+     */
+    private int frameLength = 69;
+    /**
+     * 接收连接的线程数
+     */
+    private int bossThreads = 1;
+    /**
+     * 读写报文的线程数，0 表示使用 Netty 默认值（CPU 核数 * 2）
+     */
+    private int workerThreads = 0;
+    /**
+     * Linux 下优先使用 epoll 传输，不可用时回退到 NIO
+     */
+    private boolean epoll = true;
+    /**
+     * 等待接收的连接队列长度
+     */
+    private int backlog = 1024;
+    /**
+     * 每个连接的 SO_RCVBUF、SO_SNDBUF 大小，0 表示使用系统默认值
+     */
+    private int receiveBuffer = 64 * 1024;
+    private int sendBuffer = 0;
+    private boolean tcpNoDelay = true;
+    private boolean keepAlive = true;
+    /**
+     * 超过该时间未收到报文的连接被关闭，0 表示不检测
+     */
+    private Duration readIdleTimeout = Duration.ofMinutes(5);
+    /**
+     * 写超时时间
+     */
+    private Duration writeTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,29 @@
+package com.github.pnoker.driver.bean;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 驱动配置文件 driver.custom.publish 字段内容
+ *
+ * @author pnoker
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "driver.custom.publish")
+public class PublishProperty {
+    /**
+     * 每个 worker 线程的待发送队列长度
+     */
+    private int queueCapacity = 16384;
+    /**
+     * 队列使用量超过该比例时暂停读取对应连接，低于 resumeRatio 时恢复
+     */
+    private double pauseRatio = 0.75;
+    private double resumeRatio = 0.25;
+    /**
+     * 单次批量发送的最大位号值数量
+     */
+    private int batchSize = 512;
+}
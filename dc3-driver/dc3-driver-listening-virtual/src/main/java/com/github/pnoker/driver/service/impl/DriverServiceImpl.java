@@ -4,10 +4,9 @@ import com.github.pnoker.common.model.Device;
 import com.github.pnoker.common.model.Point;
 import com.github.pnoker.common.sdk.bean.AttributeInfo;
 import com.github.pnoker.common.sdk.service.DriverService;
-import com.github.pnoker.common.sdk.service.pool.ThreadPool;
+import com.github.pnoker.driver.bean.NettyProperty;
 import com.github.pnoker.driver.service.netty.NettyServer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
@@ -19,19 +18,23 @@ import java.util.Map;
 @Slf4j
 @Service
 public class DriverServiceImpl implements DriverService {
-    @Value("${driver.custom.socket.port}")
-    private Integer port;
     @Resource
-    private NettyServer nettyServer;
+    private NettyProperty nettyProperty;
     @Resource
-    private ThreadPool threadPool;
+    private NettyServer nettyServer;
 
     @Override
     public void initial() {
-        threadPool.execute(() -> {
-            log.info("starting(::{}) incoming data listener", port);
-            nettyServer.start(port);
-        });
+        log.info("starting(::{}) incoming data listener", nettyProperty.getPort());
+        nettyServer.start(nettyProperty.getPort());
+        if (nettyProperty.getUdpPort() > 0) {
+            log.info("starting(udp::{}) incoming data listener", nettyProperty.getUdpPort());
+            nettyServer.startUdp(nettyProperty.getUdpPort());
+        }
+        if (nettyProperty.getMqttPort() > 0) {
+            log.info("starting(mqtt::{}) incoming data listener", nettyProperty.getMqttPort());
+            nettyServer.startMqtt(nettyProperty.getMqttPort());
+        }
     }
 
     @Override
@@ -0,0 +1,149 @@
+package com.github.pnoker.driver.service.netty;
+
+import com.github.pnoker.common.model.Device;
+import com.github.pnoker.common.sdk.bean.DriverContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
+
+/**
+ * 设备名称索引，直接按报文中的名称字节查找设备 ID，命中时不创建 String
+ * <p>
+ * 索引为写时复制的哈希表，只在首次出现的设备名称时通过 DriverContext 查找并加入；
+ * 命中后校验设备仍存在且名称一致，设备删除或改名后自动失效
+ *
+ * @author pnoker
+ */
+public class DeviceNameIndex {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final DriverContext driverContext;
+    private volatile Entry[] table = new Entry[INITIAL_CAPACITY];
+    private int size;
+
+    public DeviceNameIndex(DriverContext driverContext) {
+        this.driverContext = driverContext;
+    }
+
+    /**
+     * 通过报文中的设备名称获取设备 ID
+     *
+     * @param byteBuf
+     * @param index   名称起始位置
+     * @param length  名称字节数，ISO-8859-1 编码
+     * @return
+     */
+    public Long getDeviceId(ByteBuf byteBuf, int index, int length) {
+        int hash = hash(byteBuf, index, length);
+        Entry[] entries = table;
+        for (Entry entry = entries[hash & (entries.length - 1)]; null != entry; entry = entry.next) {
+            if (entry.hash == hash && equals(entry.name, byteBuf, index, length)) {
+                Device device = driverContext.getDeviceMap().get(entry.deviceId);
+                if (null != device && equals(device.getName(), byteBuf, index, length)) {
+                    return entry.deviceId;
+                }
+                remove(entry);
+                break;
+            }
+        }
+
+        String name = byteBuf.toString(index, length, CharsetUtil.ISO_8859_1);
+        Long deviceId = driverContext.getDeviceIdByName(name);
+        put(new Entry(hash, name.getBytes(CharsetUtil.ISO_8859_1), deviceId));
+        return deviceId;
+    }
+
+    private synchronized void put(Entry entry) {
+        Entry[] entries = table;
+        if (size + 1 > entries.length * 3 / 4) {
+            entries = copy(entries, entries.length * 2, null);
+        } else {
+            entries = copy(entries, entries.length, null);
+        }
+        int slot = entry.hash & (entries.length - 1);
+        entries[slot] = new Entry(entry.hash, entry.name, entry.deviceId, entries[slot]);
+        size++;
+        table = entries;
+    }
+
+    private synchronized void remove(Entry removed) {
+        Entry[] entries = copy(table, table.length, removed);
+        if (entries != null) {
+            table = entries;
+        }
+    }
+
+    /**
+     * 复制哈希表，跳过 skip，skip 不在表中时返回 null
+     */
+    private Entry[] copy(Entry[] source, int capacity, Entry skip) {
+        Entry[] entries = new Entry[capacity];
+        boolean skipped = false;
+        int count = 0;
+        for (Entry head : source) {
+            for (Entry entry = head; null != entry; entry = entry.next) {
+                if (entry == skip) {
+                    skipped = true;
+                    continue;
+                }
+                int slot = entry.hash & (capacity - 1);
+                entries[slot] = new Entry(entry.hash, entry.name, entry.deviceId, entries[slot]);
+                count++;
+            }
+        }
+        if (null != skip && !skipped) {
+            return null;
+        }
+        size = count;
+        return entries;
+    }
+
+    private static int hash(ByteBuf byteBuf, int index, int length) {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + byteBuf.getByte(index + i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(byte[] name, ByteBuf byteBuf, int index, int length) {
+        if (name.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name[i] != byteBuf.getByte(index + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(String name, ByteBuf byteBuf, int index, int length) {
+        if (null == name || name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != (byteBuf.getByte(index + i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Entry {
+        private final int hash;
+        private final byte[] name;
+        private final Long deviceId;
+        private final Entry next;
+
+        private Entry(int hash, byte[] name, Long deviceId) {
+            this(hash, name, deviceId, null);
+        }
+
+        private Entry(int hash, byte[] name, Long deviceId, Entry next) {
+            this.hash = hash;
+            this.name = name;
+            this.deviceId = deviceId;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.pnoker.driver.service.netty;
+
+import com.github.pnoker.driver.bean.NettyProperty;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.mqtt.MqttConnAckMessage;
+import io.netty.handler.codec.mqtt.MqttConnAckVariableHeader;
+import io.netty.handler.codec.mqtt.MqttConnectReturnCode;
+import io.netty.handler.codec.mqtt.MqttFixedHeader;
+import io.netty.handler.codec.mqtt.MqttMessage;
+import io.netty.handler.codec.mqtt.MqttMessageIdVariableHeader;
+import io.netty.handler.codec.mqtt.MqttMessageType;
+import io.netty.handler.codec.mqtt.MqttPublishMessage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.netty.handler.codec.mqtt.MqttSubAckMessage;
+import io.netty.handler.codec.mqtt.MqttSubAckPayload;
+import io.netty.handler.codec.mqtt.MqttSubscribeMessage;
+import io.netty.handler.codec.mqtt.MqttUnsubAckMessage;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * MQTT 报文处理，驱动作为只接收发布的 MQTT Broker，设备直接向驱动发布报文
+ * 任意主题的 PUBLISH 负载按一帧或多帧定长报文解析，不转发给订阅者；
+ * QoS 1 回复 PUBACK，QoS 2 回复 PUBREC、PUBCOMP，不做重复消息检测
+ * 报文格式见 PointFrameParser
+ *
+ * @author pnoker
+ */
+@Slf4j
+@Component
+@ChannelHandler.Sharable
+public class MqttServerHandler extends SimpleChannelInboundHandler<MqttMessage> {
+    @Resource
+    private NettyProperty nettyProperty;
+    @Resource
+    private PointFrameParser pointFrameParser;
+
+    @Override
+    public void channelRead0(ChannelHandlerContext context, MqttMessage message) {
+        if (message.decoderResult().isFailure()) {
+            log.debug("client({}) invalid mqtt message,{}", context.channel().remoteAddress(), message.decoderResult().cause().getMessage());
+            context.close();
+            return;
+        }
+
+        MqttMessageType type = message.fixedHeader().messageType();
+        switch (type) {
+            case CONNECT:
+                log.debug("mqtt listener({}) accept clint({})", context.channel().localAddress(), context.channel().remoteAddress());
+                context.writeAndFlush(new MqttConnAckMessage(
+                        fixedHeader(MqttMessageType.CONNACK),
+                        new MqttConnAckVariableHeader(MqttConnectReturnCode.CONNECTION_ACCEPTED, false)));
+                break;
+            case PUBLISH:
+                MqttPublishMessage publish = (MqttPublishMessage) message;
+                pointFrameParser.parseFrames(context.channel(), publish.payload(), nettyProperty.getFrameLength());
+                MqttQoS qos = publish.fixedHeader().qosLevel();
+                if (qos == MqttQoS.AT_LEAST_ONCE) {
+                    context.writeAndFlush(ack(MqttMessageType.PUBACK, publish.variableHeader().packetId()));
+                } else if (qos == MqttQoS.EXACTLY_ONCE) {
+                    context.writeAndFlush(ack(MqttMessageType.PUBREC, publish.variableHeader().packetId()));
+                }
+                break;
+            case PUBREL:
+                context.writeAndFlush(ack(MqttMessageType.PUBCOMP, ((MqttMessageIdVariableHeader) message.variableHeader()).messageId()));
+                break;
+            case SUBSCRIBE:
+                MqttSubscribeMessage subscribe = (MqttSubscribeMessage) message;
+                int[] grantedQos = new int[subscribe.payload().topicSubscriptions().size()];
+                context.writeAndFlush(new MqttSubAckMessage(
+                        fixedHeader(MqttMessageType.SUBACK),
+                        subscribe.variableHeader(),
+                        new MqttSubAckPayload(grantedQos)));
+                break;
+            case UNSUBSCRIBE:
+                context.writeAndFlush(new MqttUnsubAckMessage(
+                        fixedHeader(MqttMessageType.UNSUBACK),
+                        (MqttMessageIdVariableHeader) message.variableHeader()));
+                break;
+            case PINGREQ:
+                context.writeAndFlush(new MqttMessage(fixedHeader(MqttMessageType.PINGRESP)));
+                break;
+            case DISCONNECT:
+                context.close();
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public void exceptionCaught(ChannelHandlerContext context, Throwable throwable) {
+        log.debug(throwable.getMessage());
+        context.close();
+    }
+
+    private static MqttFixedHeader fixedHeader(MqttMessageType type) {
+        return new MqttFixedHeader(type, false, MqttQoS.AT_MOST_ONCE, false, 0);
+    }
+
+    private static MqttMessage ack(MqttMessageType type, int messageId) {
+        return new MqttMessage(fixedHeader(type), MqttMessageIdVariableHeader.from(messageId));
+    }
+
+}
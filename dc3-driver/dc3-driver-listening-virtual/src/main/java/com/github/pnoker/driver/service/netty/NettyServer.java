@@ -1,42 +1,200 @@
 package com.github.pnoker.driver.service.netty;
 
+import com.github.pnoker.driver.bean.NettyProperty;
+import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
-import io.netty.channel.ChannelFuture;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.FixedLengthFrameDecoder;
+import io.netty.handler.codec.mqtt.MqttDecoder;
+import io.netty.handler.codec.mqtt.MqttEncoder;
+import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
+ * 报文监听服务，支持 TCP、UDP 以及 MQTT 接入，各接入方式共用 worker 线程与 PointFrameParser 报文解析
+ * boss 线程接收连接，worker 线程读取并解码报文，Linux 下可用时使用 epoll 传输，连接使用池化的直接内存
+ *
  * @author pnoker
  */
+@Slf4j
 @Component
+@EnableConfigurationProperties({NettyProperty.class})
 public class NettyServer {
+    @Resource
+    private NettyProperty nettyProperty;
+    @Resource
+    private NettyServerHandler nettyServerHandler;
+    @Resource
+    private UdpServerHandler udpServerHandler;
+    @Resource
+    private MqttServerHandler mqttServerHandler;
+
+    private boolean epoll;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private final List<Channel> channels = new ArrayList<>();
+
+    /**
+     * 启动 TCP 监听，绑定端口后返回，连接由 Netty 线程处理，不占用调用线程
+     *
+     * @param port
+     */
+    public synchronized void start(int port) {
+        bindServer("tcp", port, pipeline -> pipeline.addLast(
+                new FixedLengthFrameDecoder(nettyProperty.getFrameLength()),
+                nettyServerHandler
+        ));
+    }
+
+    /**
+     * 启动 MQTT 监听，设备作为 MQTT 客户端直接向驱动发布报文
+     *
+     * @param port
+     */
+    public synchronized void startMqtt(int port) {
+        bindServer("mqtt", port, pipeline -> pipeline.addLast(
+                new MqttDecoder(nettyProperty.getMqttMaxMessageSize()),
+                MqttEncoder.INSTANCE,
+                mqttServerHandler
+        ));
+    }
+
+    /**
+     * 启动 UDP 监听，epoll 下使用 SO_REUSEPORT 为每个 worker 线程绑定一个 Socket，由内核分发数据报
+     *
+     * @param port
+     */
+    @SneakyThrows
+    public synchronized void startUdp(int port) {
+        initial();
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.group(workerGroup)
+                .channel(epoll ? EpollDatagramChannel.class : NioDatagramChannel.class)
+                .localAddress(new InetSocketAddress(port))
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .handler(new ChannelInitializer<DatagramChannel>() {
+                    @Override
+                    protected void initChannel(DatagramChannel datagramChannel) {
+                        datagramChannel.pipeline().addLast(udpServerHandler);
+                    }
+                });
+        if (nettyProperty.getReceiveBuffer() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, nettyProperty.getReceiveBuffer());
+        }
+
+        int sockets = 1;
+        if (epoll) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            sockets = ((MultithreadEventLoopGroup) workerGroup).executorCount();
+        }
+        for (int i = 0; i < sockets; i++) {
+            channels.add(bootstrap.bind().sync().channel());
+        }
+        log.info("listener(udp::{}) started, {} socket(s), transport {}", port, sockets, transport());
+    }
 
     @SneakyThrows
-    public void start(int port) {
-        EventLoopGroup group = new NioEventLoopGroup();
-        try {
-            ServerBootstrap bootstrap = new ServerBootstrap();
-            bootstrap.group(group)
-                    .channel(NioServerSocketChannel.class)
-                    .localAddress(new InetSocketAddress(port))
-                    .childHandler(new ChannelInitializer<SocketChannel>() {
-                        @Override
-                        protected void initChannel(SocketChannel socketChannel) {
-                            socketChannel.pipeline().addLast(new WriteTimeoutHandler(30), new NettyServerHandler());
+    private void bindServer(String protocol, int port, Consumer<ChannelPipeline> codec) {
+        initial();
+        Class<? extends ServerChannel> channelClass = epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+        ServerBootstrap bootstrap = new ServerBootstrap();
+        bootstrap.group(bossGroup, workerGroup)
+                .channel(channelClass)
+                .localAddress(new InetSocketAddress(port))
+                .option(ChannelOption.SO_BACKLOG, nettyProperty.getBacklog())
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.TCP_NODELAY, nettyProperty.isTcpNoDelay())
+                .childOption(ChannelOption.SO_KEEPALIVE, nettyProperty.isKeepAlive())
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel socketChannel) {
+                        ChannelPipeline pipeline = socketChannel.pipeline();
+                        long readIdleTimeout = nettyProperty.getReadIdleTimeout().toMillis();
+                        if (readIdleTimeout > 0) {
+                            pipeline.addLast(new ReadTimeoutHandler(readIdleTimeout, TimeUnit.MILLISECONDS));
                         }
-                    });
-            ChannelFuture future = bootstrap.bind().sync();
-            future.channel().closeFuture().sync();
-        } finally {
-            group.shutdownGracefully().sync();
+                        pipeline.addLast(new WriteTimeoutHandler(nettyProperty.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS));
+                        codec.accept(pipeline);
+                    }
+                });
+        if (nettyProperty.getReceiveBuffer() > 0) {
+            // 在监听 Socket 上设置，accept 的连接继承该值，窗口扩大因子在握手时协商
+            bootstrap.option(ChannelOption.SO_RCVBUF, nettyProperty.getReceiveBuffer());
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, nettyProperty.getReceiveBuffer());
+        }
+        if (nettyProperty.getSendBuffer() > 0) {
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, nettyProperty.getSendBuffer());
+        }
+
+        channels.add(bootstrap.bind().sync().channel());
+        log.info("listener({}::{}) started, transport {}", protocol, port, transport());
+    }
+
+    /**
+     * 创建各接入方式共用的线程组
+     */
+    private void initial() {
+        if (null != workerGroup) {
+            return;
+        }
+        epoll = nettyProperty.isEpoll() && Epoll.isAvailable();
+        if (epoll) {
+            bossGroup = new EpollEventLoopGroup(nettyProperty.getBossThreads(), new DefaultThreadFactory("dc3-listening-boss"));
+            workerGroup = new EpollEventLoopGroup(nettyProperty.getWorkerThreads(), new DefaultThreadFactory("dc3-listening-worker"));
+        } else {
+            bossGroup = new NioEventLoopGroup(nettyProperty.getBossThreads(), new DefaultThreadFactory("dc3-listening-boss"));
+            workerGroup = new NioEventLoopGroup(nettyProperty.getWorkerThreads(), new DefaultThreadFactory("dc3-listening-worker"));
+        }
+    }
+
+    private String transport() {
+        return epoll ? "epoll" : "nio";
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        channels.forEach(channel -> channel.close().syncUninterruptibly());
+        channels.clear();
+        if (null != bossGroup) {
+            bossGroup.shutdownGracefully();
+            bossGroup = null;
+        }
+        if (null != workerGroup) {
+            workerGroup.shutdownGracefully();
+            workerGroup = null;
         }
     }
-}
\ No newline at end of file
+}
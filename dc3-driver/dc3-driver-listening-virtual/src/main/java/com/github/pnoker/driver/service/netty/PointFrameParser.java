@@ -0,0 +1,141 @@
+package com.github.pnoker.driver.service.netty;
+
+import cn.hutool.core.util.CharsetUtil;
+import com.github.pnoker.common.model.Point;
+import com.github.pnoker.common.sdk.bean.AttributeInfo;
+import com.github.pnoker.common.sdk.bean.DriverContext;
+import com.github.pnoker.common.sdk.util.DriverUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Map;
+
+/**
+ * 报文处理，需要视具体情况开发
+ * 本驱动中使用报文（设备名称[22]+关键字[1]+海拔[4]+速度[8]+液位[8]+方向[4]+锁定[1]+经纬[21]）进行测试使用
+ * 4C 69 73 74 65 6E 69 6E 67 56 69 72 74 75 61 6C 44 65 76 69 63 65
+ * 62
+ * ‭44 C3 E7 5C‬
+ * ‭40 46 D5 C2 8F 5C 28 F6‬
+ * 00 00 00 00 00 00 00 0C
+ * 00 00 00 2D
+ * 01
+ * 31 33 31 2E 32 33 31 34 35 36 2C 30 32 31 2E 35 36 38 32 31 31
+ * <p>
+ * 使用 sokit 发送以下报文
+ * lg:[4C 69 73 74 65 6E 69 6E 67 56 69 72 74 75 61 6C 44 65 76 69 63 65 62 44 C3 E7 5C 40 46 D5 C2 8F 5C 28 F6 00 00 00 00 00 00 00 0C 00 00 00 2D 01 31 33 31 2E 32 33 31 34 35 36 2C 30 32 31 2E 35 36 38 32 31 31]
+ * <p>
+ * TCP、UDP、MQTT 接入共用该解析，帧为接收缓冲区的 slice，解析过程中不复制报文
+ * 解析出的位号原始值交给 PointValuePublisher，转换与发送不在 Netty 线程中进行
+ *
+ * @author pnoker
+ */
+@Slf4j
+@Component
+public class PointFrameParser {
+    /**
+     * 设备名称字节数
+     */
+    public static final int NAME_LENGTH = 22;
+
+    @Resource
+    private PointValuePublisher pointValuePublisher;
+    @Resource
+    private DriverContext driverContext;
+
+    private DeviceNameIndex deviceNameIndex;
+
+    @PostConstruct
+    public void init() {
+        deviceNameIndex = new DeviceNameIndex(driverContext);
+    }
+
+    /**
+     * 解析一帧报文，在接收该帧的 Netty 线程中调用
+     *
+     * @param channel 接收该帧的连接，用于背压
+     * @param byteBuf 一帧报文，从 readerIndex 开始
+     */
+    public void parse(Channel channel, ByteBuf byteBuf) {
+        parse(channel, byteBuf, byteBuf.readerIndex());
+    }
+
+    /**
+     * 解析 UDP 数据报、MQTT 消息等携带的一帧或多帧报文，单帧解析失败不影响其他帧
+     *
+     * @param channel     接收报文的连接，用于背压
+     * @param content     报文内容，从 readerIndex 开始
+     * @param frameLength 帧长度
+     */
+    public void parseFrames(Channel channel, ByteBuf content, int frameLength) {
+        int index = content.readerIndex();
+        int end = content.writerIndex();
+        for (; index + frameLength <= end; index += frameLength) {
+            try {
+                parse(channel, content, index);
+            } catch (Exception e) {
+                log.debug("client({}) frame parse fail,{}", channel.remoteAddress(), e.getMessage());
+            }
+        }
+        if (index < end) {
+            log.debug("client({}) discard {} trailing bytes", channel.remoteAddress(), end - index);
+        }
+    }
+
+    private void parse(Channel channel, ByteBuf byteBuf, int base) {
+        if (log.isTraceEnabled()) {
+            log.trace("{}->{}", channel.remoteAddress(), ByteBufUtil.hexDump(byteBuf, base, byteBuf.writerIndex() - base));
+        }
+        Long deviceId = deviceNameIndex.getDeviceId(byteBuf, base, NAME_LENGTH);
+        int key = byteBuf.getUnsignedByte(base + NAME_LENGTH);
+
+        Map<Long, Map<String, AttributeInfo>> pointInfoMap = driverContext.getDevicePointInfoMap().get(deviceId);
+        if (null == pointInfoMap) {
+            return;
+        }
+        for (Map.Entry<Long, Map<String, AttributeInfo>> entry : pointInfoMap.entrySet()) {
+            Long pointId = entry.getKey();
+            Map<String, AttributeInfo> infoMap = entry.getValue();
+            if (Integer.parseInt(infoMap.get("key").getValue(), 16) != key) {
+                continue;
+            }
+
+            Point point = driverContext.getDevicePoint(deviceId, pointId);
+            int start = DriverUtils.value(infoMap.get("start").getType(), infoMap.get("start").getValue());
+            int end = DriverUtils.value(infoMap.get("end").getType(), infoMap.get("end").getValue());
+            start += base;
+            end += base;
+            String rawValue = null;
+            switch (point.getName()) {
+                case "海拔":
+                    rawValue = String.valueOf(byteBuf.getFloat(start));
+                    break;
+                case "速度":
+                    rawValue = String.valueOf(byteBuf.getDouble(start));
+                    break;
+                case "液位":
+                    rawValue = String.valueOf(byteBuf.getLong(start));
+                    break;
+                case "方向":
+                    rawValue = String.valueOf(byteBuf.getInt(start));
+                    break;
+                case "锁定":
+                    rawValue = String.valueOf(byteBuf.getBoolean(start));
+                    break;
+                case "经纬":
+                    rawValue = byteBuf.toString(start, end - start, CharsetUtil.CHARSET_ISO_8859_1).trim();
+                    break;
+                default:
+                    break;
+            }
+            if (null != rawValue) {
+                pointValuePublisher.publish(channel, deviceId, pointId, rawValue);
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.pnoker.driver.service.netty;
+
+import com.github.pnoker.common.bean.driver.PointValue;
+import com.github.pnoker.common.sdk.service.rabbit.PointValueService;
+import com.github.pnoker.driver.bean.PublishProperty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.PlatformDependent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 位号值发送，将 Netty 线程与消息组件发送解耦
+ * <p>
+ * 每个 worker 线程对应一个有界 MPSC 队列和一个发送线程，Netty 线程只负责解码入队，
+ * 发送线程批量转换并发送到 RabbitMQ。队列使用量超过阈值时关闭对应连接的 autoRead，
+ * 由 TCP 窗口向设备端施加背压，队列回落后恢复读取
+ *
+ * @author pnoker
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties({PublishProperty.class})
+public class PointValuePublisher {
+    @Resource
+    private PublishProperty publishProperty;
+    @Resource
+    private PointValueService pointValueService;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final AtomicInteger laneIndex = new AtomicInteger();
+    private final Map<EventExecutor, Lane> laneMap = new ConcurrentHashMap<>(16);
+    private volatile boolean running = true;
+
+    /**
+     * 在 Netty 线程中调用，将解码后的位号原始值放入当前线程的队列
+     *
+     * @param channel
+     * @param deviceId
+     * @param pointId
+     * @param rawValue
+     */
+    public void publish(Channel channel, Long deviceId, Long pointId, String rawValue) {
+        Lane lane = laneMap.get(channel.eventLoop());
+        if (null == lane) {
+            lane = laneMap.computeIfAbsent(channel.eventLoop(), executor -> new Lane(laneIndex.getAndIncrement()));
+        }
+        lane.offer(channel, new RawValue(deviceId, pointId, rawValue));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        laneMap.values().forEach(Lane::stop);
+    }
+
+    /**
+     * 解码后的位号原始值，在发送线程中转换
+     */
+    private static class RawValue {
+        private final Long deviceId;
+        private final Long pointId;
+        private final String rawValue;
+
+        private RawValue(Long deviceId, Long pointId, String rawValue) {
+            this.deviceId = deviceId;
+            this.pointId = pointId;
+            this.rawValue = rawValue;
+        }
+    }
+
+    /**
+     * 单个 worker 线程的发送队列
+     */
+    private class Lane implements Runnable {
+        private final Queue<RawValue> queue;
+        private final int pauseSize;
+        private final int resumeSize;
+        private final Queue<Channel> paused = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private volatile boolean waiting;
+
+        private final Counter sentCounter;
+        private final Counter droppedCounter;
+        private final Counter pausedCounter;
+
+        private Lane(int index) {
+            int capacity = Math.max(2, publishProperty.getQueueCapacity());
+            this.queue = PlatformDependent.newFixedMpscQueue(capacity);
+            this.pauseSize = (int) (capacity * publishProperty.getPauseRatio());
+            this.resumeSize = (int) (capacity * publishProperty.getResumeRatio());
+
+            Tags tags = Tags.of("lane", String.valueOf(index));
+            this.sentCounter = meterRegistry.counter("dc3.listening.publish.sent", tags);
+            this.droppedCounter = meterRegistry.counter("dc3.listening.publish.dropped", tags);
+            this.pausedCounter = meterRegistry.counter("dc3.listening.publish.paused", tags);
+            Gauge.builder("dc3.listening.publish.queue", queue, Queue::size).tags(tags).register(meterRegistry);
+
+            this.thread = new Thread(this, "dc3-listening-publisher-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void offer(Channel channel, RawValue rawValue) {
+            if (!queue.offer(rawValue)) {
+                // 暂停读取前已进入解码器的报文仍会到达，超出队列容量的部分丢弃
+                droppedCounter.increment();
+                pause(channel);
+                return;
+            }
+            if (queue.size() >= pauseSize) {
+                pause(channel);
+            }
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void pause(Channel channel) {
+            if (channel.config().isAutoRead()) {
+                channel.config().setAutoRead(false);
+                paused.offer(channel);
+                pausedCounter.increment();
+                log.debug("publish queue full, pause reading client({})", channel.remoteAddress());
+            }
+        }
+
+        private void resume() {
+            Channel channel;
+            while (null != (channel = paused.poll())) {
+                if (channel.isActive()) {
+                    channel.config().setAutoRead(true);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int batchSize = Math.max(1, publishProperty.getBatchSize());
+            List<PointValue> pointValues = new ArrayList<>(batchSize);
+            // 停止时 NettyServer 已关闭，发送完队列中剩余的位号值后退出
+            while (running || !queue.isEmpty()) {
+                RawValue rawValue;
+                while (pointValues.size() < batchSize && null != (rawValue = queue.poll())) {
+                    try {
+                        pointValues.add(pointValueService.convertValue(rawValue.deviceId, rawValue.pointId, rawValue.rawValue));
+                    } catch (Exception e) {
+                        log.warn("convert point({}) value fail,{}", rawValue.pointId, e.getMessage());
+                    }
+                }
+                if (!paused.isEmpty() && queue.size() <= resumeSize) {
+                    resume();
+                }
+                if (!pointValues.isEmpty()) {
+                    send(pointValues);
+                    continue;
+                }
+
+                waiting = true;
+                if (queue.isEmpty() && running) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                waiting = false;
+            }
+        }
+
+        private void send(List<PointValue> pointValues) {
+            try {
+                pointValueService.pointValueSender(pointValues);
+                sentCounter.increment(pointValues.size());
+            } catch (Exception e) {
+                droppedCounter.increment(pointValues.size());
+                log.error("send point value fail,{}", e.getMessage());
+            } finally {
+                pointValues.clear();
+            }
+        }
+
+        private void stop() {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
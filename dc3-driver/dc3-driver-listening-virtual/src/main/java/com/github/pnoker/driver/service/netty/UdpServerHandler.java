@@ -0,0 +1,39 @@
+package com.github.pnoker.driver.service.netty;
+
+import com.github.pnoker.driver.bean.NettyProperty;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * UDP 报文处理，每个数据报携带一帧或多帧定长报文，处理完成后自动释放
+ * 报文格式见 PointFrameParser
+ *
+ * @author pnoker
+ */
+@Slf4j
+@Component
+@ChannelHandler.Sharable
+public class UdpServerHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+    @Resource
+    private NettyProperty nettyProperty;
+    @Resource
+    private PointFrameParser pointFrameParser;
+
+    @Override
+    public void channelRead0(ChannelHandlerContext context, DatagramPacket packet) {
+        pointFrameParser.parseFrames(context.channel(), packet.content(), nettyProperty.getFrameLength());
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext context, Throwable throwable) {
+        // 监听 Socket 被所有设备共用，异常时不关闭
+        log.debug(throwable.getMessage());
+    }
+
+}
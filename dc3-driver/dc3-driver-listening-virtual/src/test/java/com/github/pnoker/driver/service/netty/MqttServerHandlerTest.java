@@ -0,0 +1,113 @@
+package com.github.pnoker.driver.service.netty;
+
+import com.github.pnoker.driver.bean.NettyProperty;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.mqtt.MqttConnAckMessage;
+import io.netty.handler.codec.mqtt.MqttConnectReturnCode;
+import io.netty.handler.codec.mqtt.MqttFixedHeader;
+import io.netty.handler.codec.mqtt.MqttMessage;
+import io.netty.handler.codec.mqtt.MqttMessageBuilders;
+import io.netty.handler.codec.mqtt.MqttMessageIdVariableHeader;
+import io.netty.handler.codec.mqtt.MqttMessageType;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.netty.handler.codec.mqtt.MqttVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link MqttServerHandler}
+ *
+ * @author pnoker
+ */
+public class MqttServerHandlerTest {
+    private PointFrameParser pointFrameParser;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    public void setUp() {
+        NettyProperty nettyProperty = new NettyProperty();
+        nettyProperty.setFrameLength(PointFrameParserTest.FRAME_LENGTH);
+        pointFrameParser = mock(PointFrameParser.class);
+
+        MqttServerHandler handler = new MqttServerHandler();
+        ReflectionTestUtils.setField(handler, "nettyProperty", nettyProperty);
+        ReflectionTestUtils.setField(handler, "pointFrameParser", pointFrameParser);
+        channel = new EmbeddedChannel(handler);
+    }
+
+    @Test
+    public void acceptsConnect() {
+        channel.writeInbound(MqttMessageBuilders.connect()
+                .clientId("ListeningVirtualDevice")
+                .protocolVersion(MqttVersion.MQTT_3_1_1)
+                .build());
+
+        MqttConnAckMessage connAck = channel.readOutbound();
+        assertEquals(MqttMessageType.CONNACK, connAck.fixedHeader().messageType());
+        assertEquals(MqttConnectReturnCode.CONNECTION_ACCEPTED, connAck.variableHeader().connectReturnCode());
+        assertTrue(channel.isOpen());
+    }
+
+    @Test
+    public void parsesPublishPayloadWithoutAckAtQos0() {
+        ByteBuf payload = Unpooled.wrappedBuffer(PointFrameParserTest.frame(PointFrameParserTest.DEVICE_NAME, 45));
+
+        channel.writeInbound(publish(MqttQoS.AT_MOST_ONCE, -1, payload));
+
+        verify(pointFrameParser).parseFrames(eq(channel), eq(payload), eq(PointFrameParserTest.FRAME_LENGTH));
+        assertNull(channel.readOutbound());
+        assertEquals(0, payload.refCnt());
+    }
+
+    @Test
+    public void acknowledgesPublishAtQos1() {
+        channel.writeInbound(publish(MqttQoS.AT_LEAST_ONCE, 7, Unpooled.buffer()));
+
+        verify(pointFrameParser).parseFrames(eq(channel), any(ByteBuf.class), eq(PointFrameParserTest.FRAME_LENGTH));
+        assertAck(MqttMessageType.PUBACK, 7, channel.readOutbound());
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void completesPublishAtQos2() {
+        channel.writeInbound(publish(MqttQoS.EXACTLY_ONCE, 8, Unpooled.buffer()));
+        assertAck(MqttMessageType.PUBREC, 8, channel.readOutbound());
+
+        channel.writeInbound(new MqttMessage(
+                new MqttFixedHeader(MqttMessageType.PUBREL, false, MqttQoS.AT_LEAST_ONCE, false, 0),
+                MqttMessageIdVariableHeader.from(8)));
+        assertAck(MqttMessageType.PUBCOMP, 8, channel.readOutbound());
+
+        verify(pointFrameParser, times(1)).parseFrames(eq(channel), any(ByteBuf.class), eq(PointFrameParserTest.FRAME_LENGTH));
+    }
+
+    @Test
+    public void closesOnDisconnect() {
+        channel.writeInbound(new MqttMessage(new MqttFixedHeader(MqttMessageType.DISCONNECT, false, MqttQoS.AT_MOST_ONCE, false, 0)));
+
+        assertFalse(channel.isOpen());
+    }
+
+    private static MqttMessage publish(MqttQoS qos, int messageId, ByteBuf payload) {
+        return MqttMessageBuilders.publish()
+                .topicName("dc3/listening")
+                .qos(qos)
+                .messageId(messageId)
+                .retained(false)
+                .payload(payload)
+                .build();
+    }
+
+    private static void assertAck(MqttMessageType type, int messageId, MqttMessage message) {
+        assertEquals(type, message.fixedHeader().messageType());
+        assertEquals(messageId, ((MqttMessageIdVariableHeader) message.variableHeader()).messageId());
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.pnoker.driver.service.netty;
+
+import cn.hutool.core.util.CharsetUtil;
+import com.github.pnoker.common.model.Device;
+import com.github.pnoker.common.model.Point;
+import com.github.pnoker.common.sdk.bean.AttributeInfo;
+import com.github.pnoker.common.sdk.bean.DriverContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link PointFrameParser#parseFrames(Channel, ByteBuf, int)}
+ *
+ * @author pnoker
+ */
+public class PointFrameParserTest {
+    static final int FRAME_LENGTH = 69;
+    static final String DEVICE_NAME = "ListeningVirtualDevice";
+    static final long DEVICE_ID = 1L;
+    static final long POINT_ID = 2L;
+
+    private PointValuePublisher publisher;
+    private PointFrameParser parser;
+
+    @BeforeEach
+    public void setUp() {
+        publisher = mock(PointValuePublisher.class);
+        parser = parser(publisher);
+    }
+
+    @Test
+    public void parsesEveryFrameOfAMessage() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ByteBuf content = Unpooled.wrappedBuffer(frame(DEVICE_NAME, 45), frame(DEVICE_NAME, 46), frame(DEVICE_NAME, 47));
+
+        parser.parseFrames(channel, content, FRAME_LENGTH);
+
+        verify(publisher).publish(channel, DEVICE_ID, POINT_ID, "45");
+        verify(publisher).publish(channel, DEVICE_ID, POINT_ID, "46");
+        verify(publisher).publish(channel, DEVICE_ID, POINT_ID, "47");
+        verifyNoMoreInteractions(publisher);
+        assertEquals(0, content.readerIndex());
+    }
+
+    @Test
+    public void discardsTrailingBytes() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ByteBuf content = Unpooled.wrappedBuffer(frame(DEVICE_NAME, 45), new byte[FRAME_LENGTH - 1]);
+
+        parser.parseFrames(channel, content, FRAME_LENGTH);
+
+        verify(publisher).publish(channel, DEVICE_ID, POINT_ID, "45");
+        verifyNoMoreInteractions(publisher);
+    }
+
+    @Test
+    public void skipsFramesThatFailToParse() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ByteBuf content = Unpooled.wrappedBuffer(frame(DEVICE_NAME, 45), frame("UnknownVirtualDevice00", 46), frame(DEVICE_NAME, 47));
+
+        parser.parseFrames(channel, content, FRAME_LENGTH);
+
+        verify(publisher).publish(channel, DEVICE_ID, POINT_ID, "45");
+        verify(publisher).publish(channel, DEVICE_ID, POINT_ID, "47");
+        verify(publisher, never()).publish(any(Channel.class), any(), any(), eq("46"));
+    }
+
+    @Test
+    public void parsesFramesFromTheReaderIndex() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ByteBuf content = Unpooled.wrappedBuffer(new byte[3], frame(DEVICE_NAME, 45));
+        content.skipBytes(3);
+
+        parser.parseFrames(channel, content, FRAME_LENGTH);
+
+        verify(publisher).publish(channel, DEVICE_ID, POINT_ID, "45");
+    }
+
+    /**
+     * 解析器只配置设备 ListeningVirtualDevice 的方向位号（关键字 62，字节 43~47）
+     */
+    static PointFrameParser parser(PointValuePublisher publisher) {
+        Map<String, AttributeInfo> infoMap = new HashMap<>(4);
+        infoMap.put("key", new AttributeInfo("62", "string"));
+        infoMap.put("start", new AttributeInfo("43", "int"));
+        infoMap.put("end", new AttributeInfo("47", "int"));
+        Map<Long, Map<String, AttributeInfo>> pointInfoMap = new HashMap<>(2);
+        pointInfoMap.put(POINT_ID, infoMap);
+        Map<Long, Map<Long, Map<String, AttributeInfo>>> devicePointInfoMap = new HashMap<>(2);
+        devicePointInfoMap.put(DEVICE_ID, pointInfoMap);
+
+        Device device = new Device().setName(DEVICE_NAME).setProfileId(3L);
+        Map<Long, Device> deviceMap = new HashMap<>(2);
+        deviceMap.put(DEVICE_ID, device);
+        Map<String, Long> deviceNameMap = new HashMap<>(2);
+        deviceNameMap.put(DEVICE_NAME, DEVICE_ID);
+        Map<Long, Point> pointMap = new HashMap<>(2);
+        pointMap.put(POINT_ID, new Point().setName("方向"));
+        Map<Long, Map<Long, Point>> profilePointMap = new HashMap<>(2);
+        profilePointMap.put(3L, pointMap);
+
+        DriverContext driverContext = new DriverContext();
+        driverContext.setDeviceMap(deviceMap);
+        driverContext.setDeviceNameMap(deviceNameMap);
+        driverContext.setProfilePointMap(profilePointMap);
+        driverContext.setDevicePointInfoMap(devicePointInfoMap);
+
+        PointFrameParser parser = new PointFrameParser();
+        ReflectionTestUtils.setField(parser, "pointValuePublisher", publisher);
+        ReflectionTestUtils.setField(parser, "driverContext", driverContext);
+        parser.init();
+        return parser;
+    }
+
+    /**
+     * 按 PointFrameParser 中的格式组装一帧报文，只填写设备名称、关键字和方向
+     */
+    static byte[] frame(String name, int direction) {
+        ByteBuf frame = Unpooled.buffer(FRAME_LENGTH);
+        frame.writeBytes(name.getBytes(CharsetUtil.CHARSET_ISO_8859_1), 0, PointFrameParser.NAME_LENGTH);
+        frame.writeByte(0x62);
+        frame.writeZero(43 - frame.writerIndex());
+        frame.writeInt(direction);
+        frame.writeZero(FRAME_LENGTH - frame.writerIndex());
+        return frame.array();
+    }
+}
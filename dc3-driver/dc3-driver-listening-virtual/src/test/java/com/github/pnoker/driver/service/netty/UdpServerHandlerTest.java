@@ -0,0 +1,66 @@
+package com.github.pnoker.driver.service.netty;
+
+import com.github.pnoker.driver.bean.NettyProperty;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.DatagramPacket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+
+import static com.github.pnoker.driver.service.netty.PointFrameParserTest.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link UdpServerHandler}
+ *
+ * @author pnoker
+ */
+public class UdpServerHandlerTest {
+    private PointValuePublisher publisher;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    public void setUp() {
+        NettyProperty nettyProperty = new NettyProperty();
+        nettyProperty.setFrameLength(FRAME_LENGTH);
+        publisher = mock(PointValuePublisher.class);
+
+        UdpServerHandler handler = new UdpServerHandler();
+        ReflectionTestUtils.setField(handler, "nettyProperty", nettyProperty);
+        ReflectionTestUtils.setField(handler, "pointFrameParser", parser(publisher));
+        channel = new EmbeddedChannel(handler);
+    }
+
+    @Test
+    public void parsesEveryFrameOfADatagramAndReleasesIt() {
+        ByteBuf content = Unpooled.wrappedBuffer(frame(DEVICE_NAME, 45), frame(DEVICE_NAME, 46), new byte[5]);
+
+        channel.writeInbound(datagram(content));
+
+        verify(publisher).publish(channel, DEVICE_ID, POINT_ID, "45");
+        verify(publisher).publish(channel, DEVICE_ID, POINT_ID, "46");
+        verifyNoMoreInteractions(publisher);
+        assertEquals(0, content.refCnt());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void keepsTheChannelOpenOnBadDatagrams() {
+        channel.writeInbound(datagram(Unpooled.wrappedBuffer(frame("UnknownVirtualDevice00", 45))));
+        channel.pipeline().fireExceptionCaught(new IllegalStateException("bad datagram"));
+
+        verifyNoInteractions(publisher);
+        assertTrue(channel.isOpen());
+    }
+
+    private static DatagramPacket datagram(ByteBuf content) {
+        return new DatagramPacket(content, new InetSocketAddress("127.0.0.1", 6271), new InetSocketAddress("127.0.0.1", 50000));
+    }
+}
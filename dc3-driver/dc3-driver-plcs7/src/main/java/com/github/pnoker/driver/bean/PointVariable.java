@@ -1,5 +1,6 @@
 package com.github.pnoker.driver.bean;
 
+import com.github.pnoker.common.sdk.bean.AttributeInfo;
 import com.github.s7connector.api.S7Type;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,6 +8,9 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 
 import java.util.Date;
+import java.util.Map;
+
+import static com.github.pnoker.common.sdk.util.DriverUtils.attribute;
 
 /**
  * @author pnoker
@@ -32,6 +36,21 @@ public class PointVariable {
 
     }
 
+    /**
+     * 通过位号配置信息构建
+     *
+     * @param pointInfo
+     * @return
+     */
+    public static PointVariable of(Map<String, AttributeInfo> pointInfo) {
+        int dbNum = attribute(pointInfo, "dbNum");
+        int byteOffset = attribute(pointInfo, "byteOffset");
+        int bitOffset = attribute(pointInfo, "bitOffset");
+        int blockSize = attribute(pointInfo, "blockSize");
+        String type = attribute(pointInfo, "type");
+        return new PointVariable(dbNum, byteOffset, bitOffset, blockSize, type);
+    }
+
     private void getS7TypeAndType(String s7Type) {
         switch (s7Type) {
             case "bool":
@@ -72,11 +91,11 @@ public class PointVariable {
                 break;
             case "datetime":
                 this.type = S7Type.DATE_AND_TIME;
-                this.fieldType = Long.class;
+                this.fieldType = Date.class;
                 break;
             default:
                 this.type = S7Type.STRING;
-                this.fieldType = Boolean.class;
+                this.fieldType = String.class;
                 break;
         }
     }
@@ -0,0 +1,51 @@
+package com.github.pnoker.driver.bean;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 驱动配置文件 plcs7.pool 字段内容
+ *
+ * @author pnoker
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "plcs7.pool")
+public class S7PoolProperty {
+    /**
+     * 每个 PLC 的最大连接数，需要 CPU 有足够的连接资源
+     */
+    private int size = 1;
+    /**
+     * 获取连接的最长等待时间
+     */
+    private Duration maxWait = Duration.ofSeconds(3);
+    /**
+     * 连接、读写超时时间
+     */
+    private Duration timeout = Duration.ofSeconds(2);
+    /**
+     * 空闲超过该时间的连接被关闭
+     */
+    private Duration idleTimeout = Duration.ofMinutes(5);
+    /**
+     * 空闲超过该时间的连接进行存活探测
+     */
+    private Duration probeInterval = Duration.ofSeconds(30);
+    /**
+     * 重连退避的初始与最大间隔
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(1);
+    private Duration maxReconnectDelay = Duration.ofMinutes(1);
+    /**
+     * 使用共享 NIO Selector 代替阻塞 Socket
+     */
+    private boolean nio = false;
+    /**
+     * 每个连接同时发送的请求数，受 PLC 协商的并行任务数限制，大于 1 时使用异步 NIO 连接
+     */
+    private int pipeline = 1;
+}
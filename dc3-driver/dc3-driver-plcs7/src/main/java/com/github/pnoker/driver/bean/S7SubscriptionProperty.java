@@ -0,0 +1,30 @@
+package com.github.pnoker.driver.bean;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 驱动配置文件 plcs7.subscription 字段内容
+ *
+ * @author pnoker
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "plcs7.subscription")
+public class S7SubscriptionProperty {
+    /**
+     * 开启订阅模式后由订阅周期代替 custom 调度采集，只上报变化的位号值
+     */
+    private boolean enable = false;
+    /**
+     * 订阅周期，每个设备的全部位号在一个周期内读取一次
+     */
+    private Duration cycle = Duration.ofSeconds(1);
+    /**
+     * 位号值未变化超过该时间时重新上报一次，0 表示只上报变化
+     */
+    private Duration refresh = Duration.ofMinutes(5);
+}
@@ -1,25 +1,28 @@
 package com.github.pnoker.driver.service.impl;
 
+import cn.hutool.core.convert.Convert;
+import com.github.pnoker.common.bean.driver.PointValue;
 import com.github.pnoker.common.exception.ServiceException;
 import com.github.pnoker.common.model.Device;
 import com.github.pnoker.common.model.Point;
 import com.github.pnoker.common.sdk.bean.AttributeInfo;
 import com.github.pnoker.common.sdk.bean.DriverContext;
 import com.github.pnoker.common.sdk.service.DriverService;
+import com.github.pnoker.common.sdk.service.pool.ThreadPool;
 import com.github.pnoker.common.sdk.service.rabbit.PointValueService;
 import com.github.pnoker.driver.bean.PointVariable;
-import com.github.s7connector.api.S7Connector;
-import com.github.s7connector.api.S7Serializer;
-import com.github.s7connector.api.factory.S7ConnectorFactory;
-import com.github.s7connector.api.factory.S7SerializerFactory;
+import com.github.pnoker.driver.service.pool.S7ConnectorPool;
+import com.github.pnoker.driver.service.subscription.S7Subscription;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-
-import static com.github.pnoker.common.sdk.util.DriverUtils.attribute;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author pnoker
@@ -31,73 +34,121 @@ public class DriverServiceImpl implements DriverService {
     private PointValueService pointValueService;
     @Resource
     private DriverContext driverContext;
+    @Resource
+    private ThreadPool threadPool;
+    @Resource
+    private S7ConnectorPool s7ConnectorPool;
+    @Resource
+    private S7Subscription s7Subscription;
 
     /**
-     * Plc Connector Map
+     * deviceId,running
      */
-    private volatile Map<Long, S7Connector> s7ConnectorMap;
+    private final Map<Long, AtomicBoolean> runningMap = new ConcurrentHashMap<>(16);
 
     @Override
     public void initial() {
-        s7ConnectorMap = new ConcurrentHashMap<>(16);
     }
 
     @Override
     public String read(Map<String, AttributeInfo> driverInfo, Map<String, AttributeInfo> pointInfo, Device device, Point point) {
-        S7Serializer serializer = getS7Serializer(device.getId(), driverInfo);
-        PointVariable pointVariable = getPointVariable(pointInfo);
-        return String.valueOf(serializer.dispense(pointVariable));
+        PointVariable pointVariable = PointVariable.of(pointInfo);
+        return String.valueOf(s7ConnectorPool.execute(driverInfo, serializer -> serializer.dispense(pointVariable)));
     }
 
     @Override
     public Boolean write(Map<String, AttributeInfo> driverInfo, Map<String, AttributeInfo> pointInfo, AttributeInfo value) {
-        return false;
+        return write(driverInfo, Collections.singletonList(pointInfo), Collections.singletonList(value)).get(0);
     }
 
+    /**
+     * 批量写入，多个位号按 PDU 长度打包为尽量少的写请求，适用于配方下发等场景
+     *
+     * @param driverInfo
+     * @param pointInfos
+     * @param values
+     * @return 每个位号的写入结果
+     */
     @Override
-    public void schedule() {
+    public List<Boolean> write(Map<String, AttributeInfo> driverInfo, List<Map<String, AttributeInfo>> pointInfos, List<AttributeInfo> values) {
+        List<PointVariable> pointVariables = new ArrayList<>(pointInfos.size());
+        List<Object> pointValues = new ArrayList<>(pointInfos.size());
+        for (int i = 0; i < pointInfos.size(); i++) {
+            PointVariable pointVariable = PointVariable.of(pointInfos.get(i));
+            Object pointValue = Convert.convert(pointVariable.getFieldType(), values.get(i).getValue());
+            if (null == pointValue) {
+                throw new ServiceException("invalid value(" + values.get(i).getValue() + ") for " + pointVariable.getType());
+            }
+            pointVariables.add(pointVariable);
+            pointValues.add(pointValue);
+        }
+        int[] results = s7ConnectorPool.execute(driverInfo, serializer -> serializer.store(pointVariables, pointValues));
 
+        List<Boolean> writeResults = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != 0) {
+                log.error("write value({}) fail, plc returned {}", values.get(i).getValue(), results[i]);
+            }
+            writeResults.add(results[i] == 0);
+        }
+        return writeResults;
     }
 
     /**
-     * 获取 plcs7 serializer
-     * 先从缓存中取，没有就新建
-     *
-     * @param deviceId
-     * @param driverInfo
-     * @return
+     * 批量采集，每个设备的全部位号按 PDU 长度打包读取，相邻数据块区间合并为一次读取
+     * 开启订阅模式时由 S7Subscription 按订阅周期采集，上一周期尚未完成的设备本周期跳过
      */
-    private S7Serializer getS7Serializer(Long deviceId, Map<String, AttributeInfo> driverInfo) {
-        S7Connector s7Connector = s7ConnectorMap.get(deviceId);
-        if (null == s7Connector) {
-            String host = attribute(driverInfo, "host");
-            Integer port = attribute(driverInfo, "port");
-            try {
-                s7Connector = S7ConnectorFactory.buildTCPConnector().withHost(host).withPort(port).build();
-            } catch (Exception e) {
-                throw new ServiceException("new s7connector fail" + e.getMessage());
-            }
+    @Override
+    public void schedule() {
+        if (s7Subscription.isEnable()) {
+            return;
         }
-        if (null != s7Connector) {
-            s7ConnectorMap.put(deviceId, s7Connector);
-            return S7SerializerFactory.buildSerializer(s7Connector);
+        Map<Long, Map<Long, Map<String, AttributeInfo>>> pointInfoMap = driverContext.getDevicePointInfoMap();
+        if (null == pointInfoMap) {
+            return;
+        }
+        runningMap.keySet().retainAll(pointInfoMap.keySet());
+        for (Long deviceId : pointInfoMap.keySet()) {
+            AtomicBoolean running = runningMap.computeIfAbsent(deviceId, id -> new AtomicBoolean());
+            if (!running.compareAndSet(false, true)) {
+                continue;
+            }
+            threadPool.execute(() -> {
+                try {
+                    read(deviceId, pointInfoMap.get(deviceId));
+                } catch (Exception e) {
+                    log.error("read device({}) fail,{}", deviceId, e.getMessage());
+                } finally {
+                    running.set(false);
+                }
+            }, () -> running.set(false));
         }
-        throw new ServiceException("new s7connector fail");
     }
 
     /**
-     * 获取位号变量信息
+     * 批量读取设备的全部位号并发送
      *
-     * @param pointInfo
-     * @return
+     * @param deviceId
+     * @param pointInfoMap
      */
-    private PointVariable getPointVariable(Map<String, AttributeInfo> pointInfo) {
-        int dbNum = attribute(pointInfo, "dbNum");
-        int byteOffset = attribute(pointInfo, "byteOffset");
-        int bitOffset = attribute(pointInfo, "bitOffset");
-        int blockSize = attribute(pointInfo, "blockSize");
-        String type = attribute(pointInfo, "type");
-        return new PointVariable(dbNum, byteOffset, bitOffset, blockSize, type);
+    private void read(Long deviceId, Map<Long, Map<String, AttributeInfo>> pointInfoMap) {
+        Device device = driverContext.getDevice(deviceId);
+
+        List<Long> pointIds = new ArrayList<>(pointInfoMap.size());
+        List<PointVariable> pointVariables = new ArrayList<>(pointInfoMap.size());
+        pointInfoMap.forEach((pointId, pointInfo) -> {
+            pointIds.add(pointId);
+            pointVariables.add(PointVariable.of(pointInfo));
+        });
+
+        List<Object> values = s7ConnectorPool.execute(driverContext.getProfileDriverInfo(device.getProfileId()), serializer -> serializer.dispense(pointVariables));
+        List<PointValue> pointValues = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            if (null != values.get(i)) {
+                pointValues.add(pointValueService.convertValue(deviceId, pointIds.get(i), String.valueOf(values.get(i))));
+            }
+        }
+        pointValueService.pointValueSender(pointValues);
     }
 
 }
@@ -0,0 +1,318 @@
+package com.github.pnoker.driver.service.pool;
+
+import com.github.pnoker.common.exception.ServiceException;
+import com.github.pnoker.common.sdk.bean.AttributeInfo;
+import com.github.pnoker.driver.bean.S7PoolProperty;
+import com.github.s7connector.api.DaveArea;
+import com.github.s7connector.api.S7Connector;
+import com.github.s7connector.api.S7Range;
+import com.github.s7connector.api.S7Serializer;
+import com.github.s7connector.api.factory.S7ConnectorFactory;
+import com.github.s7connector.api.factory.S7SerializerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.github.pnoker.common.sdk.util.DriverUtils.attribute;
+
+/**
+ * Plc S7 连接池
+ * 每个 PLC（host:port）一个连接池，支持存活探测、指数退避重连以及空闲连接回收
+ *
+ * @author pnoker
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties({S7PoolProperty.class})
+public class S7ConnectorPool {
+    @Resource
+    private S7PoolProperty poolProperty;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 探测时读取的区域，地址不存在时 PLC 也会正常应答，只有链路故障才会失败
+     */
+    private static final S7Range PROBE_RANGE = new S7Range(DaveArea.FLAGS, 0, 0, 1);
+
+    /**
+     * host:port,plcPool
+     */
+    private final Map<String, PlcPool> plcPoolMap = new ConcurrentHashMap<>(16);
+
+    private ScheduledExecutorService maintainExecutor;
+
+    @PostConstruct
+    public void initial() {
+        maintainExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dc3-plcs7-pool-maintain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, Math.min(poolProperty.getProbeInterval().getSeconds(), poolProperty.getIdleTimeout().getSeconds()));
+        maintainExecutor.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        maintainExecutor.shutdownNow();
+        plcPoolMap.values().forEach(PlcPool::close);
+    }
+
+    /**
+     * 从连接池获取连接执行操作，执行完成后归还
+     * 链路故障的连接会被关闭，下次获取时重新建立
+     *
+     * @param host
+     * @param port
+     * @param action
+     * @param <T>
+     * @return
+     */
+    public <T> T execute(String host, int port, Function<S7Serializer, T> action) {
+        PlcPool plcPool = plcPoolMap.computeIfAbsent(host + ":" + port, key -> new PlcPool(host, port));
+        PooledConnector pooled = plcPool.borrow();
+        try {
+            return action.apply(pooled.serializer);
+        } finally {
+            plcPool.release(pooled);
+        }
+    }
+
+    /**
+     * 按驱动配置中的 host、port 从连接池获取连接执行操作
+     *
+     * @param driverInfo
+     * @param action
+     * @param <T>
+     * @return
+     */
+    public <T> T execute(Map<String, AttributeInfo> driverInfo, Function<S7Serializer, T> action) {
+        String host = attribute(driverInfo, "host");
+        Integer port = attribute(driverInfo, "port");
+        return execute(host, port, action);
+    }
+
+    /**
+     * 空闲连接回收与存活探测
+     */
+    private void maintain() {
+        long now = System.nanoTime();
+        for (PlcPool plcPool : plcPoolMap.values()) {
+            try {
+                plcPool.maintain(now);
+            } catch (Exception e) {
+                log.error("maintain plc({}) pool fail,{}", plcPool.name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 池中的连接
+     */
+    private static class PooledConnector {
+        private final S7Connector connector;
+        private final S7Serializer serializer;
+        private volatile long lastUsed = System.nanoTime();
+
+        private PooledConnector(S7Connector connector) {
+            this.connector = connector;
+            this.serializer = S7SerializerFactory.buildSerializer(connector);
+        }
+    }
+
+    /**
+     * 单个 PLC 的连接池
+     */
+    private class PlcPool {
+        private final String host;
+        private final int port;
+        private final String name;
+        private final Semaphore permits;
+        private final LinkedBlockingDeque<PooledConnector> idle = new LinkedBlockingDeque<>();
+        private final AtomicInteger open = new AtomicInteger();
+
+        /**
+         * 重连退避，nextConnectTime 之前不再尝试建立连接
+         */
+        private long reconnectDelay;
+        private long nextConnectTime;
+
+        private final Counter createdCounter;
+        private final Counter closedCounter;
+        private final Counter failedCounter;
+        private final Timer waitTimer;
+
+        private PlcPool(String host, int port) {
+            this.host = host;
+            this.port = port;
+            this.name = host + ":" + port;
+            this.permits = new Semaphore(Math.max(1, poolProperty.getSize()), true);
+            this.reconnectDelay = poolProperty.getReconnectDelay().toNanos();
+
+            Tags tags = Tags.of("plc", name);
+            this.createdCounter = meterRegistry.counter("dc3.plcs7.connection.created", tags);
+            this.closedCounter = meterRegistry.counter("dc3.plcs7.connection.closed", tags);
+            this.failedCounter = meterRegistry.counter("dc3.plcs7.connection.failed", tags);
+            this.waitTimer = meterRegistry.timer("dc3.plcs7.connection.wait", tags);
+            Gauge.builder("dc3.plcs7.connection.open", open, AtomicInteger::get).tags(tags).register(meterRegistry);
+            Gauge.builder("dc3.plcs7.connection.idle", idle, LinkedBlockingDeque::size).tags(tags).register(meterRegistry);
+        }
+
+        private PooledConnector borrow() {
+            long start = System.nanoTime();
+            try {
+                if (!permits.tryAcquire(poolProperty.getMaxWait().toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new ServiceException("plc(" + name + ") no connection available within " + poolProperty.getMaxWait().toMillis() + "ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceException("plc(" + name + ") interrupted while waiting for connection");
+            } finally {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+            PooledConnector pooled = idle.pollFirst();
+            if (null != pooled) {
+                return pooled;
+            }
+            try {
+                return connect();
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void release(PooledConnector pooled) {
+            try {
+                if (pooled.connector.isAlive()) {
+                    pooled.lastUsed = System.nanoTime();
+                    idle.offerFirst(pooled);
+                } else {
+                    log.warn("plc({}) connection broken, close it", name);
+                    close(pooled);
+                }
+            } finally {
+                permits.release();
+            }
+        }
+
+        private PooledConnector connect() {
+            synchronized (this) {
+                long wait = nextConnectTime - System.nanoTime();
+                if (wait > 0) {
+                    throw new ServiceException("plc(" + name + ") reconnect in " + TimeUnit.NANOSECONDS.toMillis(wait) + "ms");
+                }
+            }
+            try {
+                S7Connector connector = S7ConnectorFactory.buildTCPConnector()
+                        .withHost(host).withPort(port)
+                        .withTimeout((int) poolProperty.getTimeout().toMillis())
+                        .withNio(poolProperty.isNio())
+                        .withPipeline(poolProperty.getPipeline())
+                        .build();
+                synchronized (this) {
+                    reconnectDelay = poolProperty.getReconnectDelay().toNanos();
+                    nextConnectTime = 0;
+                }
+                open.incrementAndGet();
+                createdCounter.increment();
+                log.debug("plc({}) connection created", name);
+                return new PooledConnector(connector);
+            } catch (Exception e) {
+                failedCounter.increment();
+                synchronized (this) {
+                    nextConnectTime = System.nanoTime() + reconnectDelay;
+                    log.error("plc({}) connect fail, retry in {}ms,{}", name, TimeUnit.NANOSECONDS.toMillis(reconnectDelay), e.getMessage());
+                    reconnectDelay = Math.min(reconnectDelay * 2, poolProperty.getMaxReconnectDelay().toNanos());
+                }
+                throw new ServiceException("plc(" + name + ") connect fail," + e.getMessage());
+            }
+        }
+
+        private void maintain(long now) {
+            long idleTimeout = poolProperty.getIdleTimeout().toNanos();
+            long probeInterval = poolProperty.getProbeInterval().toNanos();
+            Iterator<PooledConnector> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                PooledConnector pooled = iterator.next();
+                long idleTime = now - pooled.lastUsed;
+                if (idleTime < probeInterval && idleTime < idleTimeout) {
+                    continue;
+                }
+                if (idleTime >= idleTimeout) {
+                    if (idle.remove(pooled)) {
+                        log.debug("plc({}) connection idle for {}s, close it", name, TimeUnit.NANOSECONDS.toSeconds(idleTime));
+                        close(pooled);
+                    }
+                    continue;
+                }
+                // 探测占用一个许可，连接池繁忙时跳过，避免借出线程因空闲连接被取走而新建连接
+                if (!permits.tryAcquire()) {
+                    return;
+                }
+                try {
+                    if (!idle.remove(pooled)) {
+                        continue;
+                    }
+                    if (probe(pooled)) {
+                        pooled.lastUsed = System.nanoTime();
+                        idle.offerLast(pooled);
+                    } else {
+                        log.warn("plc({}) connection probe fail, close it", name);
+                        close(pooled);
+                    }
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+
+        private boolean probe(PooledConnector pooled) {
+            try {
+                pooled.connector.read(Collections.singletonList(PROBE_RANGE));
+            } catch (Exception e) {
+                return false;
+            }
+            return pooled.connector.isAlive();
+        }
+
+        private void close(PooledConnector pooled) {
+            try {
+                pooled.connector.close();
+            } catch (Exception e) {
+                log.warn("plc({}) connection close fail,{}", name, e.getMessage());
+            }
+            open.decrementAndGet();
+            closedCounter.increment();
+        }
+
+        private void close() {
+            PooledConnector pooled;
+            while (null != (pooled = idle.pollFirst())) {
+                close(pooled);
+            }
+        }
+    }
+}
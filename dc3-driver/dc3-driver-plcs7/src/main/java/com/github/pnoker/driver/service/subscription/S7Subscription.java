@@ -0,0 +1,192 @@
+package com.github.pnoker.driver.service.subscription;
+
+import com.github.pnoker.common.bean.driver.PointValue;
+import com.github.pnoker.common.model.Device;
+import com.github.pnoker.common.sdk.bean.AttributeInfo;
+import com.github.pnoker.common.sdk.bean.DriverContext;
+import com.github.pnoker.common.sdk.service.pool.ThreadPool;
+import com.github.pnoker.common.sdk.service.rabbit.PointValueService;
+import com.github.pnoker.driver.bean.PointVariable;
+import com.github.pnoker.driver.bean.S7SubscriptionProperty;
+import com.github.pnoker.driver.service.pool.S7ConnectorPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plc S7 订阅模式
+ * 按订阅周期读取每个设备的全部位号，只将变化的位号值发送给 PointValueService，
+ * 未变化的位号值在 refresh 时间后重新上报一次
+ *
+ * @author pnoker
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties({S7SubscriptionProperty.class})
+public class S7Subscription {
+    @Resource
+    private S7SubscriptionProperty subscriptionProperty;
+    @Resource
+    private DriverContext driverContext;
+    @Resource
+    private ThreadPool threadPool;
+    @Resource
+    private S7ConnectorPool s7ConnectorPool;
+    @Resource
+    private PointValueService pointValueService;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * deviceId,subscribed device
+     */
+    private final Map<Long, SubscribedDevice> deviceMap = new ConcurrentHashMap<>(16);
+
+    private ScheduledExecutorService cycleExecutor;
+    private Counter sentCounter;
+    private Counter suppressedCounter;
+
+    @PostConstruct
+    public void initial() {
+        if (!subscriptionProperty.isEnable()) {
+            return;
+        }
+        sentCounter = meterRegistry.counter("dc3.plcs7.subscription.sent");
+        suppressedCounter = meterRegistry.counter("dc3.plcs7.subscription.suppressed");
+        cycleExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dc3-plcs7-subscription");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long cycle = Math.max(1, subscriptionProperty.getCycle().toMillis());
+        cycleExecutor.scheduleAtFixedRate(this::cycle, cycle, cycle, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (null != cycleExecutor) {
+            cycleExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 是否开启订阅模式
+     *
+     * @return
+     */
+    public boolean isEnable() {
+        return subscriptionProperty.isEnable();
+    }
+
+    /**
+     * 每个订阅周期将设备分发到线程池读取，上一周期尚未完成的设备本周期跳过，线程池拒绝时释放设备以便下一周期重试
+     */
+    private void cycle() {
+        Map<Long, Map<Long, Map<String, AttributeInfo>>> pointInfoMap = driverContext.getDevicePointInfoMap();
+        if (null == pointInfoMap) {
+            return;
+        }
+        deviceMap.keySet().retainAll(pointInfoMap.keySet());
+        for (Map.Entry<Long, Map<Long, Map<String, AttributeInfo>>> entry : pointInfoMap.entrySet()) {
+            SubscribedDevice subscribed = deviceMap.computeIfAbsent(entry.getKey(), SubscribedDevice::new);
+            if (!subscribed.running.compareAndSet(false, true)) {
+                continue;
+            }
+            threadPool.execute(() -> {
+                try {
+                    read(subscribed, entry.getValue());
+                } catch (Exception e) {
+                    log.error("subscription read device({}) fail,{}", subscribed.deviceId, e.getMessage());
+                } finally {
+                    subscribed.running.set(false);
+                }
+            }, () -> subscribed.running.set(false));
+        }
+    }
+
+    /**
+     * 读取设备的全部位号，只发送变化或超过 refresh 时间未上报的位号值
+     *
+     * @param subscribed
+     * @param pointInfoMap
+     */
+    private void read(SubscribedDevice subscribed, Map<Long, Map<String, AttributeInfo>> pointInfoMap) {
+        Device device = driverContext.getDevice(subscribed.deviceId);
+
+        List<Long> pointIds = new ArrayList<>(pointInfoMap.size());
+        List<PointVariable> pointVariables = new ArrayList<>(pointInfoMap.size());
+        pointInfoMap.forEach((pointId, pointInfo) -> {
+            pointIds.add(pointId);
+            pointVariables.add(PointVariable.of(pointInfo));
+        });
+
+        List<Object> values = s7ConnectorPool.execute(driverContext.getProfileDriverInfo(device.getProfileId()), serializer -> serializer.dispense(pointVariables));
+        long now = System.nanoTime();
+        long refresh = subscriptionProperty.getRefresh().toNanos();
+        List<PointValue> pointValues = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (null == value) {
+                continue;
+            }
+            Long pointId = pointIds.get(i);
+            LastValue last = subscribed.lastValueMap.get(pointId);
+            if (null != last && Objects.equals(last.value, value) && (refresh <= 0 || now - last.sentTime < refresh)) {
+                suppressedCounter.increment();
+                continue;
+            }
+            subscribed.lastValueMap.put(pointId, new LastValue(value, now));
+            pointValues.add(pointValueService.convertValue(subscribed.deviceId, pointId, String.valueOf(value)));
+        }
+        subscribed.lastValueMap.keySet().retainAll(pointInfoMap.keySet());
+
+        if (!pointValues.isEmpty()) {
+            sentCounter.increment(pointValues.size());
+            pointValueService.pointValueSender(pointValues);
+        }
+    }
+
+    /**
+     * 订阅的设备
+     */
+    private static class SubscribedDevice {
+        private final Long deviceId;
+        private final AtomicBoolean running = new AtomicBoolean();
+        /**
+         * pointId,last sent value
+         */
+        private final Map<Long, LastValue> lastValueMap = new ConcurrentHashMap<>(16);
+
+        private SubscribedDevice(Long deviceId) {
+            this.deviceId = deviceId;
+        }
+    }
+
+    /**
+     * 最近一次上报的位号值
+     */
+    private static class LastValue {
+        private final Object value;
+        private final long sentTime;
+
+        private LastValue(Object value, long sentTime) {
+            this.value = value;
+            this.sentTime = sentTime;
+        }
+    }
+}
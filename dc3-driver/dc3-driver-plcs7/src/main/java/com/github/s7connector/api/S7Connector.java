@@ -16,6 +16,7 @@ limitations under the License.
 package com.github.s7connector.api;
 
 import java.io.Closeable;
+import java.util.List;
 
 /**
  * @author Thomas Rudin
@@ -32,6 +33,33 @@ public interface S7Connector extends Closeable {
      */
     public byte[] read(DaveArea area, int areaNumber, int bytes, int offset);
 
+    /**
+     * Reads several ranges, packing as many of them into one request as the
+     * negotiated PDU length allows
+     *
+     * @param ranges
+     * @return one buffer per range in the same order, null if the plc rejected the range
+     */
+    public List<byte[]> read(List<S7Range> ranges);
+
+    /**
+     * Reads several ranges into one buffer, range i starts at the sum of the
+     * lengths of the ranges before it
+     *
+     * @param ranges
+     * @param buffer  destination, at least as long as all ranges together
+     * @param results result per range, 0 or the error code the plc returned
+     */
+    public void read(List<S7Range> ranges, byte[] buffer, int[] results);
+
+    /**
+     * False once a request failed on the transport (timeout, short or
+     * unexpected answer), the connection should be dropped then
+     *
+     * @return
+     */
+    public boolean isAlive();
+
     /**
      * Writes an area
      *
@@ -42,4 +70,15 @@ public interface S7Connector extends Closeable {
      */
     public void write(DaveArea area, int areaNumber, int offset, byte[] buffer);
 
+    /**
+     * Writes several ranges, packed into as few requests as the pdu allows.
+     * The data of range i starts at the sum of the lengths of the ranges
+     * before it, a bit range takes one byte holding 0 or 1.
+     *
+     * @param ranges
+     * @param buffer  source, at least as long as all ranges together
+     * @param results result per range, 0 or the error code the plc returned
+     */
+    public void write(List<S7Range> ranges, byte[] buffer, int[] results);
+
 }
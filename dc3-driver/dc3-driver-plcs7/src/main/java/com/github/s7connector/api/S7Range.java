@@ -0,0 +1,107 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.api;
+
+/**
+ * A contiguous range inside one area, used for multi-variable reads and writes.
+ * A bit range addresses a single bit, its data is one byte holding 0 or 1.
+ *
+ * @author pnoker
+ */
+public final class S7Range {
+
+    /**
+     * The area
+     */
+    private final DaveArea area;
+
+    /**
+     * The area number (db number for DB)
+     */
+    private final int areaNumber;
+
+    /**
+     * The byte offset of the first byte
+     */
+    private final int offset;
+
+    /**
+     * The length in bytes
+     */
+    private final int bytes;
+
+    /**
+     * The bit offset of a bit range, -1 for a byte range
+     */
+    private final int bitOffset;
+
+    public S7Range(final DaveArea area, final int areaNumber, final int offset, final int bytes) {
+        this(area, areaNumber, offset, bytes, -1);
+    }
+
+    private S7Range(final DaveArea area, final int areaNumber, final int offset, final int bytes, final int bitOffset) {
+        this.area = area;
+        this.areaNumber = areaNumber;
+        this.offset = offset;
+        this.bytes = bytes;
+        this.bitOffset = bitOffset;
+    }
+
+    /**
+     * A single bit, written without touching the other bits of its byte
+     *
+     * @param area       the area
+     * @param areaNumber the area number
+     * @param offset     the byte offset
+     * @param bitOffset  the bit offset, 0 to 7
+     * @return the range
+     */
+    public static S7Range bit(final DaveArea area, final int areaNumber, final int offset, final int bitOffset) {
+        return new S7Range(area, areaNumber, offset, 1, bitOffset & 0x07);
+    }
+
+    public DaveArea getArea() {
+        return this.area;
+    }
+
+    public int getAreaNumber() {
+        return this.areaNumber;
+    }
+
+    public int getOffset() {
+        return this.offset;
+    }
+
+    public int getBytes() {
+        return this.bytes;
+    }
+
+    public int getBitOffset() {
+        return this.bitOffset;
+    }
+
+    public boolean isBit() {
+        return this.bitOffset >= 0;
+    }
+
+    @Override
+    public String toString() {
+        if (this.isBit()) {
+            return this.area + "(" + this.areaNumber + ")[" + this.offset + "." + this.bitOffset + "]";
+        }
+        return this.area + "(" + this.areaNumber + ")[" + this.offset + "," + (this.offset + this.bytes) + ")";
+    }
+}
@@ -18,6 +18,8 @@ package com.github.s7connector.api;
 import com.github.pnoker.driver.bean.PointVariable;
 import com.github.s7connector.exception.S7Exception;
 
+import java.util.List;
+
 /**
  * @author Thomas Rudin
  */
@@ -58,6 +60,16 @@ public interface S7Serializer {
      */
     Object dispense(PointVariable pointVariable) throws S7Exception;
 
+    /**
+     * Dispense several points, adjacent or overlapping ranges of the same
+     * data block are read at once.
+     *
+     * @param pointVariables the points
+     * @return one value per point in the same order, null if the point could not be read
+     * @throws S7Exception the s7 exception
+     */
+    List<Object> dispense(List<PointVariable> pointVariables) throws S7Exception;
+
     /**
      * Stores an Object to the Datablock.
      *
@@ -67,4 +79,15 @@ public interface S7Serializer {
      */
     void store(Object bean, int dbNum, int byteOffset);
 
+    /**
+     * Stores several points, packed into as few write requests as the pdu
+     * allows. Bits are written without touching the other bits of their byte.
+     *
+     * @param pointVariables the points
+     * @param values         one value per point, of the field type of the point
+     * @return one result per point in the same order, 0 or the error code the plc returned
+     * @throws S7Exception the s7 exception
+     */
+    int[] store(List<PointVariable> pointVariables, List<Object> values) throws S7Exception;
+
 }
\ No newline at end of file
@@ -17,6 +17,7 @@ package com.github.s7connector.api.factory;
 
 import com.github.s7connector.api.S7Connector;
 import com.github.s7connector.api.SiemensPLCS;
+import com.github.s7connector.impl.S7AsyncTCPConnection;
 import com.github.s7connector.impl.S7TCPConnection;
 
 /**
@@ -37,6 +38,10 @@ public class S7ConnectorFactory {
 
         private int rack = 0, slot = 2, port = 102, timeout = 2000;
 
+        private boolean nio = false;
+
+        private int pipeline = 1;
+
         TCPConnectionBuilder(SiemensPLCS type) {
             this.plcsType = type;
         }
@@ -45,7 +50,10 @@ public class S7ConnectorFactory {
          * Builds a connection with given params
          */
         public S7Connector build() {
-            return new S7TCPConnection(this.host, this.rack, this.slot, this.port, this.timeout, this.plcsType);
+            if (this.pipeline > 1) {
+                return new S7AsyncTCPConnection(this.host, this.rack, this.slot, this.port, this.timeout, this.plcsType, this.pipeline);
+            }
+            return new S7TCPConnection(this.host, this.rack, this.slot, this.port, this.timeout, this.plcsType, this.nio);
         }
 
         /**
@@ -88,6 +96,23 @@ public class S7ConnectorFactory {
             return this;
         }
 
+        /**
+         * use a shared nio selector instead of a blocking socket, default is false
+         */
+        public TCPConnectionBuilder withNio(final boolean nio) {
+            this.nio = nio;
+            return this;
+        }
+
+        /**
+         * keep up to this many requests in flight (limited by what the plc
+         * negotiates), more than 1 builds an asynchronous nio connection, default is 1
+         */
+        public TCPConnectionBuilder withPipeline(final int pipeline) {
+            this.pipeline = pipeline;
+            return this;
+        }
+
     }
 
     /**
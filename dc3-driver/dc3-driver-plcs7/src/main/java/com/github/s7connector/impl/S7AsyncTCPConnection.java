@@ -0,0 +1,474 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl;
+
+import com.github.s7connector.api.DaveArea;
+import com.github.s7connector.api.S7Connector;
+import com.github.s7connector.api.S7Range;
+import com.github.s7connector.api.SiemensPLCS;
+import com.github.s7connector.exception.S7Exception;
+import com.github.s7connector.impl.nio.NioPLCinterface;
+import com.github.s7connector.impl.nio.S7Selector;
+import com.github.s7connector.impl.nodave.Nodave;
+import com.github.s7connector.impl.nodave.PDU;
+import com.github.s7connector.impl.nodave.S7Connection;
+import com.github.s7connector.impl.nodave.TCPConnection;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous TCP connection to a S7 PLC. Keeps up to the negotiated number
+ * of jobs (max AmQ) in flight and matches the answers by PDU reference, so a
+ * high latency link is not limited to one request per round trip.
+ *
+ * @author pnoker
+ */
+public final class S7AsyncTCPConnection implements S7Connector {
+
+    /**
+     * TPKT (4) + COTP data header (3)
+     */
+    private static final int ISO_HEADER = 7;
+
+    /**
+     * Fails requests that did not get an answer in time
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "s7-async-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A request waiting to be sent or for its answer
+     */
+    private static final class Request {
+        private final byte[] packet;
+        private final int length;
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        private int reference;
+        private volatile ScheduledFuture<?> timeoutTask;
+
+        private Request(final byte[] packet, final int length) {
+            this.packet = packet;
+            this.length = length;
+        }
+    }
+
+    private final int timeout;
+
+    private final NioPLCinterface di;
+
+    private final int maxPDU;
+
+    private final int maxAmQ;
+
+    /**
+     * Requests waiting for a free job slot, guarded by this
+     */
+    private final Queue<Request> queue = new ArrayDeque<>();
+
+    /**
+     * Number of requests on the wire, guarded by this
+     */
+    private int inFlight;
+
+    /**
+     * Last used PDU reference, guarded by this
+     */
+    private int reference;
+
+    /**
+     * Requests on the wire by PDU reference
+     */
+    private final Map<Integer, Request> pending = new ConcurrentHashMap<>();
+
+    private volatile boolean broken;
+
+    /**
+     * Connects and negotiates the pdu length and the number of parallel jobs
+     *
+     * @param requestedAmQ number of parallel jobs to ask the plc for
+     * @throws S7Exception
+     */
+    public S7AsyncTCPConnection(final String host, final int rack, final int slot, final int port, final int timeout,
+                                final SiemensPLCS plcType, final int requestedAmQ) throws S7Exception {
+        this.timeout = timeout;
+        SocketChannel channel = null;
+        NioPLCinterface iface = null;
+        try {
+            channel = SocketChannel.open();
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().connect(new InetSocketAddress(host, port), timeout);
+            channel.configureBlocking(false);
+            iface = new NioPLCinterface(channel, S7Selector.next(), timeout, S7TCPConnection.protocolOf(plcType));
+
+            // connection setup is done synchronously, then the answers go to onPacket
+            final TCPConnection dc = new TCPConnection(iface, rack, slot);
+            dc.requestedAmQ = requestedAmQ;
+            S7BaseConnection.checkResult(dc.connectPLC());
+            this.maxPDU = dc.maxPDUlength > 0 ? dc.maxPDUlength : S7BaseConnection.MIN_PDU;
+            this.maxAmQ = dc.maxAmQ;
+            this.di = iface;
+        } catch (final Exception e) {
+            // the caller never gets this instance, release the channel and its selector key here
+            if (iface != null) {
+                iface.close();
+            } else if (channel != null) {
+                try {
+                    channel.close();
+                } catch (final Exception ignored) {
+                    // already failing
+                }
+            }
+            throw new S7Exception("constructor", e);
+        }
+        this.di.setCloseListener(this::failAll);
+        this.di.setPacketListener(this::onPacket);
+    }
+
+    public int getMaxPDU() {
+        return this.maxPDU;
+    }
+
+    public int getMaxAmQ() {
+        return this.maxAmQ;
+    }
+
+    /**
+     * Reads several ranges into one buffer, all requests of the plan are sent
+     * without waiting for the previous answer
+     *
+     * @param ranges  the ranges
+     * @param buffer  destination, range i starts at the sum of the lengths of the ranges before it
+     * @param results result per range, 0 or the error code the plc returned
+     * @return completes when all answers arrived
+     */
+    public CompletableFuture<Void> readAsync(final List<S7Range> ranges, final byte[] buffer, final int[] results) {
+        Arrays.fill(results, 0, ranges.size(), Nodave.RESULT_OK);
+
+        final List<S7RequestPlan.Batch> batches = S7RequestPlan.read(ranges, this.maxPDU);
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[batches.size()];
+        for (int b = 0; b < futures.length; b++) {
+            final S7RequestPlan.Batch batch = batches.get(b);
+            futures[b] = this.submit(this.readRequest(batch.items)).thenAccept(packet -> {
+                final int size = batch.items.size();
+                final byte[][] itemBuffers = new byte[size][];
+                final int[] itemResults = new int[size];
+                Arrays.fill(itemBuffers, buffer);
+                this.check(S7Connection.evalReadResponse(packet, ISO_HEADER, batch.items, itemBuffers, batch.offsets, itemResults));
+                // distinct batches only touch distinct items
+                for (int j = 0; j < size; j++) {
+                    if (itemResults[j] != Nodave.RESULT_OK) {
+                        results[batch.targets[j]] = itemResults[j];
+                    }
+                }
+            });
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * Writes several ranges, all requests of the plan are sent without waiting
+     * for the previous answer
+     *
+     * @param ranges  the ranges
+     * @param buffer  source, range i starts at the sum of the lengths of the ranges before it
+     * @param results result per range, 0 or the error code the plc returned
+     * @return completes when all answers arrived
+     */
+    public CompletableFuture<Void> writeAsync(final List<S7Range> ranges, final byte[] buffer, final int[] results) {
+        Arrays.fill(results, 0, ranges.size(), Nodave.RESULT_OK);
+
+        final List<S7RequestPlan.Batch> batches = S7RequestPlan.write(ranges, this.maxPDU);
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[batches.size()];
+        for (int b = 0; b < futures.length; b++) {
+            final S7RequestPlan.Batch batch = batches.get(b);
+            futures[b] = this.submit(this.writeRequest(batch, buffer)).thenAccept(packet -> {
+                final int size = batch.items.size();
+                final int[] itemResults = new int[size];
+                this.check(S7Connection.evalWriteResponse(packet, ISO_HEADER, size, itemResults));
+                for (int j = 0; j < size; j++) {
+                    if (itemResults[j] != Nodave.RESULT_OK) {
+                        results[batch.targets[j]] = itemResults[j];
+                    }
+                }
+            });
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] read(final DaveArea area, final int areaNumber, final int bytes, final int offset) {
+        final byte[] buffer = new byte[bytes];
+        final int[] results = new int[1];
+        join(this.readAsync(Collections.singletonList(new S7Range(area, areaNumber, offset, bytes)), buffer, results));
+        S7BaseConnection.checkResult(results[0]);
+        return buffer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<byte[]> read(final List<S7Range> ranges) {
+        final byte[] buffer = new byte[S7RequestPlan.totalBytes(ranges)];
+        final int[] results = new int[ranges.size()];
+        this.read(ranges, buffer, results);
+        return S7RequestPlan.split(ranges, buffer, results);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void read(final List<S7Range> ranges, final byte[] buffer, final int[] results) {
+        join(this.readAsync(ranges, buffer, results));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final DaveArea area, final int areaNumber, final int offset, final byte[] buffer) {
+        final int[] results = new int[1];
+        join(this.writeAsync(Collections.singletonList(new S7Range(area, areaNumber, offset, buffer.length)), buffer, results));
+        S7BaseConnection.checkResult(results[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final List<S7Range> ranges, final byte[] buffer, final int[] results) {
+        join(this.writeAsync(ranges, buffer, results));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAlive() {
+        return !this.broken && this.di.isOpen();
+    }
+
+    @Override
+    public void close() {
+        this.di.close();
+    }
+
+    /**
+     * Builds the packet of a multi-variable read request
+     */
+    private Request readRequest(final List<S7Range> items) {
+        final byte[] packet = new byte[Nodave.MAX_RAW_LEN];
+        final PDU pdu = new PDU(packet, ISO_HEADER);
+        pdu.initReadRequest();
+        for (final S7Range item : items) {
+            pdu.addVarToReadRequest(item.getArea(), item.getAreaNumber(), item.getOffset(), item.getBytes());
+        }
+        return new Request(packet, frame(packet, pdu.getLength()));
+    }
+
+    /**
+     * Builds the packet of a multi-variable write request
+     */
+    private Request writeRequest(final S7RequestPlan.Batch batch, final byte[] buffer) {
+        final byte[] packet = new byte[Nodave.MAX_RAW_LEN];
+        final PDU pdu = new PDU(packet, ISO_HEADER);
+        pdu.prepareWriteRequest();
+        for (int j = 0; j < batch.items.size(); j++) {
+            pdu.addVarToWriteRequest(batch.items.get(j), buffer, batch.offsets[j]);
+        }
+        return new Request(packet, frame(packet, pdu.getLength()));
+    }
+
+    /**
+     * Writes the TPKT and COTP headers in front of the pdu
+     *
+     * @return the length of the packet
+     */
+    private static int frame(final byte[] packet, final int pduLength) {
+        final int length = ISO_HEADER + pduLength;
+        packet[0] = (byte) 0x03;
+        packet[1] = (byte) 0x00;
+        Nodave.setUSBEWord(packet, 2, length);
+        packet[4] = (byte) 0x02;
+        packet[5] = (byte) 0xf0;
+        packet[6] = (byte) 0x80;
+        return length;
+    }
+
+    /**
+     * Queues a request, it is sent as soon as a job slot is free
+     */
+    private CompletableFuture<byte[]> submit(final Request request) {
+        if (!this.isAlive()) {
+            request.future.completeExceptionally(new S7Exception("connection closed"));
+            return request.future;
+        }
+        synchronized (this) {
+            this.queue.add(request);
+        }
+        this.drain();
+        return request.future;
+    }
+
+    /**
+     * Sends queued requests while job slots are free. The requests are taken
+     * under the lock and written outside of it, the write never blocks so this
+     * is safe on the selector thread too.
+     */
+    private void drain() {
+        if (this.broken) {
+            this.failQueued();
+            return;
+        }
+        final List<Request> ready;
+        synchronized (this) {
+            if (this.inFlight >= this.maxAmQ || this.queue.isEmpty()) {
+                return;
+            }
+            ready = new ArrayList<>(Math.min(this.maxAmQ - this.inFlight, this.queue.size()));
+            while (this.inFlight < this.maxAmQ && !this.queue.isEmpty()) {
+                final Request request = this.queue.poll();
+                do {
+                    this.reference = (this.reference + 1) & 0xFFFF;
+                } while (this.reference == 0 || this.pending.containsKey(this.reference));
+                request.reference = this.reference;
+                Nodave.setUSBEWord(request.packet, ISO_HEADER + 4, request.reference);
+
+                this.inFlight++;
+                this.pending.put(request.reference, request);
+                ready.add(request);
+            }
+        }
+        for (final Request request : ready) {
+            request.timeoutTask = TIMER.schedule(() -> this.expire(request), this.timeout, TimeUnit.MILLISECONDS);
+            this.di.write(request.packet, 0, request.length);
+        }
+    }
+
+    /**
+     * Called by the selector thread for every answer
+     */
+    private void onPacket(final byte[] packet) {
+        if (packet.length < ISO_HEADER + 10) {
+            return;
+        }
+        final Request request = this.pending.remove(Nodave.USBEWord(packet, ISO_HEADER + 4));
+        if (request == null) {
+            // answer to a request that already timed out
+            return;
+        }
+        request.timeoutTask.cancel(false);
+        this.release();
+        request.future.complete(packet);
+    }
+
+    /**
+     * The plc may still be working on a timed out job, so its slot is not
+     * released. The connection is marked broken instead: nothing more is sent
+     * on it and the pool replaces it once it is returned.
+     */
+    private void expire(final Request request) {
+        if (this.pending.remove(request.reference, request)) {
+            this.broken = true;
+            request.future.completeExceptionally(new S7Exception("no answer within " + this.timeout + "ms"));
+            this.failQueued();
+        }
+    }
+
+    private void release() {
+        synchronized (this) {
+            this.inFlight--;
+        }
+        this.drain();
+    }
+
+    /**
+     * Fails the requests that were not sent yet
+     */
+    private void failQueued() {
+        final List<Request> failed;
+        synchronized (this) {
+            failed = new ArrayList<>(this.queue);
+            this.queue.clear();
+        }
+        for (final Request request : failed) {
+            request.future.completeExceptionally(new S7Exception("connection broken"));
+        }
+    }
+
+    /**
+     * Fails everything still waiting once the channel is gone
+     */
+    private void failAll() {
+        this.broken = true;
+        final List<Request> failed = new ArrayList<>(this.pending.values());
+        this.pending.clear();
+        synchronized (this) {
+            failed.addAll(this.queue);
+            this.queue.clear();
+        }
+        for (final Request request : failed) {
+            request.future.completeExceptionally(new S7Exception("connection closed"));
+        }
+    }
+
+    /**
+     * Marks the connection broken on local or transport errors, like
+     * {@link S7BaseConnection#check(int)}
+     */
+    private void check(final int libnodaveResult) {
+        if (libnodaveResult < 0) {
+            this.broken = true;
+        }
+        S7BaseConnection.checkResult(libnodaveResult);
+    }
+
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new S7Exception("interrupted", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new S7Exception(e.getCause());
+        }
+    }
+}
@@ -17,9 +17,14 @@ package com.github.s7connector.impl;
 
 import com.github.s7connector.api.DaveArea;
 import com.github.s7connector.api.S7Connector;
+import com.github.s7connector.api.S7Range;
 import com.github.s7connector.impl.nodave.Nodave;
 import com.github.s7connector.impl.nodave.S7Connection;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Base-Connection for the S7-PLC Connection Libnodave:
  * http://libnodave.sourceforge.net/
@@ -29,9 +34,9 @@ import com.github.s7connector.impl.nodave.S7Connection;
 public abstract class S7BaseConnection implements S7Connector {
 
     /**
-     * The Constant MAX_SIZE.
+     * Pdu length every S7 cpu supports, used when none was negotiated
      */
-    private static final int MAX_SIZE = 96;
+    static final int MIN_PDU = 240;
 
     /**
      * The Constant PROPERTY_AREA.
@@ -81,6 +86,11 @@ public abstract class S7BaseConnection implements S7Connector {
      */
     private S7Connection dc;
 
+    /**
+     * Set when a request failed on the transport
+     */
+    private volatile boolean broken;
+
     /**
      * Initialize the connection
      *
@@ -90,53 +100,116 @@ public abstract class S7BaseConnection implements S7Connector {
         this.dc = dc;
     }
 
+    /**
+     * Checks the Result, negative results are local or transport errors and
+     * mark the connection as broken, positive ones are reported by the plc.
+     *
+     * @param libnodaveResult the libnodave result
+     */
+    protected void check(final int libnodaveResult) {
+        if (libnodaveResult < 0) {
+            this.broken = true;
+        }
+        checkResult(libnodaveResult);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
-    public synchronized byte[] read(final DaveArea area, final int areaNumber, final int bytes, final int offset) {
-        if (bytes > MAX_SIZE) {
-            final byte[] ret = new byte[bytes];
+    public boolean isAlive() {
+        return !this.broken;
+    }
 
-            final byte[] currentBuffer = this.read(area, areaNumber, MAX_SIZE, offset);
-            System.arraycopy(currentBuffer, 0, ret, 0, currentBuffer.length);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized byte[] read(final DaveArea area, final int areaNumber, final int bytes, final int offset) {
+        final byte[] buffer = new byte[bytes];
+        final int[] results = new int[1];
+        this.read(Collections.singletonList(new S7Range(area, areaNumber, offset, bytes)), buffer, results);
+        checkResult(results[0]);
+        return buffer;
+    }
 
-            final byte[] nextBuffer = this.read(area, areaNumber, bytes - MAX_SIZE, offset + MAX_SIZE);
-            System.arraycopy(nextBuffer, 0, ret, currentBuffer.length, nextBuffer.length);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<byte[]> read(final List<S7Range> ranges) {
+        final byte[] buffer = new byte[S7RequestPlan.totalBytes(ranges)];
+        final int[] results = new int[ranges.size()];
+        this.read(ranges, buffer, results);
+        return S7RequestPlan.split(ranges, buffer, results);
+    }
 
-            return ret;
-        } else {
-            final byte[] buffer = new byte[bytes];
-            final int ret = this.dc.readBytes(area, areaNumber, offset, bytes, buffer);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void read(final List<S7Range> ranges, final byte[] buffer, final int[] results) {
+        Arrays.fill(results, 0, ranges.size(), Nodave.RESULT_OK);
 
-            checkResult(ret);
-            return buffer;
+        for (final S7RequestPlan.Batch batch : S7RequestPlan.read(ranges, this.getMaxPDU())) {
+            this.readBatch(batch, buffer, results);
         }
     }
 
+    /**
+     * Executes one multi-variable request and records the ranges the plc rejected
+     */
+    private void readBatch(final S7RequestPlan.Batch batch, final byte[] buffer, final int[] results) {
+        final int size = batch.items.size();
+        final byte[][] itemBuffers = new byte[size][];
+        final int[] itemResults = new int[size];
+        Arrays.fill(itemBuffers, buffer);
+
+        this.check(this.dc.readMultiBytes(batch.items, itemBuffers, batch.offsets, itemResults));
+        for (int j = 0; j < size; j++) {
+            if (itemResults[j] != Nodave.RESULT_OK) {
+                results[batch.targets[j]] = itemResults[j];
+            }
+        }
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
     public synchronized void write(final DaveArea area, final int areaNumber, final int offset, final byte[] buffer) {
-        if (buffer.length > MAX_SIZE) {
-            // Split buffer
-            final byte[] subBuffer = new byte[MAX_SIZE];
-            final byte[] nextBuffer = new byte[buffer.length - subBuffer.length];
-
-            System.arraycopy(buffer, 0, subBuffer, 0, subBuffer.length);
-            System.arraycopy(buffer, MAX_SIZE, nextBuffer, 0, nextBuffer.length);
-
-            this.write(area, areaNumber, offset, subBuffer);
-            this.write(area, areaNumber, offset + subBuffer.length, nextBuffer);
-        } else {
-            // Size fits
-            final int ret = this.dc.writeBytes(area, areaNumber, offset, buffer.length, buffer);
-            // Check return-value
-            checkResult(ret);
+        final int[] results = new int[1];
+        this.write(Collections.singletonList(new S7Range(area, areaNumber, offset, buffer.length)), buffer, results);
+        checkResult(results[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void write(final List<S7Range> ranges, final byte[] buffer, final int[] results) {
+        Arrays.fill(results, 0, ranges.size(), Nodave.RESULT_OK);
+
+        for (final S7RequestPlan.Batch batch : S7RequestPlan.write(ranges, this.getMaxPDU())) {
+            final int size = batch.items.size();
+            final int[] itemResults = new int[size];
+            this.check(this.dc.writeMultiBytes(batch.items, buffer, batch.offsets, itemResults));
+            for (int j = 0; j < size; j++) {
+                if (itemResults[j] != Nodave.RESULT_OK) {
+                    results[batch.targets[j]] = itemResults[j];
+                }
+            }
         }
     }
 
+    /**
+     * The negotiated pdu length
+     *
+     * @return the pdu length
+     */
+    public int getMaxPDU() {
+        return this.dc.maxPDUlength > 0 ? this.dc.maxPDUlength : MIN_PDU;
+    }
+
 
 }
@@ -0,0 +1,169 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl;
+
+import com.github.s7connector.api.S7Range;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packs ranges into multi-variable read or write requests so that both the
+ * request and the answer fit into the negotiated PDU length
+ *
+ * @author pnoker
+ */
+public final class S7RequestPlan {
+
+    /**
+     * Max items in one request, most cpus reject more even if the pdu would fit
+     */
+    public static final int MAX_ITEMS = 20;
+
+    /**
+     * Read and write request: header (10) + function (2), then 12 bytes per item
+     */
+    public static final int REQUEST_HEADER = 12;
+    public static final int REQUEST_ITEM = 12;
+
+    /**
+     * Read response: ack header (12) + function (2), then 4 bytes + data per item
+     */
+    public static final int RESPONSE_HEADER = 14;
+    public static final int RESPONSE_ITEM = 4;
+
+    /**
+     * Write request: 4 bytes + data per item after the items. Write response:
+     * one result byte per item after the response header
+     */
+    public static final int WRITE_DATA_ITEM = 4;
+    public static final int WRITE_RESPONSE_ITEM = 1;
+
+    /**
+     * One request: the items and where their data is
+     */
+    public static final class Batch {
+        public final List<S7Range> items = new ArrayList<>(MAX_ITEMS);
+
+        /**
+         * index of the range each item belongs to
+         */
+        public final int[] targets = new int[MAX_ITEMS];
+
+        /**
+         * offset of the data of each item in the buffer
+         */
+        public final int[] offsets = new int[MAX_ITEMS];
+    }
+
+    private S7RequestPlan() {
+    }
+
+    /**
+     * Splits the ranges into read requests, ranges larger than one pdu are split
+     * into several items. The data of range i goes to the destination buffer at
+     * the sum of the lengths of the ranges before it.
+     *
+     * @param ranges the ranges to read
+     * @param maxPDU the negotiated pdu length
+     * @return the requests in order
+     */
+    public static List<Batch> read(final List<S7Range> ranges, final int maxPDU) {
+        return plan(ranges, maxPDU, false);
+    }
+
+    /**
+     * Splits the ranges into write requests, ranges larger than one pdu are split
+     * into several items. The data of range i is taken from the source buffer at
+     * the sum of the lengths of the ranges before it.
+     *
+     * @param ranges the ranges to write
+     * @param maxPDU the negotiated pdu length
+     * @return the requests in order
+     */
+    public static List<Batch> write(final List<S7Range> ranges, final int maxPDU) {
+        return plan(ranges, maxPDU, true);
+    }
+
+    private static List<Batch> plan(final List<S7Range> ranges, final int maxPDU, final boolean write) {
+        // largest even payload a single item may carry in the request or the answer
+        final int maxItemSize = write
+                ? (maxPDU - REQUEST_HEADER - REQUEST_ITEM - WRITE_DATA_ITEM) & ~1
+                : (maxPDU - RESPONSE_HEADER - RESPONSE_ITEM) & ~1;
+
+        final List<Batch> batches = new ArrayList<>();
+        Batch batch = new Batch();
+        int requestSize = REQUEST_HEADER;
+        int responseSize = RESPONSE_HEADER;
+
+        int start = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            final S7Range range = ranges.get(i);
+            for (int done = 0; done < range.getBytes(); done += maxItemSize) {
+                final int size = Math.min(maxItemSize, range.getBytes() - done);
+                final int itemData = size + (size % 2);
+                final int itemRequest = write ? REQUEST_ITEM + WRITE_DATA_ITEM + itemData : REQUEST_ITEM;
+                final int itemResponse = write ? WRITE_RESPONSE_ITEM : RESPONSE_ITEM + itemData;
+                if (batch.items.size() == MAX_ITEMS || requestSize + itemRequest > maxPDU || responseSize + itemResponse > maxPDU) {
+                    batches.add(batch);
+                    batch = new Batch();
+                    requestSize = REQUEST_HEADER;
+                    responseSize = RESPONSE_HEADER;
+                }
+                batch.targets[batch.items.size()] = i;
+                batch.offsets[batch.items.size()] = start + done;
+                // a bit is a single byte and never split
+                batch.items.add(range.isBit() ? range : new S7Range(range.getArea(), range.getAreaNumber(), range.getOffset() + done, size));
+                requestSize += itemRequest;
+                responseSize += itemResponse;
+            }
+            start += range.getBytes();
+        }
+        if (!batch.items.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Total length of the ranges
+     */
+    public static int totalBytes(final List<S7Range> ranges) {
+        int total = 0;
+        for (final S7Range range : ranges) {
+            total += range.getBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Splits a destination buffer back into one buffer per range, null for the
+     * ranges the plc rejected
+     */
+    public static List<byte[]> split(final List<S7Range> ranges, final byte[] buffer, final int[] results) {
+        final byte[][] buffers = new byte[ranges.size()][];
+        int start = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            final int bytes = ranges.get(i).getBytes();
+            if (results[i] == 0) {
+                buffers[i] = Arrays.copyOfRange(buffer, start, start + bytes);
+            }
+            start += bytes;
+        }
+        return Arrays.asList(buffers);
+    }
+}
@@ -18,12 +18,17 @@ package com.github.s7connector.impl;
 import com.github.s7connector.api.DaveArea;
 import com.github.s7connector.api.SiemensPLCS;
 import com.github.s7connector.exception.S7Exception;
+import com.github.s7connector.impl.nio.NioPLCinterface;
+import com.github.s7connector.impl.nio.S7Selector;
 import com.github.s7connector.impl.nodave.Nodave;
+import com.github.s7connector.impl.nodave.PLCTransport;
 import com.github.s7connector.impl.nodave.PLCinterface;
 import com.github.s7connector.impl.nodave.TCPConnection;
 
+import java.io.BufferedInputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 
 /**
  * TCP_Connection to a S7 PLC
@@ -41,7 +46,7 @@ public final class S7TCPConnection extends S7BaseConnection {
     /**
      * The Interface
      */
-    private PLCinterface di;
+    private PLCTransport di;
 
     /**
      * The Host to connect to
@@ -63,6 +68,11 @@ public final class S7TCPConnection extends S7BaseConnection {
      */
     private final int timeout;
 
+    /**
+     * Use the shared selector instead of a blocking socket
+     */
+    private final boolean nio;
+
     /**
      * The Socket
      */
@@ -80,6 +90,18 @@ public final class S7TCPConnection extends S7BaseConnection {
      * @throws S7Exception
      */
     public S7TCPConnection(final String host, final int rack, final int slot, final int port, final int timeout, final SiemensPLCS plcType) throws S7Exception {
+        this(host, rack, slot, port, timeout, plcType, false);
+    }
+
+    /**
+     * Creates a new Instance, optionally on a non-blocking channel served by a
+     * shared selector thread
+     *
+     * @param host
+     * @throws S7Exception
+     */
+    public S7TCPConnection(final String host, final int rack, final int slot, final int port, final int timeout, final SiemensPLCS plcType, final boolean nio) throws S7Exception {
+        this.nio = nio;
         this.host = host;
         this.rack = rack;
         this.slot = slot;
@@ -89,51 +111,65 @@ public final class S7TCPConnection extends S7BaseConnection {
         this.setupSocket();
     }
 
-    @Override
-    public void close() {
-        try {
-            this.socket.close();
-        } catch (final Exception e) {
-            e.printStackTrace();
+    /**
+     * Selects the plc interface protocol by the plcsType
+     *
+     * @param plcType the plc type
+     * @return the libnodave protocol
+     */
+    static int protocolOf(final SiemensPLCS plcType) {
+        switch (plcType) {
+            case S200:
+                return Nodave.PROTOCOL_ISOTCP243;
+            case SNon200:
+            case S300:
+            case S400:
+            case S1200:
+            case S1500:
+            case S200Smart:
+            default:
+                return Nodave.PROTOCOL_ISOTCP;
         }
     }
 
-    /**
-     * {@inheritDoc}
-     */
     @Override
-    protected void finalize() throws Throwable {
-        this.close();
+    public void close() {
+        if (this.di != null) {
+            this.di.close();
+        }
+        if (this.socket != null) {
+            try {
+                this.socket.close();
+            } catch (final Exception e) {
+                e.printStackTrace();
+            }
+        }
     }
 
     /**
      * Sets up the socket
      */
     private void setupSocket() {
+        SocketChannel channel = null;
         try {
-            this.socket = new Socket();
-            this.socket.setSoTimeout(2000);
-            this.socket.connect(new InetSocketAddress(this.host, this.port), this.timeout);
-
-            //select the plc interface protocol by the plcsType
-            int protocol;
-            switch (this.plcType) {
-                case S200:
-                    protocol = Nodave.PROTOCOL_ISOTCP243;
-                    break;
-                case SNon200:
-                case S300:
-                case S400:
-                case S1200:
-                case S1500:
-                case S200Smart:
-                default:
-                    protocol = Nodave.PROTOCOL_ISOTCP;
-                    break;
+            final int protocol = protocolOf(this.plcType);
+
+            if (this.nio) {
+                channel = SocketChannel.open();
+                channel.socket().setTcpNoDelay(true);
+                channel.socket().connect(new InetSocketAddress(this.host, this.port), this.timeout);
+                channel.configureBlocking(false);
+                this.di = new NioPLCinterface(channel, S7Selector.next(), this.timeout, protocol);
+            } else {
+                this.socket = new Socket();
+                this.socket.setSoTimeout(this.timeout);
+                // requests are small and strictly request/response, do not let nagle delay them
+                this.socket.setTcpNoDelay(true);
+                this.socket.connect(new InetSocketAddress(this.host, this.port), this.timeout);
+                this.di = new PLCinterface(this.socket.getOutputStream(), new BufferedInputStream(this.socket.getInputStream()), "IF1",
+                        DaveArea.LOCAL.getCode(), // TODO Local MPI-Address?
+                        protocol);
             }
-            this.di = new PLCinterface(this.socket.getOutputStream(), this.socket.getInputStream(), "IF1",
-                    DaveArea.LOCAL.getCode(), // TODO Local MPI-Address?
-                    protocol);
 
             this.dc = new TCPConnection(this.di, this.rack, this.slot);
             final int res = this.dc.connectPLC();
@@ -141,6 +177,15 @@ public final class S7TCPConnection extends S7BaseConnection {
 
             super.init(this.dc);
         } catch (final Exception e) {
+            // the caller never gets this instance, release the socket here
+            this.close();
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (final Exception ignored) {
+                    // already failing
+                }
+            }
             throw new S7Exception("constructor", e);
         }
 
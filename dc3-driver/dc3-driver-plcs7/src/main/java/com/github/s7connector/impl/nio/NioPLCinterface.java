@@ -0,0 +1,248 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl.nio;
+
+import com.github.s7connector.impl.nodave.Nodave;
+import com.github.s7connector.impl.nodave.PLCTransport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Plc interface on a non-blocking channel. Reading is done by a shared
+ * {@link S7Selector} thread which cuts the stream into TPKT packets, the
+ * connection only waits for complete packets. Writes never block, what the
+ * socket does not take right away is queued and flushed by the selector.
+ *
+ * @author pnoker
+ */
+public final class NioPLCinterface implements PLCTransport {
+
+    /**
+     * The channel
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The selector thread reading this channel
+     */
+    private final S7Selector selector;
+
+    /**
+     * Read timeout in milliseconds
+     */
+    private final int timeout;
+
+    /**
+     * The kind of transport used on this interface
+     */
+    private final int protocol;
+
+    /**
+     * Complete packets, filled by the selector thread
+     */
+    private final BlockingQueue<byte[]> packets = new LinkedBlockingQueue<>();
+
+    /**
+     * When set, complete packets are handed to the listener on the selector
+     * thread instead of being queued for readPacket
+     */
+    private volatile Consumer<byte[]> packetListener;
+
+    /**
+     * Called once the selector dropped the channel
+     */
+    private volatile Runnable closeListener;
+
+    /**
+     * Packets not completely written yet, guarded by itself
+     */
+    private final Queue<ByteBuffer> writeQueue = new ArrayDeque<>();
+
+    /**
+     * Partial packet, only touched by the selector thread
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(Nodave.MAX_RAW_LEN);
+
+    public NioPLCinterface(final SocketChannel channel, final S7Selector selector, final int timeout,
+                           final int protocol) {
+        this.channel = channel;
+        this.selector = selector;
+        this.timeout = timeout;
+        this.protocol = protocol;
+        selector.register(this);
+    }
+
+    SocketChannel getChannel() {
+        return this.channel;
+    }
+
+    public void setPacketListener(final Consumer<byte[]> packetListener) {
+        this.packetListener = packetListener;
+    }
+
+    public void setCloseListener(final Runnable closeListener) {
+        this.closeListener = closeListener;
+    }
+
+    public boolean isOpen() {
+        return this.channel.isOpen();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getProtocol() {
+        return this.protocol;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readPacket(final byte[] b) {
+        try {
+            final byte[] packet = this.packets.poll(this.timeout, TimeUnit.MILLISECONDS);
+            if (packet == null) {
+                System.err.println("Interface.readPacket: timeout after " + this.timeout + " ms");
+                return 0;
+            }
+            System.arraycopy(packet, 0, b, 0, packet.length);
+            return packet.length;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    /**
+     * Writes as much of the packet as the socket takes without blocking, the
+     * rest is queued and flushed by the selector thread
+     */
+    @Override
+    public void write(final byte[] b, final int start, final int len) {
+        final boolean flushed;
+        try {
+            synchronized (this.writeQueue) {
+                final ByteBuffer buffer = ByteBuffer.wrap(b, start, len);
+                if (this.writeQueue.isEmpty()) {
+                    this.channel.write(buffer);
+                }
+                if (buffer.hasRemaining()) {
+                    // the caller may reuse its array, keep a copy of the rest
+                    final ByteBuffer rest = ByteBuffer.allocate(buffer.remaining());
+                    rest.put(buffer).flip();
+                    this.writeQueue.add(rest);
+                }
+                flushed = this.writeQueue.isEmpty();
+            }
+        } catch (final IOException e) {
+            System.err.println("Interface.write: " + e);
+            this.close();
+            return;
+        }
+        if (!flushed) {
+            this.selector.flushLater(this);
+        }
+    }
+
+    /**
+     * Called by the selector thread when the channel is writable
+     *
+     * @return true once the write queue is empty
+     * @throws IOException on a closed channel
+     */
+    boolean onWritable() throws IOException {
+        synchronized (this.writeQueue) {
+            return this.flush();
+        }
+    }
+
+    /**
+     * Writes queued packets until the queue is empty or the socket is full,
+     * the caller holds the write queue
+     *
+     * @return true if the queue is empty
+     */
+    private boolean flush() throws IOException {
+        ByteBuffer buffer;
+        while ((buffer = this.writeQueue.peek()) != null) {
+            this.channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                return false;
+            }
+            this.writeQueue.poll();
+        }
+        return true;
+    }
+
+    /**
+     * Called by the selector thread when the channel is readable
+     *
+     * @throws IOException on a closed channel or a malformed packet
+     */
+    void onReadable() throws IOException {
+        if (this.channel.read(this.readBuffer) < 0) {
+            throw new IOException("connection closed by plc");
+        }
+        this.readBuffer.flip();
+        while (this.readBuffer.remaining() >= TPKT_HEADER) {
+            final int pos = this.readBuffer.position();
+            final int len = this.readBuffer.getShort(pos + 2) & 0xFFFF;
+            if ((len <= TPKT_HEADER) || (len > this.readBuffer.capacity())) {
+                throw new IOException("invalid packet length " + len);
+            }
+            if (this.readBuffer.remaining() < len) {
+                break;
+            }
+            final byte[] packet = new byte[len];
+            this.readBuffer.get(packet);
+            final Consumer<byte[]> listener = this.packetListener;
+            if (listener != null) {
+                listener.accept(packet);
+            } else {
+                this.packets.offer(packet);
+            }
+        }
+        this.readBuffer.compact();
+    }
+
+    /**
+     * Closes the channel and wakes the selector, the socket is only released
+     * once the selector dropped the key
+     */
+    @Override
+    public void close() {
+        try {
+            this.channel.close();
+        } catch (final IOException e) {
+            System.err.println("Interface.close: " + e);
+        }
+        this.selector.wakeup();
+        final Runnable listener = this.closeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selector thread shared by many plc connections. A small fixed group of
+ * selectors is started on first use, connections are assigned round robin.
+ * Besides reading it flushes writes the socket could not take right away.
+ *
+ * @author pnoker
+ */
+public final class S7Selector implements Runnable {
+
+    /**
+     * Number of selector threads
+     */
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private static final AtomicInteger NEXT = new AtomicInteger();
+
+    private static volatile S7Selector[] group;
+
+    /**
+     * Returns the next selector of the shared group
+     */
+    public static S7Selector next() {
+        S7Selector[] selectors = group;
+        if (selectors == null) {
+            synchronized (S7Selector.class) {
+                selectors = group;
+                if (selectors == null) {
+                    selectors = new S7Selector[THREADS];
+                    for (int i = 0; i < THREADS; i++) {
+                        selectors[i] = new S7Selector("s7-selector-" + i);
+                    }
+                    group = selectors;
+                }
+            }
+        }
+        return selectors[(NEXT.getAndIncrement() & Integer.MAX_VALUE) % selectors.length];
+    }
+
+    private final Selector selector;
+
+    /**
+     * Interfaces waiting to be registered, registration has to happen on the
+     * selector thread
+     */
+    private final Queue<NioPLCinterface> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Interfaces with unwritten packets, their interest is switched to
+     * OP_WRITE on the selector thread
+     */
+    private final Queue<NioPLCinterface> flushing = new ConcurrentLinkedQueue<>();
+
+    private S7Selector(final String name) {
+        try {
+            this.selector = Selector.open();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Selector.open", e);
+        }
+        final Thread thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Registers an interface for reading
+     */
+    void register(final NioPLCinterface iface) {
+        this.pending.add(iface);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Flushes the write queue of an interface once its socket is writable
+     */
+    void flushLater(final NioPLCinterface iface) {
+        this.flushing.add(iface);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Wakes the selector thread so cancelled keys are dropped right away
+     */
+    void wakeup() {
+        this.selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                this.selector.select();
+                NioPLCinterface iface;
+                while ((iface = this.pending.poll()) != null) {
+                    try {
+                        iface.getChannel().register(this.selector, SelectionKey.OP_READ, iface);
+                    } catch (final ClosedChannelException e) {
+                        // closed before it was registered
+                    }
+                }
+
+                while ((iface = this.flushing.poll()) != null) {
+                    final SelectionKey key = iface.getChannel().keyFor(this.selector);
+                    if (key != null && key.isValid()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    }
+                }
+
+                final Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    final NioPLCinterface ready = (NioPLCinterface) key.attachment();
+                    try {
+                        if (key.isWritable() && ready.onWritable()) {
+                            key.interestOps(SelectionKey.OP_READ);
+                        }
+                        if (key.isReadable()) {
+                            ready.onReadable();
+                        }
+                    } catch (final IOException e) {
+                        System.err.println("S7Selector: " + e.getMessage());
+                        key.cancel();
+                        ready.close();
+                    }
+                }
+            } catch (final Exception e) {
+                System.err.println("S7Selector: " + e);
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package com.github.s7connector.impl.nodave;
 
 import com.github.s7connector.api.DaveArea;
+import com.github.s7connector.api.S7Range;
 
 /**
  * @author Thomas Rudin
@@ -75,6 +76,15 @@ public final class PDU {
 
     public void addBitVarToWriteRequest(final DaveArea area, final int DBnum, final int start, final int byteCount,
                                         final byte[] buffer) {
+        this.addBitVarToWriteRequest(area, DBnum, start, byteCount, buffer, 0);
+    }
+
+    /**
+     * Add a single bit write item, start is the address in bits, the value is
+     * taken from buffer at bufferOffset
+     */
+    public void addBitVarToWriteRequest(final DaveArea area, final int DBnum, final int start, final int byteCount,
+                                        final byte[] buffer, final int bufferOffset) {
         final byte da[] = {0, 3, 0, 0,};
         final byte pa[] = {0x12, 0x0a, 0x10, 0x01, /* single bit */
                 0, 0, /* insert length in bytes here */
@@ -118,7 +128,8 @@ public final class PDU {
         this.data = this.param + this.plen;
 
         this.addData(da);
-        this.addValue(buffer);
+        // the value header of this item was just appended
+        this.addValue(this.data + this.dlen - 4, buffer, bufferOffset, byteCount);
     }
 
     /**
@@ -137,9 +148,17 @@ public final class PDU {
      * Set dlen as needed. Needs valid header and parameters
      */
     public void addData(final byte[] newData, final int len) {
+        this.addData(newData, 0, len);
+    }
+
+    /**
+     * Add len bytes of newData starting at offset after parameters. Set dlen as
+     * needed. Needs valid header and parameters
+     */
+    void addData(final byte[] newData, final int offset, final int len) {
         final int appPos = this.data + this.dlen; // append to this position
         this.dlen += len;
-        System.arraycopy(newData, 0, this.mem, appPos, len);
+        System.arraycopy(newData, offset, this.mem, appPos, len);
         Nodave.setUSBEWord(this.mem, this.header + 8, this.dlen);
     }
 
@@ -169,21 +188,31 @@ public final class PDU {
      * valid header,parameters,data,dlen
      */
     void addValue(final byte[] values) {
-        int valCount = (0x100 * this.mem[this.data + 2]) + this.mem[this.data + 3];
-        if (this.mem[this.data + 1] == 4) { // bit data, length is in bits
-            valCount += 8 * values.length;
-        } else if (this.mem[this.data + 1] == 9) { // byte data, length is in
+        this.addValue(this.data, values, 0, values.length);
+    }
+
+    /**
+     * Add len values starting at offset to the item whose value header is at
+     * valueHeader, see {@link #addValue(byte[])}
+     */
+    void addValue(final int valueHeader, final byte[] values, final int offset, final int len) {
+        int valCount = (0x100 * this.mem[valueHeader + 2]) + this.mem[valueHeader + 3];
+        if (this.mem[valueHeader + 1] == 4) { // bit data, length is in bits
+            valCount += 8 * len;
+        } else if (this.mem[valueHeader + 1] == 9) { // byte data, length is in
             // bytes
-            valCount += values.length;
+            valCount += len;
+        } else if (this.mem[valueHeader + 1] == 3) { // single bits, one per byte
+            valCount += len;
         } else {
             // XXX
         }
         if (this.udata == 0) {
             this.udata = this.data + 4;
         }
-        this.udlen += values.length;
-        Nodave.setUSBEWord(this.mem, this.data + 2, valCount);
-        this.addData(values);
+        this.udlen += len;
+        Nodave.setUSBEWord(this.mem, valueHeader + 2, valCount);
+        this.addData(values, offset, len);
     }
 
     public int addVarToReadRequest(final DaveArea area, final int DBnum, int start, final int len) {
@@ -223,6 +252,15 @@ public final class PDU {
 
     public void addVarToWriteRequest(final DaveArea area, final int DBnum, int start, final int byteCount,
                                      final byte[] buffer) {
+        this.addVarToWriteRequest(area, DBnum, start, byteCount, buffer, 0);
+    }
+
+    /**
+     * Add a write item taking byteCount bytes of buffer from bufferOffset, so a
+     * large buffer can be written in chunks without copying it
+     */
+    public void addVarToWriteRequest(final DaveArea area, final int DBnum, int start, final int byteCount,
+                                     final byte[] buffer, final int bufferOffset) {
         final byte da[] = {0, 4, 0, 0,};
         final byte pa[] = {0x12, 0x0a, 0x10, 0x02,
                 /* unit (for count?, for consistency?) byte */
@@ -265,7 +303,21 @@ public final class PDU {
         Nodave.setUSBEWord(this.mem, this.header + 6, this.plen);
         this.data = this.param + this.plen;
         this.addData(da);
-        this.addValue(buffer);
+        // the value header of this item was just appended
+        this.addValue(this.data + this.dlen - 4, buffer, bufferOffset, byteCount);
+    }
+
+    /**
+     * Add a write item for a range, bit ranges are written as a single bit
+     */
+    public void addVarToWriteRequest(final S7Range range, final byte[] buffer, final int bufferOffset) {
+        if (range.isBit()) {
+            this.addBitVarToWriteRequest(range.getArea(), range.getAreaNumber(),
+                    range.getOffset() * 8 + range.getBitOffset(), 1, buffer, bufferOffset);
+        } else {
+            this.addVarToWriteRequest(range.getArea(), range.getAreaNumber(), range.getOffset(), range.getBytes(),
+                    buffer, bufferOffset);
+        }
     }
 
     /**
@@ -299,6 +351,13 @@ public final class PDU {
         }
     }
 
+    /**
+     * return the length of header, parameters and data
+     */
+    public int getLength() {
+        return this.hlen + this.plen + this.dlen;
+    }
+
     public int getError() {
         return this.error;
     }
@@ -0,0 +1,59 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl.nodave;
+
+/**
+ * Packet transport used by {@link TCPConnection}: whole ISO on TCP packets
+ * are written and read, how the bytes are moved is up to the implementation.
+ *
+ * @author pnoker
+ */
+public interface PLCTransport {
+
+    /**
+     * length of the TPKT header (version, reserved, length)
+     */
+    int TPKT_HEADER = 4;
+
+    /**
+     * The kind of transport used on this interface, see Nodave.PROTOCOL_*
+     *
+     * @return the protocol
+     */
+    int getProtocol();
+
+    /**
+     * Reads one ISO on TCP packet including its TPKT header.
+     *
+     * @param b destination, the packet is stored from index 0
+     * @return the packet length including the header, 0 on timeout or a malformed header
+     */
+    int readPacket(byte[] b);
+
+    /**
+     * Writes len bytes starting at start
+     *
+     * @param b     the bytes
+     * @param start the first byte
+     * @param len   the number of bytes
+     */
+    void write(byte[] b, int start, int len);
+
+    /**
+     * Closes the underlying connection
+     */
+    void close();
+}
@@ -22,11 +22,12 @@ package com.github.s7connector.impl.nodave;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.SocketTimeoutException;
 
 /**
  * @author Thomas Rudin
  */
-public final class PLCinterface {
+public class PLCinterface implements PLCTransport {
     InputStream in;
     int localMPI; // the adapter's MPI address
     String name;
@@ -40,6 +41,14 @@ public final class PLCinterface {
         this.init(out, in, name, localMPI, protocol);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getProtocol() {
+        return this.protocol;
+    }
+
     public void init(final OutputStream oStream, final InputStream iStream, final String name, final int localMPI,
                      final int protocol) {
         this.out = oStream;
@@ -49,39 +58,78 @@ public final class PLCinterface {
         this.protocol = protocol;
     }
 
-    public int read(final byte[] b, int start, int len) {
-        int res;
+    /**
+     * Blocks until exactly len bytes are read, the socket read timeout expires
+     * or the stream is closed.
+     *
+     * @return the number of bytes read, less than len on timeout or end of stream
+     */
+    public int read(final byte[] b, final int start, final int len) {
+        int total = 0;
         try {
-            int retry = 0;
-            while ((this.in.available() <= 0) && (retry < 500)) {
-                try {
-                    if (retry > 0) {
-                        Thread.sleep(1);
-                    }
-                    retry++;
-                } catch (final InterruptedException e) {
-                    e.printStackTrace();
+            while (total < len) {
+                final int res = this.in.read(b, start + total, len - total);
+                if (res < 0) {
+                    break;
                 }
+                total += res;
             }
-            res = 0;
-            while ((this.in.available() > 0) && (len > 0)) {
-                res = this.in.read(b, start, len);
-                start += res;
-                len -= res;
-            }
-            return res;
+        } catch (final SocketTimeoutException e) {
+            System.err.println("Interface.read: timeout after " + total + " of " + len + " bytes");
         } catch (final IOException e) {
-            e.printStackTrace();
+            System.err.println("Interface.read: " + e);
+        }
+        return total;
+    }
+
+    /**
+     * Reads one ISO on TCP packet: the 4 byte TPKT header, then exactly the
+     * remaining length announced in the header.
+     *
+     * @param b destination, the packet is stored from index 0
+     * @return the packet length including the header, 0 on timeout or a malformed header
+     */
+    @Override
+    public int readPacket(final byte[] b) {
+        if (this.read(b, 0, TPKT_HEADER) != TPKT_HEADER) {
+            return 0;
+        }
+        final int len = Nodave.USBEWord(b, 2);
+        if ((len <= TPKT_HEADER) || (len > b.length)) {
+            System.err.println("Interface.readPacket: invalid packet length " + len);
             return 0;
         }
+        if (this.read(b, TPKT_HEADER, len - TPKT_HEADER) != len - TPKT_HEADER) {
+            return 0;
+        }
+        return len;
     }
 
+    @Override
     public void write(final byte[] b, final int start, final int len) {
         try {
             this.out.write(b, start, len);
+            this.out.flush();
         } catch (final IOException e) {
             System.err.println("Interface.write: " + e);
         }
     }
 
+    /**
+     * Closes both streams, which closes the socket they belong to
+     */
+    @Override
+    public void close() {
+        try {
+            if (this.in != null) {
+                this.in.close();
+            }
+            if (this.out != null) {
+                this.out.close();
+            }
+        } catch (final IOException e) {
+            System.err.println("Interface.close: " + e);
+        }
+    }
+
 }
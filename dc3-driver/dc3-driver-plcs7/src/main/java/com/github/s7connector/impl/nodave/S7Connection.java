@@ -20,7 +20,9 @@
 package com.github.s7connector.impl.nodave;
 
 import com.github.s7connector.api.DaveArea;
+import com.github.s7connector.api.S7Range;
 
+import java.util.List;
 import java.util.concurrent.Semaphore;
 
 /**
@@ -37,8 +39,14 @@ public abstract class S7Connection {
      * position
      */
     int dataPointer;
-    PLCinterface iface; // pointer to used interface
+    PLCTransport iface; // pointer to used interface
     public int maxPDUlength;
+    /**
+     * number of parallel jobs asked for in the PDU negotiation and the number
+     * the plc granted
+     */
+    public int requestedAmQ = 1;
+    public int maxAmQ = 1;
     public byte messageNumber = 0;
     public byte[] msgIn;
     public byte[] msgOut;
@@ -54,7 +62,7 @@ public abstract class S7Connection {
      */
     int udata;
 
-    public S7Connection(final PLCinterface ifa) {
+    public S7Connection(final PLCTransport ifa) {
         this.iface = ifa;
         this.msgIn = new byte[Nodave.MAX_RAW_LEN];
         this.msgOut = new byte[Nodave.MAX_RAW_LEN];
@@ -272,6 +280,8 @@ public abstract class S7Connection {
         int res;
         final PDU p = new PDU(this.msgOut, this.PDUstartOut);
         final byte pa[] = {(byte) 0xF0, 0, 0x00, 0x01, 0x00, 0x01, 0x03, (byte) 0xC0,};
+        Nodave.setUSBEWord(pa, 2, this.requestedAmQ);
+        Nodave.setUSBEWord(pa, 4, this.requestedAmQ);
         p.initHeader(1);
         p.addParam(pa);
         res = this.exchange(p);
@@ -284,6 +294,7 @@ public abstract class S7Connection {
             return res;
         }
         this.maxPDUlength = Nodave.USBEWord(this.msgIn, p2.param + 6);
+        this.maxAmQ = Math.max(1, Math.min(Nodave.USBEWord(this.msgIn, p2.param + 2), Nodave.USBEWord(this.msgIn, p2.param + 4)));
         return res;
     }
 
@@ -333,6 +344,100 @@ public abstract class S7Connection {
         return res;
     }
 
+    /**
+     * Read several items with one request. The caller has to make sure that both
+     * the request and the answer fit into maxPDUlength.
+     *
+     * @param ranges      the items to read
+     * @param buffers     destination buffer per item
+     * @param offsets     offset in the destination buffer per item
+     * @param itemResults result code per item, RESULT_OK or the code the plc returned
+     * @return RESULT_OK if the answer could be evaluated
+     */
+    public int readMultiBytes(final List<S7Range> ranges, final byte[][] buffers, final int[] offsets,
+                              final int[] itemResults) {
+        int res;
+        try {
+            this.semaphore.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Nodave.RESULT_UNKNOWN_ERROR;
+        }
+        try {
+            final PDU p1 = new PDU(this.msgOut, this.PDUstartOut);
+            p1.initReadRequest();
+            for (final S7Range range : ranges) {
+                p1.addVarToReadRequest(range.getArea(), range.getAreaNumber(), range.getOffset(), range.getBytes());
+            }
+
+            res = this.exchange(p1);
+            if (res != Nodave.RESULT_OK) {
+                return res;
+            }
+            return evalReadResponse(this.msgIn, this.PDUstartIn, ranges, buffers, offsets, itemResults);
+        } finally {
+            this.semaphore.release();
+        }
+    }
+
+    /**
+     * Evaluate the answer to a multi-variable read request and copy the data of
+     * each item into its destination buffer.
+     *
+     * @param mem         buffer holding the answer
+     * @param pduStart    position of the PDU header in mem
+     * @param ranges      the items of the request
+     * @param buffers     destination buffer per item
+     * @param offsets     offset in the destination buffer per item
+     * @param itemResults result code per item, RESULT_OK or the code the plc returned
+     * @return RESULT_OK if the answer could be evaluated
+     */
+    public static int evalReadResponse(final byte[] mem, final int pduStart, final List<S7Range> ranges,
+                                       final byte[][] buffers, final int[] offsets, final int[] itemResults) {
+        final PDU p2 = new PDU(mem, pduStart);
+        final int res = p2.setupReceivedPDU();
+        if (res != Nodave.RESULT_OK) {
+            return res;
+        }
+        if (p2.mem[p2.param] != PDU.FUNC_READ) {
+            return Nodave.RESULT_UNEXPECTED_FUNC;
+        }
+        final int numResults = Nodave.USByte(p2.mem, p2.param + 1);
+        if (numResults != ranges.size()) {
+            return Nodave.RESULT_CANNOT_EVALUATE_PDU;
+        }
+
+        int pos = p2.data;
+        final int end = p2.data + p2.dlen;
+        for (int i = 0; i < numResults; i++) {
+            if (pos + 4 > end) {
+                return Nodave.RESULT_SHORT_PACKET;
+            }
+            final int error = Nodave.USByte(p2.mem, pos);
+            if (error != 255) {
+                /* failed items carry a 4 byte header without data */
+                itemResults[i] = error;
+                pos += 4;
+                continue;
+            }
+            int len = Nodave.USBEWord(p2.mem, pos + 2);
+            if (Nodave.USByte(p2.mem, pos + 1) == 4) {
+                len >>= 3; /* len is in bits, adjust */
+            }
+            if (pos + 4 + len > end) {
+                return Nodave.RESULT_SHORT_PACKET;
+            }
+            System.arraycopy(p2.mem, pos + 4, buffers[i], offsets[i], Math.min(len, ranges.get(i).getBytes()));
+            itemResults[i] = Nodave.RESULT_OK;
+            pos += 4 + len;
+            /* every item but the last is padded to an even length */
+            if ((len % 2) == 1) {
+                pos++;
+            }
+        }
+        return Nodave.RESULT_OK;
+    }
+
     public int sendMsg(final PDU p) {
         return 0;
     }
@@ -352,35 +457,114 @@ public abstract class S7Connection {
 
     ;
 
+    /**
+     * Write several items in one request, used for multi-variable writes.
+     *
+     * @param ranges      the items, must fit into one pdu
+     * @param buffer      source buffer
+     * @param offsets     offset of the data of each item in the source buffer
+     * @param itemResults result code per item, RESULT_OK or the code the plc returned
+     * @return RESULT_OK if the answer could be evaluated, the per item results are in itemResults
+     */
+    public int writeMultiBytes(final List<S7Range> ranges, final byte[] buffer, final int[] offsets,
+                               final int[] itemResults) {
+        int res;
+        try {
+            this.semaphore.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Nodave.RESULT_UNKNOWN_ERROR;
+        }
+        try {
+            final PDU p1 = new PDU(this.msgOut, this.PDUstartOut);
+            p1.prepareWriteRequest();
+            for (int i = 0; i < ranges.size(); i++) {
+                p1.addVarToWriteRequest(ranges.get(i), buffer, offsets[i]);
+            }
+
+            res = this.exchange(p1);
+            if (res != Nodave.RESULT_OK) {
+                return res;
+            }
+            return evalWriteResponse(this.msgIn, this.PDUstartIn, ranges.size(), itemResults);
+        } finally {
+            this.semaphore.release();
+        }
+    }
+
+    /**
+     * Evaluate the answer to a multi-variable write request.
+     *
+     * @param mem         buffer holding the answer
+     * @param pduStart    position of the PDU header in mem
+     * @param items       number of items in the request
+     * @param itemResults result code per item, RESULT_OK or the code the plc returned
+     * @return RESULT_OK if the answer could be evaluated
+     */
+    public static int evalWriteResponse(final byte[] mem, final int pduStart, final int items, final int[] itemResults) {
+        final PDU p2 = new PDU(mem, pduStart);
+        final int res = p2.setupReceivedPDU();
+        if (res != Nodave.RESULT_OK) {
+            return res;
+        }
+        if (p2.mem[p2.param] != PDU.FUNC_WRITE) {
+            return Nodave.RESULT_UNEXPECTED_FUNC;
+        }
+        if (Nodave.USByte(p2.mem, p2.param + 1) != items || p2.dlen < items) {
+            return Nodave.RESULT_CANNOT_EVALUATE_PDU;
+        }
+        for (int i = 0; i < items; i++) {
+            final int code = Nodave.USByte(p2.mem, p2.data + i);
+            itemResults[i] = code == 255 ? Nodave.RESULT_OK : code;
+        }
+        return Nodave.RESULT_OK;
+    }
+
     /*
      * Write len bytes to PLC memory area "area", data block DBnum.
      */
     public int writeBytes(final DaveArea area, final int DBnum, final int start, final int len, final byte[] buffer) {
-        int errorState = 0;
-        this.semaphore.release();
-        final PDU p1 = new PDU(this.msgOut, this.PDUstartOut);
+        return this.writeBytes(area, DBnum, start, len, buffer, 0);
+    }
 
-        // p1.constructWriteRequest(area, DBnum, start, len, buffer);
-        p1.prepareWriteRequest();
-        p1.addVarToWriteRequest(area, DBnum, start, len, buffer);
+    /**
+     * Write len bytes of buffer, starting at bufferOffset, to PLC memory area
+     * "area", data block DBnum.
+     */
+    public int writeBytes(final DaveArea area, final int DBnum, final int start, final int len, final byte[] buffer,
+                          final int bufferOffset) {
+        int errorState = 0;
+        try {
+            this.semaphore.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Nodave.RESULT_UNKNOWN_ERROR;
+        }
+        try {
+            final PDU p1 = new PDU(this.msgOut, this.PDUstartOut);
+            p1.prepareWriteRequest();
+            p1.addVarToWriteRequest(area, DBnum, start, len, buffer, bufferOffset);
 
-        errorState = this.exchange(p1);
+            errorState = this.exchange(p1);
 
-        if (errorState == 0) {
-            final PDU p2 = new PDU(this.msgIn, this.PDUstartIn);
-            p2.setupReceivedPDU();
+            if (errorState == 0) {
+                final PDU p2 = new PDU(this.msgIn, this.PDUstartIn);
+                p2.setupReceivedPDU();
 
-            if (p2.mem[p2.param + 0] == PDU.FUNC_WRITE) {
-                if (p2.mem[p2.data + 0] == (byte) 0xFF) {
-                    this.semaphore.release();
-                    return 0;
+                if (p2.mem[p2.param + 0] == PDU.FUNC_WRITE) {
+                    if (p2.mem[p2.data + 0] == (byte) 0xFF) {
+                        return 0;
+                    }
+                    /* the plc rejected the item */
+                    errorState = Nodave.USByte(p2.mem, p2.data);
+                } else {
+                    errorState |= 4096;
                 }
-            } else {
-                errorState |= 4096;
             }
+            return errorState;
+        } finally {
+            this.semaphore.release();
         }
-        this.semaphore.release();
-        return errorState;
     }
 
 }
@@ -43,7 +43,7 @@ public final class TCPConnection extends S7Connection {
      * @param rack the rack
      * @param slot the slot
      */
-    public TCPConnection(final PLCinterface ifa, final int rack, final int slot) {
+    public TCPConnection(final PLCTransport ifa, final int rack, final int slot) {
         super(ifa);
         this.rack = rack;
         this.slot = slot;
@@ -60,7 +60,7 @@ public final class TCPConnection extends S7Connection {
      */
     public int connectPLC() {
         int packetLength;
-        if (iface.protocol == Nodave.PROTOCOL_ISOTCP243) {
+        if (iface.getProtocol() == Nodave.PROTOCOL_ISOTCP243) {
             final byte[] b243 = {
                     (byte) 0x11, (byte) 0xE0, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x01, (byte) 0x00,
                     (byte) 0xC1, (byte) 0x02, (byte) 0x4D, (byte) 0x57, (byte) 0xC2, (byte) 0x02, (byte) 0x4D, (byte) 0x57,
@@ -80,7 +80,9 @@ public final class TCPConnection extends S7Connection {
             packetLength = b4.length;
         }
         this.sendISOPacket(packetLength);
-        this.readISOPacket();
+        if (this.readISOPacket() == 0) {
+            return Nodave.RESULT_TIMEOUT;
+        }
         /*
          * PDU p = new PDU(msgOut, 7); p.initHeader(1); p.addParam(b61);
          * exchange(p); return (0);
@@ -97,24 +99,19 @@ public final class TCPConnection extends S7Connection {
         this.msgOut[5] = (byte) 0xf0;
         this.msgOut[6] = (byte) 0x80;
         this.sendISOPacket(3 + p1.hlen + p1.plen + p1.dlen);
-        this.readISOPacket();
+        if (this.readISOPacket() == 0) {
+            return Nodave.RESULT_TIMEOUT;
+        }
         return 0;
     }
 
     /**
      * Read iso packet.
      *
-     * @return the int
+     * @return the packet length, 0 if no complete packet arrived
      */
     protected int readISOPacket() {
-        int res = this.iface.read(this.msgIn, 0, 4);
-        if (res == 4) {
-            final int len = (0x100 * this.msgIn[2]) + this.msgIn[3];
-            res += this.iface.read(this.msgIn, 4, len);
-        } else {
-            return 0;
-        }
-        return res;
+        return this.iface.readPacket(this.msgIn);
     }
 
     /**
@@ -0,0 +1,34 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl.serializer;
+
+/**
+ * Decodes one value straight from a receive buffer
+ *
+ * @author pnoker
+ */
+@FunctionalInterface
+public interface S7Decoder {
+
+    /**
+     * Decodes the value
+     *
+     * @param buffer     the buffer
+     * @param byteOffset position of the first byte of the value in the buffer
+     * @return the value
+     */
+    Object decode(byte[] buffer, int byteOffset);
+}
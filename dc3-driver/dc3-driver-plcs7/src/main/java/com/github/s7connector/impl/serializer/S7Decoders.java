@@ -0,0 +1,126 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl.serializer;
+
+import com.github.pnoker.driver.bean.PointVariable;
+import com.github.s7connector.api.S7Serializable;
+import com.github.s7connector.api.S7Type;
+import com.github.s7connector.exception.S7Exception;
+
+import java.util.Date;
+
+/**
+ * Decoders for single points, built once per type and bit offset. The plain
+ * types are read directly from the buffer into primitives, the calendar and
+ * string types use their converter instance.
+ *
+ * @author pnoker
+ */
+public final class S7Decoders {
+
+    private static final S7Decoder[][] DECODERS = new S7Decoder[S7Type.values().length][8];
+
+    /**
+     * REAL read into a double, same rounding as the RealConverter
+     */
+    private static final S7Decoder REAL_DOUBLE = (buffer, byteOffset) ->
+            Double.parseDouble(Float.toString(Float.intBitsToFloat(getInt(buffer, byteOffset))));
+
+    static {
+        for (final S7Type type : S7Type.values()) {
+            for (int bitOffset = 0; bitOffset < 8; bitOffset++) {
+                DECODERS[type.ordinal()][bitOffset] = create(type, bitOffset);
+            }
+        }
+    }
+
+    private S7Decoders() {
+    }
+
+    /**
+     * Returns the decoder of a type
+     *
+     * @param type      the s7 type
+     * @param bitOffset the bit offset, only used by BOOL
+     * @return the decoder
+     */
+    public static S7Decoder of(final S7Type type, final int bitOffset) {
+        return DECODERS[type.ordinal()][bitOffset & 0x07];
+    }
+
+    /**
+     * Returns the decoder of a point
+     *
+     * @param pointVariable the point
+     * @return the decoder
+     */
+    public static S7Decoder of(final PointVariable pointVariable) {
+        if (pointVariable.getType() == S7Type.REAL && pointVariable.getFieldType() == Double.class) {
+            return REAL_DOUBLE;
+        }
+        return of(pointVariable.getType(), pointVariable.getBitOffset());
+    }
+
+    private static S7Decoder create(final S7Type type, final int bitOffset) {
+        switch (type) {
+            case BOOL:
+                final int mask = 0x01 << bitOffset;
+                return (buffer, byteOffset) -> (buffer[byteOffset] & mask) != 0 ? Boolean.TRUE : Boolean.FALSE;
+            case BYTE:
+                return (buffer, byteOffset) -> buffer[byteOffset];
+            case INT:
+                return (buffer, byteOffset) -> (short) getWord(buffer, byteOffset);
+            case WORD:
+                return S7Decoders::getWord;
+            case DINT:
+            case DWORD:
+                // same as the LongConverter: the signed 32 bit value
+                return (buffer, byteOffset) -> (long) getInt(buffer, byteOffset);
+            case REAL:
+                return (buffer, byteOffset) -> Float.intBitsToFloat(getInt(buffer, byteOffset));
+            case TIME:
+                return (buffer, byteOffset) -> getInt(buffer, byteOffset) & 0xFFFFFFFFL;
+            case STRING:
+                return (buffer, byteOffset) -> new String(buffer, byteOffset + 2, buffer[byteOffset + 1] & 0xFF);
+            case DATE:
+            case DATE_AND_TIME:
+                return converter(type, Date.class, bitOffset);
+            default:
+                return (buffer, byteOffset) -> {
+                    throw new S7Exception("no decoder for " + type);
+                };
+        }
+    }
+
+    private static S7Decoder converter(final S7Type type, final Class<?> targetClass, final int bitOffset) {
+        final S7Serializable converter;
+        try {
+            converter = type.getSerializer().newInstance();
+        } catch (final Exception e) {
+            throw new S7Exception("converter " + type, e);
+        }
+        return (buffer, byteOffset) -> converter.extract(targetClass, buffer, byteOffset, bitOffset);
+    }
+
+    private static int getWord(final byte[] buffer, final int byteOffset) {
+        return ((buffer[byteOffset] & 0xFF) << 8) | (buffer[byteOffset + 1] & 0xFF);
+    }
+
+    private static int getInt(final byte[] buffer, final int byteOffset) {
+        return ((buffer[byteOffset] & 0xFF) << 24) | ((buffer[byteOffset + 1] & 0xFF) << 16)
+                | ((buffer[byteOffset + 2] & 0xFF) << 8) | (buffer[byteOffset + 3] & 0xFF);
+    }
+}
@@ -18,6 +18,7 @@ package com.github.s7connector.impl.serializer;
 import com.github.pnoker.driver.bean.PointVariable;
 import com.github.s7connector.api.DaveArea;
 import com.github.s7connector.api.S7Connector;
+import com.github.s7connector.api.S7Range;
 import com.github.s7connector.api.S7Serializer;
 import com.github.s7connector.exception.S7Exception;
 import com.github.s7connector.impl.serializer.parser.BeanEntry;
@@ -26,6 +27,10 @@ import com.github.s7connector.impl.serializer.parser.BeanParser;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * The Class S7Serializer is responsible for serializing S7 TCP Connection
@@ -33,10 +38,24 @@ import java.lang.reflect.Array;
 @Slf4j
 public final class S7SerializerImpl implements S7Serializer {
 
+    /**
+     * Gap in bytes up to which two ranges of the same data block are still merged,
+     * reading a few unused bytes is cheaper than an extra item in the request
+     */
+    private static final int MERGE_GAP = 4;
+
+    /**
+     * Extracts a point from a buffer, the buffer starts at byteOffset bytes
+     * after the beginning of the data block
+     *
+     * @param pointVariable the point
+     * @param buffer        the buffer
+     * @param byteOffset    the byte offset
+     * @return the value
+     */
     public static Object extractBytes(PointVariable pointVariable, final byte[] buffer, final int byteOffset) {
         try {
-            final BeanEntry entry = BeanParser.parse(pointVariable);
-            return entry.serializer.extract(entry.type, buffer, entry.byteOffset + byteOffset, entry.bitOffset);
+            return S7Decoders.of(pointVariable).decode(buffer, pointVariable.getByteOffset() + byteOffset);
         } catch (Exception e) {
             throw new S7Exception("extractBytes", e);
         }
@@ -59,7 +78,11 @@ public final class S7SerializerImpl implements S7Serializer {
             final BeanParseResult result = BeanParser.parse(beanClass);
             for (final BeanEntry entry : result.entries) {
                 Object value = null;
-                if (entry.isArray) {
+                if (entry.isArray && entry.field.getType() == byte[].class) {
+                    //Special case issue #45, copied without boxing every byte
+                    final int start = entry.byteOffset + byteOffset;
+                    value = Arrays.copyOfRange(buffer, start, start + entry.arraySize);
+                } else if (entry.isArray) {
                     value = Array.newInstance(entry.type, entry.arraySize);
                     for (int i = 0; i < entry.arraySize; i++) {
                         final Object component = entry.serializer.extract(entry.type, buffer,
@@ -71,16 +94,6 @@ public final class S7SerializerImpl implements S7Serializer {
                     value = entry.serializer.extract(entry.type, buffer, entry.byteOffset + byteOffset, entry.bitOffset);
                 }
 
-                if (entry.field.getType() == byte[].class) {
-                    //Special case issue #45
-                    Byte[] oldValue = (Byte[]) value;
-
-                    value = new byte[oldValue.length];
-
-                    for (int i = 0; i < oldValue.length; i++) {
-                        ((byte[]) value)[i] = oldValue[i];
-                    }
-                }
 
                 entry.field.set(obj, value);
             }
@@ -91,6 +104,56 @@ public final class S7SerializerImpl implements S7Serializer {
         }
     }
 
+    /**
+     * Range written for a point: a single bit for BOOL, the current length plus
+     * the two header bytes for STRING and the type size otherwise
+     *
+     * @param pointVariable the point
+     * @param value         the value
+     * @return the range
+     */
+    public static S7Range writeRange(final PointVariable pointVariable, final Object value) {
+        final int dbNum = pointVariable.getDbNum();
+        final int byteOffset = pointVariable.getByteOffset();
+        switch (pointVariable.getType()) {
+            case BOOL:
+                return S7Range.bit(DaveArea.DB, dbNum, byteOffset, pointVariable.getBitOffset());
+            case STRING:
+                return new S7Range(DaveArea.DB, dbNum, byteOffset, 2 + ((String) value).length());
+            default:
+                return new S7Range(DaveArea.DB, dbNum, byteOffset, pointVariable.getType().getByteSize());
+        }
+    }
+
+    /**
+     * Inserts a point into a buffer at byteOffset, a bit is stored as 0 or 1
+     *
+     * @param pointVariable the point
+     * @param value         the value, of the field type of the point
+     * @param buffer        the buffer
+     * @param byteOffset    the byte offset
+     */
+    public static void insertBytes(final PointVariable pointVariable, final Object value, final byte[] buffer, final int byteOffset) {
+        try {
+            switch (pointVariable.getType()) {
+                case BOOL:
+                    buffer[byteOffset] = (byte) ((Boolean) value ? 1 : 0);
+                    break;
+                case STRING:
+                    // the size of a string point includes the two header bytes
+                    pointVariable.getType().getSerializer().newInstance()
+                            .insert(value, buffer, byteOffset, 0, Math.max(pointVariable.getSize() - 2, 0));
+                    break;
+                default:
+                    pointVariable.getType().getSerializer().newInstance()
+                            .insert(value, buffer, byteOffset, 0, pointVariable.getSize());
+                    break;
+            }
+        } catch (final Exception e) {
+            throw new S7Exception("insertBytes dbnum(" + pointVariable.getDbNum() + ") byteoffset(" + pointVariable.getByteOffset() + ")", e);
+        }
+    }
+
     /**
      * Inserts the bytes to the buffer.
      *
@@ -134,6 +197,12 @@ public final class S7SerializerImpl implements S7Serializer {
      */
     private final S7Connector connector;
 
+    /**
+     * Buffer and results of the last bulk read, reused while the points fit
+     */
+    private byte[] readBuffer = new byte[0];
+    private int[] readResults = new int[0];
+
     /**
      * Instantiates a new s7 serializer.
      *
@@ -177,12 +246,118 @@ public final class S7SerializerImpl implements S7Serializer {
     public Object dispense(PointVariable pointVariable) throws S7Exception {
         try {
             final byte[] buffer = this.connector.read(DaveArea.DB, pointVariable.getDbNum(), pointVariable.getSize(), pointVariable.getByteOffset());
-            return extractBytes(pointVariable, buffer, 0);
+            return extractBytes(pointVariable, buffer, -pointVariable.getByteOffset());
         } catch (final Exception e) {
             throw new S7Exception("dispense dbnum(" + pointVariable.getDbNum() + ") byteoffset(" + pointVariable.getByteOffset() + ") blocksize(" + pointVariable.getSize() + ")", e);
         }
     }
 
+    /**
+     * add by pnoker
+     */
+    @Override
+    public synchronized List<Object> dispense(List<PointVariable> pointVariables) throws S7Exception {
+        final int count = pointVariables.size();
+        final Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> pointVariables.get(i).getDbNum())
+                .thenComparingInt(i -> pointVariables.get(i).getByteOffset()));
+
+        // merge adjacent or overlapping ranges, remember which range each point belongs to
+        final List<S7Range> ranges = new ArrayList<>();
+        final int[] rangeIndex = new int[count];
+        int dbNum = -1, start = 0, end = 0;
+        for (final int i : order) {
+            final PointVariable pointVariable = pointVariables.get(i);
+            final int pointStart = pointVariable.getByteOffset();
+            final int pointEnd = pointStart + Math.max(pointVariable.getSize(), 1);
+            if (ranges.isEmpty() || pointVariable.getDbNum() != dbNum || pointStart > end + MERGE_GAP) {
+                if (!ranges.isEmpty()) {
+                    ranges.set(ranges.size() - 1, new S7Range(DaveArea.DB, dbNum, start, end - start));
+                }
+                dbNum = pointVariable.getDbNum();
+                start = pointStart;
+                end = pointEnd;
+                ranges.add(null);
+            } else {
+                end = Math.max(end, pointEnd);
+            }
+            rangeIndex[i] = ranges.size() - 1;
+        }
+        if (!ranges.isEmpty()) {
+            ranges.set(ranges.size() - 1, new S7Range(DaveArea.DB, dbNum, start, end - start));
+        }
+
+        // range i starts in the buffer at the sum of the lengths before it
+        final int[] rangeStart = new int[ranges.size()];
+        int total = 0;
+        for (int r = 0; r < rangeStart.length; r++) {
+            rangeStart[r] = total;
+            total += ranges.get(r).getBytes();
+        }
+        if (this.readBuffer.length < total) {
+            this.readBuffer = new byte[total];
+        }
+        if (this.readResults.length < ranges.size()) {
+            this.readResults = new int[ranges.size()];
+        }
+        try {
+            this.connector.read(ranges, this.readBuffer, this.readResults);
+        } catch (final Exception e) {
+            throw new S7Exception("dispense " + ranges, e);
+        }
+
+        final List<Object> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final PointVariable pointVariable = pointVariables.get(i);
+            final S7Range range = ranges.get(rangeIndex[i]);
+            Object value = null;
+            if (this.readResults[rangeIndex[i]] != 0) {
+                log.warn("dispense {} rejected by plc", range);
+            } else {
+                try {
+                    value = extractBytes(pointVariable, this.readBuffer, rangeStart[rangeIndex[i]] - range.getOffset());
+                } catch (final S7Exception e) {
+                    log.warn("dispense dbnum({}) byteoffset({}) failed: {}", pointVariable.getDbNum(), pointVariable.getByteOffset(), e.getMessage());
+                }
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    /**
+     * add by pnoker
+     */
+    @Override
+    public synchronized int[] store(final List<PointVariable> pointVariables, final List<Object> values) throws S7Exception {
+        final int count = pointVariables.size();
+        final List<S7Range> ranges = new ArrayList<>(count);
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            final S7Range range = writeRange(pointVariables.get(i), values.get(i));
+            ranges.add(range);
+            total += range.getBytes();
+        }
+
+        final byte[] buffer = new byte[total];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            insertBytes(pointVariables.get(i), values.get(i), buffer, start);
+            start += ranges.get(i).getBytes();
+        }
+
+        final int[] results = new int[count];
+        try {
+            this.connector.write(ranges, buffer, results);
+        } catch (final Exception e) {
+            throw new S7Exception("store " + ranges, e);
+        }
+        return results;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -19,13 +19,21 @@ import com.github.pnoker.driver.bean.PointVariable;
 import com.github.s7connector.api.S7Serializable;
 import com.github.s7connector.api.S7Type;
 import com.github.s7connector.api.annotation.S7Variable;
+import com.github.s7connector.exception.S7Exception;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public final class BeanParser {
 
+    /**
+     * Parse results per class, the annotations of a class never change
+     */
+    private static final Map<Class<?>, BeanParseResult> CACHE = new ConcurrentHashMap<>(16);
+
     /**
      * Returns the wrapper for the primitive type
      *
@@ -65,13 +73,27 @@ public final class BeanParser {
     }
 
     /**
-     * Parses a Class
+     * Parses a Class, the result is cached and must not be modified
      *
      * @param jclass
      * @return
      * @throws Exception
      */
     public static BeanParseResult parse(final Class<?> jclass) throws Exception {
+        final BeanParseResult cached = CACHE.get(jclass);
+        if (cached != null) {
+            return cached;
+        }
+        return CACHE.computeIfAbsent(jclass, key -> {
+            try {
+                return doParse(key);
+            } catch (final Exception e) {
+                throw new S7Exception("parse " + key.getName(), e);
+            }
+        });
+    }
+
+    private static BeanParseResult doParse(final Class<?> jclass) throws Exception {
         final BeanParseResult res = new BeanParseResult();
         log.trace("Parsing: " + jclass.getName());
 
@@ -96,7 +118,7 @@ public final class BeanParser {
                 if (dataAnnotation.type() == S7Type.STRUCT) {
                     // recurse
                     log.trace("Recursing...");
-                    final BeanParseResult subResult = parse(field.getType());
+                    final BeanParseResult subResult = doParse(field.getType());
                     res.blockSize += subResult.blockSize;
                     log.trace("	New blocksize: " + res.blockSize);
                 }
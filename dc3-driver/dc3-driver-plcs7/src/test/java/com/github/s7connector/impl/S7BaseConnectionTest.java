@@ -0,0 +1,202 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl;
+
+import com.github.s7connector.api.DaveArea;
+import com.github.s7connector.api.S7Range;
+import com.github.s7connector.impl.nodave.Nodave;
+import com.github.s7connector.impl.nodave.PDU;
+import com.github.s7connector.impl.nodave.S7Connection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the chunked reads and writes of {@link S7BaseConnection}
+ *
+ * @author pnoker
+ */
+public class S7BaseConnectionTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {240, 480, 960})
+    public void readsEveryRangeToItsDestinationOffset(final int pdu) {
+        final FakePLC plc = new FakePLC(pdu);
+        final List<S7Range> ranges = Arrays.asList(
+                new S7Range(DaveArea.DB, 1, 0, 1500),
+                new S7Range(DaveArea.DB, 2, 7, 3),
+                new S7Range(DaveArea.DB, 1, 2000, 1));
+        final byte[] buffer = new byte[S7RequestPlan.totalBytes(ranges)];
+        final int[] results = new int[ranges.size()];
+
+        plc.connection.read(ranges, buffer, results);
+
+        assertArrayEquals(new int[]{0, 0, 0}, results);
+        for (int k = 0; k < 1500; k++) {
+            assertEquals(FakePLC.valueAt(1, k), buffer[k]);
+        }
+        for (int k = 0; k < 3; k++) {
+            assertEquals(FakePLC.valueAt(2, 7 + k), buffer[1500 + k]);
+        }
+        assertEquals(FakePLC.valueAt(1, 2000), buffer[1503]);
+        for (final S7Range item : plc.readItems) {
+            assertTrue(item.getBytes() <= ((pdu - 18) & ~1));
+        }
+    }
+
+    @Test
+    public void reportsRejectedRangesOnly() {
+        final FakePLC plc = new FakePLC(240);
+        plc.rejectedDb = 3;
+        final List<S7Range> ranges = Arrays.asList(
+                new S7Range(DaveArea.DB, 1, 0, 4),
+                new S7Range(DaveArea.DB, 3, 0, 4),
+                new S7Range(DaveArea.DB, 1, 10, 2));
+
+        final List<byte[]> values = plc.connection.read(ranges);
+
+        assertArrayEquals(new byte[]{FakePLC.valueAt(1, 0), FakePLC.valueAt(1, 1), FakePLC.valueAt(1, 2), FakePLC.valueAt(1, 3)}, values.get(0));
+        assertNull(values.get(1));
+        assertArrayEquals(new byte[]{FakePLC.valueAt(1, 10), FakePLC.valueAt(1, 11)}, values.get(2));
+    }
+
+    @Test
+    public void singleReadFailsOnRejectedRange() {
+        final FakePLC plc = new FakePLC(240);
+        plc.rejectedDb = 3;
+
+        assertThrows(IllegalArgumentException.class, () -> plc.connection.read(DaveArea.DB, 3, 4, 0));
+        assertTrue(plc.connection.isAlive());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {240, 241, 480, 960})
+    public void writesInEvenChunksThatFitThePdu(final int pdu) {
+        final FakePLC plc = new FakePLC(pdu);
+        final byte[] buffer = new byte[1001];
+        for (int k = 0; k < buffer.length; k++) {
+            buffer[k] = (byte) k;
+        }
+
+        plc.connection.write(DaveArea.DB, 1, 100, buffer);
+
+        final int chunk = (pdu - 28) & ~1;
+        int done = 0;
+        for (final int[] write : plc.writes) {
+            assertEquals(100 + done, write[0]);
+            assertEquals(Math.min(chunk, buffer.length - done), write[1]);
+            assertEquals(done, write[2]);
+            done += write[1];
+        }
+        assertEquals(buffer.length, done);
+        assertEquals((buffer.length + chunk - 1) / chunk, plc.writes.size());
+    }
+
+    @Test
+    public void writeReportsRejectedRangesOnly() {
+        final FakePLC plc = new FakePLC(240);
+        plc.rejectedDb = 3;
+        final List<S7Range> ranges = Arrays.asList(
+                new S7Range(DaveArea.DB, 1, 0, 300),
+                new S7Range(DaveArea.DB, 3, 0, 4),
+                S7Range.bit(DaveArea.DB, 1, 400, 2));
+        final int[] results = new int[ranges.size()];
+
+        plc.connection.write(ranges, new byte[305], results);
+
+        assertArrayEquals(new int[]{0, Nodave.RESULT_ITEM_NOT_AVAILABLE, 0}, results);
+        assertEquals(4, plc.writes.size());
+        assertArrayEquals(new int[]{400, 1, 304}, plc.writes.get(3));
+    }
+
+    @Test
+    public void singleWriteFailsOnRejectedRange() {
+        final FakePLC plc = new FakePLC(240);
+        plc.rejectedDb = 3;
+
+        assertThrows(IllegalArgumentException.class, () -> plc.connection.write(DaveArea.DB, 3, 0, new byte[4]));
+        assertTrue(plc.connection.isAlive());
+    }
+
+    /**
+     * Answers reads with a value derived from the address and records the
+     * requests instead of talking to a plc
+     */
+    private static final class FakePLC extends S7Connection {
+        private final S7BaseConnection connection;
+        private final List<S7Range> readItems = new ArrayList<>();
+        private final List<int[]> writes = new ArrayList<>();
+        private int rejectedDb = -1;
+
+        private FakePLC(final int pdu) {
+            super(null);
+            this.maxPDUlength = pdu;
+            this.connection = new S7BaseConnection() {
+                {
+                    this.init(FakePLC.this);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        private static byte valueAt(final int db, final int offset) {
+            return (byte) (db * 31 + offset);
+        }
+
+        @Override
+        public int exchange(final PDU p1) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int readMultiBytes(final List<S7Range> ranges, final byte[][] buffers, final int[] offsets,
+                                  final int[] itemResults) {
+            for (int i = 0; i < ranges.size(); i++) {
+                final S7Range range = ranges.get(i);
+                this.readItems.add(range);
+                if (range.getAreaNumber() == this.rejectedDb) {
+                    itemResults[i] = Nodave.RESULT_ITEM_NOT_AVAILABLE;
+                    continue;
+                }
+                for (int k = 0; k < range.getBytes(); k++) {
+                    buffers[i][offsets[i] + k] = valueAt(range.getAreaNumber(), range.getOffset() + k);
+                }
+                itemResults[i] = Nodave.RESULT_OK;
+            }
+            return Nodave.RESULT_OK;
+        }
+
+        @Override
+        public int writeMultiBytes(final List<S7Range> ranges, final byte[] buffer, final int[] offsets,
+                                   final int[] itemResults) {
+            for (int i = 0; i < ranges.size(); i++) {
+                final S7Range range = ranges.get(i);
+                this.writes.add(new int[]{range.getOffset(), range.getBytes(), offsets[i]});
+                itemResults[i] = range.getAreaNumber() == this.rejectedDb ? Nodave.RESULT_ITEM_NOT_AVAILABLE : Nodave.RESULT_OK;
+            }
+            return Nodave.RESULT_OK;
+        }
+    }
+}
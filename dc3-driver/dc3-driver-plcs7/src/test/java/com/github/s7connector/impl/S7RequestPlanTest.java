@@ -0,0 +1,251 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl;
+
+import com.github.s7connector.api.DaveArea;
+import com.github.s7connector.api.S7Range;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link S7RequestPlan}
+ *
+ * @author pnoker
+ */
+public class S7RequestPlanTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {240, 480, 960})
+    public void readSplitsRangesLargerThanOnePdu(final int pdu) {
+        final int maxItemSize = (pdu - 18) & ~1;
+        final List<S7Range> ranges = Arrays.asList(
+                new S7Range(DaveArea.DB, 1, 10, 2000),
+                new S7Range(DaveArea.DB, 2, 0, 7));
+
+        final List<S7RequestPlan.Batch> batches = S7RequestPlan.read(ranges, pdu);
+
+        int expectedOffset = 0;
+        int itemCount = 0;
+        for (final S7RequestPlan.Batch batch : batches) {
+            assertReadFits(batch, pdu);
+            for (int j = 0; j < batch.items.size(); j++) {
+                final S7Range item = batch.items.get(j);
+                if (batch.targets[j] == 1) {
+                    break;
+                }
+                assertEquals(0, batch.targets[j]);
+                assertEquals(expectedOffset, batch.offsets[j]);
+                assertEquals(10 + expectedOffset, item.getOffset());
+                assertEquals(Math.min(maxItemSize, 2000 - expectedOffset), item.getBytes());
+                expectedOffset += item.getBytes();
+                itemCount++;
+            }
+        }
+        assertEquals(2000, expectedOffset);
+        assertEquals((2000 + maxItemSize - 1) / maxItemSize, itemCount);
+
+        final S7RequestPlan.Batch last = batches.get(batches.size() - 1);
+        final int lastItem = last.items.size() - 1;
+        assertEquals(1, last.targets[lastItem]);
+        assertEquals(2000, last.offsets[lastItem]);
+        assertEquals(7, last.items.get(lastItem).getBytes());
+        assertEquals(2, last.items.get(lastItem).getAreaNumber());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {240, 480, 960})
+    public void readItemsNeverExceedTheNegotiatedPdu(final int pdu) {
+        final List<S7Range> ranges = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ranges.add(new S7Range(DaveArea.DB, 1, i * 100, 33 + i * 7));
+        }
+
+        final List<S7RequestPlan.Batch> batches = S7RequestPlan.read(ranges, pdu);
+
+        final int[] covered = new int[ranges.size()];
+        int offset = 0;
+        for (final S7RequestPlan.Batch batch : batches) {
+            assertReadFits(batch, pdu);
+            for (int j = 0; j < batch.items.size(); j++) {
+                final S7Range range = ranges.get(batch.targets[j]);
+                final S7Range item = batch.items.get(j);
+                assertEquals(offset, batch.offsets[j]);
+                assertEquals(range.getOffset() + covered[batch.targets[j]], item.getOffset());
+                covered[batch.targets[j]] += item.getBytes();
+                offset += item.getBytes();
+            }
+        }
+        for (int i = 0; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i).getBytes(), covered[i]);
+        }
+        assertEquals(S7RequestPlan.totalBytes(ranges), offset);
+    }
+
+    @Test
+    public void readPadsOddLengthsInTheAnswer() {
+        // 14 + (4 + 100) + (4 + 101 + 1) = 224, a third item of 13 bytes needs 18 more
+        final List<S7Range> ranges = Arrays.asList(
+                new S7Range(DaveArea.DB, 1, 0, 100),
+                new S7Range(DaveArea.DB, 1, 200, 101),
+                new S7Range(DaveArea.DB, 1, 400, 13));
+
+        final List<S7RequestPlan.Batch> batches = S7RequestPlan.read(ranges, 240);
+
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).items.size());
+        assertEquals(0, batches.get(0).offsets[0]);
+        assertEquals(100, batches.get(0).offsets[1]);
+        assertEquals(1, batches.get(1).items.size());
+        assertEquals(2, batches.get(1).targets[0]);
+        assertEquals(201, batches.get(1).offsets[0]);
+        assertEquals(13, batches.get(1).items.get(0).getBytes());
+    }
+
+    @Test
+    public void readLimitsTheItemsPerRequest() {
+        final List<S7Range> ranges = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ranges.add(new S7Range(DaveArea.DB, 1, i * 2, 2));
+        }
+
+        final List<S7RequestPlan.Batch> batches = S7RequestPlan.read(ranges, 960);
+
+        assertEquals(2, batches.size());
+        assertEquals(S7RequestPlan.MAX_ITEMS, batches.get(0).items.size());
+        assertEquals(5, batches.get(1).items.size());
+        assertEquals(20, batches.get(1).targets[0]);
+        assertEquals(40, batches.get(1).offsets[0]);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {240, 480, 960})
+    public void writeSplitsRangesIntoEvenChunks(final int pdu) {
+        final int chunk = (pdu - 28) & ~1;
+        final List<S7Range> ranges = Arrays.asList(
+                new S7Range(DaveArea.DB, 1, 100, 1001),
+                new S7Range(DaveArea.DB, 2, 3, 5));
+
+        final List<S7RequestPlan.Batch> batches = S7RequestPlan.write(ranges, pdu);
+
+        int expectedOffset = 0;
+        int itemCount = 0;
+        for (final S7RequestPlan.Batch batch : batches) {
+            assertWriteFits(batch, pdu);
+            for (int j = 0; j < batch.items.size(); j++) {
+                if (batch.targets[j] == 1) {
+                    assertEquals(1001, batch.offsets[j]);
+                    assertEquals(5, batch.items.get(j).getBytes());
+                    assertEquals(3, batch.items.get(j).getOffset());
+                    continue;
+                }
+                final S7Range item = batch.items.get(j);
+                assertEquals(expectedOffset, batch.offsets[j]);
+                assertEquals(100 + expectedOffset, item.getOffset());
+                assertEquals(Math.min(chunk, 1001 - expectedOffset), item.getBytes());
+                expectedOffset += item.getBytes();
+                itemCount++;
+            }
+        }
+        assertEquals(1001, expectedOffset);
+        assertEquals((1001 + chunk - 1) / chunk, itemCount);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {240, 480, 960})
+    public void writeItemsNeverExceedTheNegotiatedPdu(final int pdu) {
+        final List<S7Range> ranges = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ranges.add(i % 3 == 0
+                    ? S7Range.bit(DaveArea.DB, 1, i * 100, i % 8)
+                    : new S7Range(DaveArea.DB, 1, i * 100, 17 + i * 5));
+        }
+
+        final List<S7RequestPlan.Batch> batches = S7RequestPlan.write(ranges, pdu);
+
+        final int[] covered = new int[ranges.size()];
+        int offset = 0;
+        for (final S7RequestPlan.Batch batch : batches) {
+            assertWriteFits(batch, pdu);
+            for (int j = 0; j < batch.items.size(); j++) {
+                final S7Range item = batch.items.get(j);
+                assertEquals(offset, batch.offsets[j]);
+                covered[batch.targets[j]] += item.getBytes();
+                offset += item.getBytes();
+            }
+        }
+        for (int i = 0; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i).getBytes(), covered[i]);
+        }
+        assertEquals(S7RequestPlan.totalBytes(ranges), offset);
+    }
+
+    @Test
+    public void writeKeepsBitsAsSingleItems() {
+        final S7Range bit = S7Range.bit(DaveArea.DB, 4, 12, 6);
+        final List<S7Range> ranges = Arrays.asList(new S7Range(DaveArea.DB, 4, 0, 3), bit);
+
+        final List<S7RequestPlan.Batch> batches = S7RequestPlan.write(ranges, 240);
+
+        assertEquals(1, batches.size());
+        assertSame(bit, batches.get(0).items.get(1));
+        assertEquals(1, batches.get(0).targets[1]);
+        assertEquals(3, batches.get(0).offsets[1]);
+    }
+
+    @Test
+    public void splitReturnsNullForRejectedRanges() {
+        final List<S7Range> ranges = Arrays.asList(
+                new S7Range(DaveArea.DB, 1, 0, 2),
+                new S7Range(DaveArea.DB, 1, 10, 3),
+                new S7Range(DaveArea.DB, 1, 20, 1));
+        final byte[] buffer = {1, 2, 3, 4, 5, 6};
+
+        final List<byte[]> split = S7RequestPlan.split(ranges, buffer, new int[]{0, 10, 0});
+
+        assertArrayEquals(new byte[]{1, 2}, split.get(0));
+        assertNull(split.get(1));
+        assertArrayEquals(new byte[]{6}, split.get(2));
+    }
+
+    private static void assertReadFits(final S7RequestPlan.Batch batch, final int pdu) {
+        assertFalse(batch.items.isEmpty());
+        assertTrue(batch.items.size() <= S7RequestPlan.MAX_ITEMS);
+        int response = S7RequestPlan.RESPONSE_HEADER;
+        for (final S7Range item : batch.items) {
+            response += S7RequestPlan.RESPONSE_ITEM + item.getBytes() + item.getBytes() % 2;
+        }
+        assertTrue(S7RequestPlan.REQUEST_HEADER + S7RequestPlan.REQUEST_ITEM * batch.items.size() <= pdu);
+        assertTrue(response <= pdu, "response " + response + " > " + pdu);
+    }
+
+    private static void assertWriteFits(final S7RequestPlan.Batch batch, final int pdu) {
+        assertFalse(batch.items.isEmpty());
+        assertTrue(batch.items.size() <= S7RequestPlan.MAX_ITEMS);
+        int request = S7RequestPlan.REQUEST_HEADER;
+        for (final S7Range item : batch.items) {
+            request += S7RequestPlan.REQUEST_ITEM + S7RequestPlan.WRITE_DATA_ITEM + item.getBytes() + item.getBytes() % 2;
+        }
+        assertTrue(request <= pdu, "request " + request + " > " + pdu);
+        assertTrue(S7RequestPlan.RESPONSE_HEADER + S7RequestPlan.WRITE_RESPONSE_ITEM * batch.items.size() <= pdu);
+    }
+}
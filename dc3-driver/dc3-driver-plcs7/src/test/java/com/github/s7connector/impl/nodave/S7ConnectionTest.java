@@ -0,0 +1,150 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl.nodave;
+
+import com.github.s7connector.api.DaveArea;
+import com.github.s7connector.api.S7Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the multi-variable write request and its answer, on canned bytes
+ *
+ * @author pnoker
+ */
+public class S7ConnectionTest {
+
+    @Test
+    public void writeMultiBytesBuildsOneItemPerRange() {
+        final CannedConnection connection = new CannedConnection(writeResponse(0xFF, 0xFF, 0xFF));
+        final List<S7Range> ranges = Arrays.asList(
+                new S7Range(DaveArea.DB, 1, 10, 3),
+                S7Range.bit(DaveArea.DB, 1, 20, 5),
+                new S7Range(DaveArea.DB, 2, 0, 2));
+        final byte[] buffer = {0x11, 0x22, 0x33, 0x01, 0x44, 0x55};
+        final int[] itemResults = new int[3];
+
+        assertEquals(Nodave.RESULT_OK, connection.writeMultiBytes(ranges, buffer, new int[]{0, 3, 4}, itemResults));
+
+        assertArrayEquals(new int[]{0, 0, 0}, itemResults);
+        final byte[] request = connection.request;
+        assertEquals(PDU.FUNC_WRITE, request[10]);
+        assertEquals(3, request[11]);
+        assertEquals(2 + 3 * 12, Nodave.USBEWord(request, 6));
+        assertEquals(20, Nodave.USBEWord(request, 8));
+        // byte item, length 3, db 1, address 10.0 in bits
+        assertArrayEquals(bytes(0x12, 0x0a, 0x10, 0x02, 0x00, 0x03, 0x00, 0x01, 0x84, 0x00, 0x00, 0x50), Arrays.copyOfRange(request, 12, 24));
+        // bit item, address 20.5 in bits
+        assertArrayEquals(bytes(0x12, 0x0a, 0x10, 0x01, 0x00, 0x01, 0x00, 0x01, 0x84, 0x00, 0x00, 0xA5), Arrays.copyOfRange(request, 24, 36));
+        assertArrayEquals(bytes(0x12, 0x0a, 0x10, 0x02, 0x00, 0x02, 0x00, 0x02, 0x84, 0x00, 0x00, 0x00), Arrays.copyOfRange(request, 36, 48));
+        // data: byte lengths in bits, a bit item carries one byte, odd items are padded
+        assertArrayEquals(bytes(
+                0x00, 0x04, 0x00, 0x18, 0x11, 0x22, 0x33, 0x00,
+                0x00, 0x03, 0x00, 0x01, 0x01, 0x00,
+                0x00, 0x04, 0x00, 0x10, 0x44, 0x55), Arrays.copyOfRange(request, 48, request.length));
+    }
+
+    @Test
+    public void writeMultiBytesReportsPerItemErrors() {
+        final CannedConnection connection = new CannedConnection(writeResponse(0xFF, Nodave.RESULT_ITEM_NOT_AVAILABLE, Nodave.RESULT_ADDRESS_OUT_OF_RANGE));
+        final List<S7Range> ranges = Arrays.asList(
+                new S7Range(DaveArea.DB, 1, 0, 2),
+                new S7Range(DaveArea.DB, 9, 0, 2),
+                new S7Range(DaveArea.DB, 1, 9000, 2));
+        final int[] itemResults = new int[3];
+
+        assertEquals(Nodave.RESULT_OK, connection.writeMultiBytes(ranges, new byte[6], new int[]{0, 2, 4}, itemResults));
+
+        assertArrayEquals(new int[]{Nodave.RESULT_OK, Nodave.RESULT_ITEM_NOT_AVAILABLE, Nodave.RESULT_ADDRESS_OUT_OF_RANGE}, itemResults);
+    }
+
+    @Test
+    public void evalWriteResponseRejectsMismatchedAnswers() {
+        final int[] itemResults = new int[2];
+
+        assertEquals(Nodave.RESULT_CANNOT_EVALUATE_PDU, S7Connection.evalWriteResponse(writeResponse(0xFF), 0, 2, itemResults));
+
+        final byte[] read = writeResponse(0xFF, 0xFF);
+        read[12] = PDU.FUNC_READ;
+        assertEquals(Nodave.RESULT_UNEXPECTED_FUNC, S7Connection.evalWriteResponse(read, 0, 2, itemResults));
+
+        final byte[] failed = writeResponse(0xFF, 0xFF);
+        failed[10] = (byte) 0x81;
+        failed[11] = 0x04;
+        assertEquals(0x8104, S7Connection.evalWriteResponse(failed, 0, 2, itemResults));
+    }
+
+    @Test
+    public void writeMultiBytesReturnsTransportErrors() {
+        final CannedConnection connection = new CannedConnection(writeResponse(0xFF));
+        connection.exchangeResult = Nodave.RESULT_TIMEOUT;
+
+        assertEquals(Nodave.RESULT_TIMEOUT, connection.writeMultiBytes(
+                Collections.singletonList(new S7Range(DaveArea.DB, 1, 0, 1)), new byte[1], new int[]{0}, new int[1]));
+        assertEquals(1, connection.semaphore.availablePermits());
+    }
+
+    /**
+     * Ack data answer to a write request with one result byte per item
+     */
+    static byte[] writeResponse(final int... codes) {
+        final byte[] answer = new byte[14 + codes.length];
+        answer[0] = 0x32;
+        answer[1] = 3;
+        Nodave.setUSBEWord(answer, 6, 2);
+        Nodave.setUSBEWord(answer, 8, codes.length);
+        answer[12] = PDU.FUNC_WRITE;
+        answer[13] = (byte) codes.length;
+        for (int i = 0; i < codes.length; i++) {
+            answer[14 + i] = (byte) codes[i];
+        }
+        return answer;
+    }
+
+    static byte[] bytes(final int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * Keeps the request and answers it with canned bytes instead of a transport
+     */
+    static final class CannedConnection extends S7Connection {
+        private final byte[] response;
+        private byte[] request;
+        private int exchangeResult = Nodave.RESULT_OK;
+
+        CannedConnection(final byte[] response) {
+            super(null);
+            this.response = response;
+        }
+
+        @Override
+        public int exchange(final PDU p1) {
+            this.request = Arrays.copyOfRange(this.msgOut, this.PDUstartOut, this.PDUstartOut + p1.getLength());
+            System.arraycopy(this.response, 0, this.msgIn, this.PDUstartIn, this.response.length);
+            return this.exchangeResult;
+        }
+    }
+}
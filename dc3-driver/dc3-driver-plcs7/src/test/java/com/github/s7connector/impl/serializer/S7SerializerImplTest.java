@@ -0,0 +1,126 @@
+/*
+Copyright 2016 S7connector members (github.com/s7connector)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.github.s7connector.impl.serializer;
+
+import com.github.pnoker.driver.bean.PointVariable;
+import com.github.s7connector.impl.S7BaseConnection;
+import com.github.s7connector.impl.nodave.Nodave;
+import com.github.s7connector.impl.nodave.PDU;
+import com.github.s7connector.impl.nodave.S7Connection;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the batched {@link S7SerializerImpl#store(List, List)}, on canned bytes
+ *
+ * @author pnoker
+ */
+public class S7SerializerImplTest {
+
+    @Test
+    public void storeWritesEveryPointInOneRequest() {
+        final CannedPLC plc = new CannedPLC(0xFF, Nodave.RESULT_ITEM_NOT_AVAILABLE, 0xFF);
+        final List<PointVariable> points = Arrays.asList(
+                new PointVariable(1, 4, 3, 1, "bool"),
+                new PointVariable(1, 6, 0, 2, "int"),
+                new PointVariable(2, 0, 0, 4, "real"));
+
+        final int[] results = new S7SerializerImpl(plc.connection).store(points, Arrays.asList(true, (short) -2, 1.5f));
+
+        assertArrayEquals(new int[]{Nodave.RESULT_OK, Nodave.RESULT_ITEM_NOT_AVAILABLE, Nodave.RESULT_OK}, results);
+        assertEquals(1, plc.requests);
+        final byte[] request = plc.request;
+        assertEquals(PDU.FUNC_WRITE, request[10]);
+        assertEquals(3, request[11]);
+        // the bool is a single bit item at 4.3, so the other bits of byte 4 are left alone
+        assertArrayEquals(bytes(0x12, 0x0a, 0x10, 0x01, 0x00, 0x01, 0x00, 0x01, 0x84, 0x00, 0x00, 0x23), Arrays.copyOfRange(request, 12, 24));
+        assertArrayEquals(bytes(0x12, 0x0a, 0x10, 0x02, 0x00, 0x02, 0x00, 0x01, 0x84, 0x00, 0x00, 0x30), Arrays.copyOfRange(request, 24, 36));
+        assertArrayEquals(bytes(0x12, 0x0a, 0x10, 0x02, 0x00, 0x04, 0x00, 0x02, 0x84, 0x00, 0x00, 0x00), Arrays.copyOfRange(request, 36, 48));
+        assertArrayEquals(bytes(
+                0x00, 0x03, 0x00, 0x01, 0x01, 0x00,
+                0x00, 0x04, 0x00, 0x10, 0xFF, 0xFE,
+                0x00, 0x04, 0x00, 0x20, 0x3F, 0xC0, 0x00, 0x00), Arrays.copyOfRange(request, 48, request.length));
+    }
+
+    @Test
+    public void storeWritesFalseAsAClearedBit() {
+        final CannedPLC plc = new CannedPLC(0xFF);
+
+        final int[] results = new S7SerializerImpl(plc.connection).store(
+                Arrays.asList(new PointVariable(5, 0, 7, 1, "bool")), Arrays.asList((Object) false));
+
+        assertArrayEquals(new int[]{Nodave.RESULT_OK}, results);
+        assertEquals(0x01, plc.request[15]);
+        assertEquals(0x07, plc.request[23]);
+        assertArrayEquals(bytes(0x00, 0x03, 0x00, 0x01, 0x00), Arrays.copyOfRange(plc.request, 24, plc.request.length));
+    }
+
+    private static byte[] bytes(final int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * Keeps the last write request and acknowledges it with the given result
+     * codes, one per item
+     */
+    private static final class CannedPLC extends S7Connection {
+        private final S7BaseConnection connection;
+        private final int[] codes;
+        private byte[] request;
+        private int requests;
+
+        private CannedPLC(final int... codes) {
+            super(null);
+            this.codes = codes;
+            this.maxPDUlength = 240;
+            this.connection = new S7BaseConnection() {
+                {
+                    this.init(CannedPLC.this);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public int exchange(final PDU p1) {
+            this.requests++;
+            this.request = Arrays.copyOfRange(this.msgOut, this.PDUstartOut, this.PDUstartOut + p1.getLength());
+            final byte[] answer = this.msgIn;
+            Arrays.fill(answer, (byte) 0);
+            answer[this.PDUstartIn] = 0x32;
+            answer[this.PDUstartIn + 1] = 3;
+            Nodave.setUSBEWord(answer, this.PDUstartIn + 6, 2);
+            Nodave.setUSBEWord(answer, this.PDUstartIn + 8, this.codes.length);
+            answer[this.PDUstartIn + 12] = PDU.FUNC_WRITE;
+            answer[this.PDUstartIn + 13] = (byte) this.codes.length;
+            for (int i = 0; i < this.codes.length; i++) {
+                answer[this.PDUstartIn + 14 + i] = (byte) this.codes[i];
+            }
+            return Nodave.RESULT_OK;
+        }
+    }
+}
@@ -16,31 +16,23 @@
 
 package com.github.pnoker.gateway;
 
+import com.github.pnoker.gateway.config.BlockHoundInstaller;
 import org.springframework.boot.SpringApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.client.SpringCloudApplication;
-import org.springframework.cloud.openfeign.EnableFeignClients;
-import org.springframework.context.annotation.ComponentScan;
 
 /**
  * 平台网关服务入口
+ * 网关不使用 Feign，调用其他服务统一通过响应式的 WebClient，请求路径上不允许阻塞调用
  *
  * @author pnoker
  */
 @EnableCaching
 @SpringCloudApplication
-@EnableFeignClients(basePackages = {
-        "com.github.pnoker.api.center.auth.user.*",
-        "com.github.pnoker.api.center.auth.token.*"
-})
-@ComponentScan(basePackages = {
-        "com.github.pnoker.api.center.auth.user",
-        "com.github.pnoker.api.center.auth.token",
-        "com.github.pnoker.gateway"
-})
 public class GatewayApplication {
 
     public static void main(String[] args) {
+        BlockHoundInstaller.install();
         SpringApplication.run(GatewayApplication.class, args);
     }
 }
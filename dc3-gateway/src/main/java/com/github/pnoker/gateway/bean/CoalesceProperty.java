@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.bean;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 网关配置文件 gateway.coalesce 字段内容
+ * 各路由的缓存时间在路由的 CoalesceFilter 参数中配置
+ *
+ * @author pnoker
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "gateway.coalesce")
+public class CoalesceProperty {
+    /**
+     * 缓存的响应数量上限
+     */
+    private long maxEntries = 10000;
+    /**
+     * 请求体与响应体的大小上限，超过时不合并也不缓存，单位字节
+     */
+    private int maxRequestSize = 64 * 1024;
+    private int maxResponseSize = 1024 * 1024;
+    /**
+     * 上游请求的最长等待时间，超时后等待中的请求各自请求上游
+     */
+    private Duration inflightTimeout = Duration.ofSeconds(30);
+}
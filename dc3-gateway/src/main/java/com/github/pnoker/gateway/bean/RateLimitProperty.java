@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.bean;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网关配置文件 gateway.rate-limit 字段内容
+ *
+ * @author pnoker
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperty {
+    private boolean enabled = true;
+    /**
+     * 本地令牌桶与 Redis 对账的间隔，多个网关实例之间的超发量不超过 实例数 × 速率 × 间隔
+     */
+    private Duration syncInterval = Duration.ofSeconds(1);
+    /**
+     * 令牌桶数量上限，以及空闲多久后回收
+     */
+    private long maxBuckets = 100000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    /**
+     * 未单独配置的路由使用的限流参数
+     */
+    private Limit defaultLimit = new Limit();
+    /**
+     * 路由 ID,限流参数
+     */
+    private Map<String, Limit> routes = new HashMap<>(16);
+    /**
+     * 请求消耗的令牌数，按顺序匹配，未匹配的请求消耗 1 个令牌
+     */
+    private List<Cost> costs = new ArrayList<>();
+
+    @Setter
+    @Getter
+    public static class Limit {
+        /**
+         * 每秒补充的令牌数
+         */
+        private int replenishRate = 100;
+        /**
+         * 令牌桶容量
+         */
+        private int burstCapacity = 200;
+    }
+
+    @Setter
+    @Getter
+    public static class Cost {
+        /**
+         * 路径模式，如 /dc3-data/data/list
+         */
+        private String path;
+        /**
+         * 请求方法，为空时匹配所有方法
+         */
+        private String method;
+        private int cost = 1;
+    }
+}
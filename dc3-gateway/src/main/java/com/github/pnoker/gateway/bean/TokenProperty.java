@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.bean;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 网关配置文件 gateway.token 字段内容
+ *
+ * @author pnoker
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "gateway.token")
+public class TokenProperty {
+    /**
+     * 校验通过的 Token 缓存数量，缓存在 Token 过期时失效
+     */
+    private long cacheSize = 100000;
+    /**
+     * 校验通过的 Token 最长缓存时间
+     */
+    private Duration cacheTtl = Duration.ofHours(1);
+    /**
+     * 校验失败的 Token 缓存数量与缓存时间
+     */
+    private long rejectedCacheSize = 10000;
+    private Duration rejectedCacheTtl = Duration.ofMinutes(1);
+    /**
+     * 从授权中心全量同步已吊销令牌的间隔，吊销消息在订阅断开期间丢失时以此兜底
+     */
+    private Duration revokedSyncInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.config;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.blockhound.BlockHound;
+
+/**
+ * 阻塞调用检测，启动参数 -Ddc3.block-hound=true 时开启
+ * <p>
+ * 开启后在 Netty 事件循环与 Reactor 非阻塞线程上的阻塞调用会抛出 BlockingOperationError，
+ * 用于压测或联调时确认认证、限流等请求路径没有阻塞调用；需要在 Spring 启动前安装
+ *
+ * @author pnoker
+ */
+@Slf4j
+public class BlockHoundInstaller {
+
+    public static final String PROPERTY = "dc3.block-hound";
+
+    public static void install() {
+        if (!Boolean.getBoolean(PROPERTY)) {
+            return;
+        }
+        BlockHound.install(builder -> builder
+                // 日志写文件加锁，属于可接受的短暂阻塞
+                .allowBlockingCallsInside("ch.qos.logback.core.OutputStreamAppender", "writeBytes")
+                // Caffeine 写缓冲区满时在调用线程上同步清理
+                .allowBlockingCallsInside("com.github.benmanes.caffeine.cache.BoundedLocalCache", "performCleanUp")
+        );
+        log.info("BlockHound installed");
+    }
+}
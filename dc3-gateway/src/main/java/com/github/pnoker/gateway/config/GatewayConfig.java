@@ -17,11 +17,13 @@
 package com.github.pnoker.gateway.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 /**
@@ -52,4 +54,15 @@ public class GatewayConfig {
         };
     }
 
+    /**
+     * 按服务名负载均衡的 WebClient，网关调用其他服务时使用，避免在事件循环上执行阻塞的 Feign 调用
+     *
+     * @return
+     */
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder() {
+        return WebClient.builder();
+    }
+
 }
\ No newline at end of file
@@ -16,21 +16,18 @@
 
 package com.github.pnoker.gateway.config;
 
+import com.github.pnoker.gateway.filter.RateLimitFilter;
 import com.github.pnoker.gateway.hystrix.GatewayHystrix;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
-import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.annotation.Order;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.RequestPredicates;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
-import reactor.core.publisher.Mono;
 
 /**
  * 自定义Route配置
@@ -42,6 +39,7 @@ import reactor.core.publisher.Mono;
 @AllArgsConstructor
 public class RouteConfig {
     private final GatewayHystrix gatewayHystrix;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
     public RouteLocator myRouteLocator(RouteLocatorBuilder builder) {
@@ -49,43 +47,46 @@ public class RouteConfig {
                 .route("generate_token",
                         r -> r.path("/api/v3/token")
                                 .filters(
-                                        f -> f.setPath("/auth/token")
-                                                .requestRateLimiter(l -> l.setKeyResolver(hostKeyResolver()).setRateLimiter(redisRateLimiter()))
+                                        f -> f.filter(rateLimitFilter.apply(new Object()))
+                                                .setPath("/auth/token")
+                                                .hystrix(h -> h.setName("default").setFallbackUri("forward:/fallback"))
+                                ).uri("lb://dc3-auth")
+                )
+                .route("generate_token_pair",
+                        r -> r.path("/api/v3/token/pair")
+                                .filters(
+                                        f -> f.filter(rateLimitFilter.apply(new Object()))
+                                                .setPath("/auth/token/pair")
+                                                .hystrix(h -> h.setName("default").setFallbackUri("forward:/fallback"))
+                                ).uri("lb://dc3-auth")
+                )
+                .route("refresh_token",
+                        r -> r.path("/api/v3/token/refresh")
+                                .filters(
+                                        f -> f.filter(rateLimitFilter.apply(new Object()))
+                                                .setPath("/auth/token/refresh")
+                                                .hystrix(h -> h.setName("default").setFallbackUri("forward:/fallback"))
+                                ).uri("lb://dc3-auth")
+                )
+                .route("revoke_token",
+                        r -> r.path("/api/v3/token/revoke")
+                                .filters(
+                                        f -> f.filter(rateLimitFilter.apply(new Object()))
+                                                .setPath("/auth/token/revoke")
                                                 .hystrix(h -> h.setName("default").setFallbackUri("forward:/fallback"))
                                 ).uri("lb://dc3-auth")
                 )
                 .route("register_user",
                         r -> r.path("/api/v3/register")
                                 .filters(
-                                        f -> f.setPath("/auth/user/add")
-                                                .requestRateLimiter(l -> l.setKeyResolver(hostKeyResolver()).setRateLimiter(redisRateLimiter()))
+                                        f -> f.filter(rateLimitFilter.apply(new Object()))
+                                                .setPath("/auth/user/add")
                                                 .hystrix(h -> h.setName("default").setFallbackUri("forward:/fallback"))
                                 ).uri("lb://dc3-auth")
                 )
                 .build();
     }
 
-    /**
-     * 根据 HOSTADDRESS 进行限流
-     *
-     * @return
-     */
-    @Bean
-    @Order(-10)
-    public KeyResolver hostKeyResolver() {
-        return exchange -> Mono.just(exchange.getRequest().getRemoteAddress().getAddress().getHostAddress());
-    }
-
-    /**
-     * 限流
-     *
-     * @return
-     */
-    @Bean
-    RedisRateLimiter redisRateLimiter() {
-        return new RedisRateLimiter(100, 2000);
-    }
-
     @Bean
     public RouterFunction routerFunction() {
         return RouterFunctions.route(RequestPredicates.path("/fallback").and(RequestPredicates.accept(MediaType.TEXT_PLAIN)), gatewayHystrix);
@@ -16,36 +16,52 @@
 
 package com.github.pnoker.gateway.filter;
 
-import com.github.pnoker.common.utils.KeyUtil;
+import com.github.pnoker.common.constant.Common;
+import com.github.pnoker.gateway.service.TokenVerifier;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Resource;
+
 /**
  * 自定义权限过滤器
+ * 校验通过后将 Token 中的用户、签发时间与过期时间以请求头转发，下游服务无需再次校验
  *
  * @author pnoker
  */
 @Component
 public class AuthenticFilter extends AbstractGatewayFilterFactory {
+    /**
+     * 校验通过的 Token 信息，保存在 exchange 属性中供后续过滤器使用
+     */
+    public static final String CLAIMS_ATTR = "dc3TokenClaims";
+
+    @Resource
+    private TokenVerifier tokenVerifier;
 
     @Override
     public GatewayFilter apply(Object config) {
         return (exchange, chain) -> {
             // 获取Header信息
-            String token = exchange.getRequest().getHeaders().getFirst("Token");
-            if (!StringUtils.isBlank(token)) {
-                try {
-                    // 校验Token
-                    KeyUtil.parserToken(token);
-                    return chain.filter(exchange);
-                } catch (Exception e) {
-                }
+            String token = exchange.getRequest().getHeaders().getFirst(Common.Header.TOKEN);
+            // 校验Token
+            TokenVerifier.TokenClaims claims = StringUtils.isBlank(token) ? null : tokenVerifier.verify(token);
+            if (null == claims) {
+                exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                return exchange.getResponse().setComplete();
             }
-            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-            return exchange.getResponse().setComplete();
+
+            ServerHttpRequest request = exchange.getRequest().mutate().headers(headers -> {
+                headers.set(Common.Header.USER, claims.getUser());
+                headers.set(Common.Header.TOKEN_ISSUED_AT, claims.getIssuedAtHeader());
+                headers.set(Common.Header.TOKEN_EXPIRATION, claims.getExpirationHeader());
+            }).build();
+            exchange.getAttributes().put(CLAIMS_ATTR, claims);
+            return chain.filter(exchange.mutate().request(request).build());
         };
     }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.filter;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.pnoker.common.constant.Common;
+import com.github.pnoker.gateway.bean.CoalesceProperty;
+import com.github.pnoker.gateway.service.ResponseCache;
+import com.github.pnoker.gateway.service.TokenVerifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.commons.lang.StringUtils;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * 合并相同的查询请求并短时缓存响应，需要在路由中显式配置，如 CoalesceFilter=1s
+ * <p>
+ * 路由、方法、路径与查询参数、用户、请求体摘要都相同的请求视为相同请求，同一时刻只有一个请求到达上游，
+ * 其余请求复用其响应；只缓存 2xx 且不带 Set-Cookie 的响应。
+ * <p>
+ * 过滤器必须在 NettyWriteResponseFilter 之前执行才能截获响应，因此早于 AuthenticFilter，
+ * 这里自行校验 Token：无效 Token 不参与合并，未携带 Token 的请求只能复用同样未携带 Token 的请求的响应
+ *
+ * @author pnoker
+ */
+@Component
+public class CoalesceFilter extends AbstractGatewayFilterFactory<CoalesceFilter.Config> {
+    @Resource
+    private ResponseCache responseCache;
+    @Resource
+    private TokenVerifier tokenVerifier;
+    @Resource
+    private CoalesceProperty coalesceProperty;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private Counter upstreamCounter;
+    private Counter sharedCounter;
+    private Counter fallbackCounter;
+    private Counter bypassCounter;
+
+    public CoalesceFilter() {
+        super(Config.class);
+    }
+
+    @PostConstruct
+    public void initial() {
+        upstreamCounter = meterRegistry.counter("dc3.gateway.coalesce.requests", "result", "upstream");
+        sharedCounter = meterRegistry.counter("dc3.gateway.coalesce.requests", "result", "shared");
+        fallbackCounter = meterRegistry.counter("dc3.gateway.coalesce.requests", "result", "fallback");
+        bypassCounter = meterRegistry.counter("dc3.gateway.coalesce.requests", "result", "bypass");
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Collections.singletonList("ttl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        long ttl = Math.max(0, config.getTtl().toNanos());
+        Set<HttpMethod> methods = EnumSet.noneOf(HttpMethod.class);
+        for (String method : config.getMethods()) {
+            HttpMethod resolved = HttpMethod.resolve(method.trim().toUpperCase());
+            if (null != resolved) {
+                methods.add(resolved);
+            }
+        }
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            HttpHeaders headers = request.getHeaders();
+            long length = headers.getContentLength();
+            String scope = methods.contains(request.getMethod()) ? scope(headers) : null;
+            // 客户端不应携带网关转发的请求头，携带时无法确定其作用范围
+            if (null == scope || headers.containsKey(Common.Header.USER)
+                    || length > coalesceProperty.getMaxRequestSize()
+                    || (length < 0 && headers.containsKey(HttpHeaders.TRANSFER_ENCODING))) {
+                bypassCounter.increment();
+                return chain.filter(exchange);
+            }
+
+            Mono<byte[]> body = 0 == length ? Mono.just(EMPTY) : DataBufferUtils.join(request.getBody()).map(CoalesceFilter::toBytes).defaultIfEmpty(EMPTY);
+            return body.flatMap(bytes -> coalesce(exchange, chain, key(exchange, scope, bytes), bytes, ttl));
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> coalesce(ServerWebExchange exchange, GatewayFilterChain chain, String key, byte[] body, long ttl) {
+        ServerHttpRequest request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+
+        ResponseCache.Entry candidate = new ResponseCache.Entry(ttl);
+        ResponseCache.Entry entry = responseCache.acquire(key, candidate);
+        if (entry != candidate) {
+            // 上游响应不可缓存或超时时各自请求上游
+            return entry.response()
+                    .timeout(responseCache.inflightTimeout(), Mono.empty())
+                    .map(cached -> {
+                        sharedCounter.increment();
+                        return write(exchange.getResponse(), cached);
+                    })
+                    .defaultIfEmpty(Mono.defer(() -> {
+                        fallbackCounter.increment();
+                        return chain.filter(exchange.mutate().request(request).build());
+                    }))
+                    .flatMap(action -> action);
+        }
+
+        upstreamCounter.increment();
+        ServerHttpResponse response = new CapturingResponse(exchange.getResponse(), key, entry);
+        return chain.filter(exchange.mutate().request(request).response(response).build())
+                .doFinally(signal -> responseCache.abandon(key, entry));
+    }
+
+    /**
+     * 作用范围，有效 Token 为其用户，未携带 Token 为空字符串
+     *
+     * @param headers
+     * @return 无效 Token 返回 null
+     */
+    private String scope(HttpHeaders headers) {
+        String token = headers.getFirst(Common.Header.TOKEN);
+        if (StringUtils.isBlank(token)) {
+            return "";
+        }
+        TokenVerifier.TokenClaims claims = tokenVerifier.verify(token);
+        return null == claims ? null : "user:" + claims.getUser();
+    }
+
+    private static String key(ServerWebExchange exchange, String scope, byte[] body) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        String query = request.getURI().getRawQuery();
+        return (null == route ? "" : route.getId()) + '\n'
+                + request.getMethodValue() + '\n'
+                + request.getURI().getRawPath() + (null == query ? "" : "?" + query) + '\n'
+                + scope + '\n'
+                + (0 == body.length ? "" : DigestUtil.sha256Hex(body));
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, ResponseCache.CachedResponse cached) {
+        response.setStatusCode(cached.getStatus());
+        response.getHeaders().putAll(cached.getHeaders());
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * 截获上游响应，写给客户端的同时交给等待中的请求
+     */
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+        private final String key;
+        private final ResponseCache.Entry entry;
+
+        private CapturingResponse(ServerHttpResponse delegate, String key, ResponseCache.Entry entry) {
+            super(delegate);
+            this.key = key;
+            this.entry = entry;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatus status = getStatusCode();
+            HttpHeaders headers = getHeaders();
+            if (null == status || !status.is2xxSuccessful() || headers.containsKey(HttpHeaders.SET_COOKIE)
+                    || headers.getContentLength() > coalesceProperty.getMaxResponseSize()) {
+                responseCache.abandon(key, entry);
+                return super.writeWith(body);
+            }
+
+            return DataBufferUtils.join(body)
+                    .map(CoalesceFilter::toBytes)
+                    .defaultIfEmpty(EMPTY)
+                    .flatMap(bytes -> {
+                        if (bytes.length > coalesceProperty.getMaxResponseSize()) {
+                            responseCache.abandon(key, entry);
+                        } else {
+                            HttpHeaders cached = new HttpHeaders();
+                            cached.putAll(headers);
+                            cached.remove(HttpHeaders.TRANSFER_ENCODING);
+                            cached.remove(HttpHeaders.CONNECTION);
+                            cached.setContentLength(bytes.length);
+                            responseCache.complete(key, entry, new ResponseCache.CachedResponse(status, cached, bytes));
+                        }
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(publisher -> publisher));
+        }
+    }
+
+    @Setter
+    @Getter
+    public static class Config {
+        /**
+         * 响应缓存时间，为 0 时只合并同时到达的请求
+         */
+        private Duration ttl = Duration.ofSeconds(1);
+        /**
+         * 参与合并的请求方法，只应配置只读查询的路由
+         */
+        private List<String> methods = Arrays.asList("GET", "POST");
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.filter;
+
+import com.github.pnoker.common.constant.Common;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 移除客户端传入的 X-Dc3-* 请求头
+ * 对所有路由生效（包括服务发现路由和不经过 AuthenticFilter 的路由），并先于路由过滤器执行，
+ * 下游服务收到的 X-Dc3-* 请求头只可能由 AuthenticFilter 在校验 Token 后写入
+ *
+ * @author pnoker
+ */
+@Component
+public class HeaderSanitizeFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        if (!headers.containsKey(Common.Header.USER) && !headers.containsKey(Common.Header.TOKEN_ISSUED_AT) && !headers.containsKey(Common.Header.TOKEN_EXPIRATION)) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest().mutate().headers(httpHeaders -> {
+            httpHeaders.remove(Common.Header.USER);
+            httpHeaders.remove(Common.Header.TOKEN_ISSUED_AT);
+            httpHeaders.remove(Common.Header.TOKEN_EXPIRATION);
+        }).build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.filter;
+
+import com.github.pnoker.common.constant.Common;
+import com.github.pnoker.gateway.service.TokenBucketLimiter;
+import com.github.pnoker.gateway.service.TokenVerifier;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import javax.annotation.Resource;
+import java.net.InetSocketAddress;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * 自定义限流过滤器
+ * 按 路由 + 用户 限流，携带有效 Token 的请求按用户计，否则按 IP 计；请求消耗的令牌数见 gateway.rate-limit.costs
+ *
+ * @author pnoker
+ */
+@Component
+public class RateLimitFilter extends AbstractGatewayFilterFactory {
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    @Resource
+    private TokenBucketLimiter tokenBucketLimiter;
+    @Resource
+    private TokenVerifier tokenVerifier;
+
+    @Override
+    public GatewayFilter apply(Object config) {
+        return (exchange, chain) -> {
+            if (!tokenBucketLimiter.isEnabled()) {
+                return chain.filter(exchange);
+            }
+
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            String routeId = null == route ? "" : route.getId();
+            long remaining = tokenBucketLimiter.tryAcquire(routeId, key(exchange), tokenBucketLimiter.cost(exchange.getRequest()));
+            if (remaining < 0) {
+                exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                exchange.getResponse().getHeaders().set(REMAINING_HEADER, "0");
+                return exchange.getResponse().setComplete();
+            }
+            exchange.getResponse().getHeaders().set(REMAINING_HEADER, String.valueOf(remaining));
+            return chain.filter(exchange);
+        };
+    }
+
+    /**
+     * 限流对象，优先使用 AuthenticFilter 的校验结果；无效的 Token 不能用于区分用户，否则伪造 Token 即可绕过限流
+     *
+     * @param exchange
+     * @return
+     */
+    private String key(ServerWebExchange exchange) {
+        TokenVerifier.TokenClaims claims = exchange.getAttribute(AuthenticFilter.CLAIMS_ATTR);
+        if (null == claims) {
+            String token = exchange.getRequest().getHeaders().getFirst(Common.Header.TOKEN);
+            claims = StringUtils.isBlank(token) ? null : tokenVerifier.verify(token);
+        }
+        if (null != claims) {
+            return "user:" + claims.getUser();
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        InetSocketAddress address = request.getRemoteAddress();
+        return "ip:" + (null == address || null == address.getAddress() ? "" : address.getAddress().getHostAddress());
+    }
+}
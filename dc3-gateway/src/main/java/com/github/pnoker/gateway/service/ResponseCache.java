@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.pnoker.gateway.bean.CoalesceProperty;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+
+/**
+ * 合并请求与短时缓存的响应
+ * <p>
+ * 同一 Key 的第一个请求请求上游，其余请求等待其结果；结果返回后继续缓存 ttl 时长。
+ * 上游请求期间条目按 inflightTimeout 过期，结果返回后按 ttl 过期
+ *
+ * @author pnoker
+ */
+@Component
+@EnableConfigurationProperties({CoalesceProperty.class})
+public class ResponseCache {
+    @Resource
+    private CoalesceProperty coalesceProperty;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Entry> entries;
+
+    @PostConstruct
+    public void initial() {
+        long inflightTimeout = coalesceProperty.getInflightTimeout().toNanos();
+        entries = Caffeine.newBuilder()
+                .maximumSize(coalesceProperty.getMaxEntries())
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.completed ? entry.ttl : inflightTimeout;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "dc3.gateway.coalesce");
+    }
+
+    /**
+     * 获取 Key 对应的条目，不存在或已过期时放入 candidate
+     *
+     * @param key
+     * @param candidate
+     * @return 返回 candidate 时由调用方请求上游，并调用 complete 或 abandon
+     */
+    public Entry acquire(String key, Entry candidate) {
+        return entries.asMap().compute(key, (k, old) -> null == old ? candidate : old);
+    }
+
+    /**
+     * 上游返回可缓存的响应，通知等待中的请求并开始按 ttl 计时
+     *
+     * @param key
+     * @param entry
+     * @param response
+     */
+    public void complete(String key, Entry entry, CachedResponse response) {
+        if (entry.completed) {
+            return;
+        }
+        entry.completed = true;
+        if (entry.ttl > 0) {
+            entries.asMap().replace(key, entry, entry);
+        } else {
+            entries.asMap().remove(key, entry);
+        }
+        entry.processor.onNext(response);
+    }
+
+    /**
+     * 上游响应不可缓存或请求失败，等待中的请求各自请求上游
+     *
+     * @param key
+     * @param entry
+     */
+    public void abandon(String key, Entry entry) {
+        if (entry.completed) {
+            return;
+        }
+        entry.completed = true;
+        entries.asMap().remove(key, entry);
+        entry.processor.onComplete();
+    }
+
+    public Duration inflightTimeout() {
+        return coalesceProperty.getInflightTimeout();
+    }
+
+    /**
+     * 合并条目
+     */
+    public static class Entry {
+        private final long ttl;
+        private final MonoProcessor<CachedResponse> processor = MonoProcessor.create();
+        private volatile boolean completed;
+
+        public Entry(long ttl) {
+            this.ttl = ttl;
+        }
+
+        /**
+         * @return 上游响应，不可缓存时为空
+         */
+        public Mono<CachedResponse> response() {
+            return processor;
+        }
+    }
+
+    /**
+     * 缓存的响应
+     */
+    @Getter
+    public static class CachedResponse {
+        private final HttpStatus status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        public CachedResponse(HttpStatus status, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.body = body;
+        }
+    }
+}
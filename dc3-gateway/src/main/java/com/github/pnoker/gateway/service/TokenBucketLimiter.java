@@ -0,0 +1,280 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.pnoker.gateway.bean.RateLimitProperty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地令牌桶限流，按 路由 + 用户（未登录时为 IP）分桶，请求按路径消耗不同数量的令牌
+ * <p>
+ * 请求只访问本地令牌桶，不经过 Redis；每隔 syncInterval 将各桶在本实例消耗的令牌累加到 Redis，
+ * 并从返回的集群总消耗中扣除其他实例的消耗，使多个网关实例共享同一额度
+ *
+ * @author pnoker
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties({RateLimitProperty.class})
+public class TokenBucketLimiter {
+    @Resource
+    private RateLimitProperty rateLimitProperty;
+    @Resource
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private static final String PREFIX = "dc3_rate_limit:";
+
+    /**
+     * 累加本实例的消耗并返回集群总消耗，Key 在空闲 idleTimeout 后过期
+     */
+    private static final RedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>(
+            "local total = redis.call('INCRBY', KEYS[1], ARGV[1]) redis.call('PEXPIRE', KEYS[1], ARGV[2]) return total",
+            Long.class
+    );
+
+    private Cache<String, Bucket> buckets;
+    private List<CostMatcher> costMatchers;
+    private Disposable synchronization;
+
+    private Counter allowedCounter;
+    private Counter rejectedCounter;
+    private Counter syncFailedCounter;
+
+    @PostConstruct
+    public void initial() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(rateLimitProperty.getMaxBuckets())
+                .expireAfterAccess(rateLimitProperty.getIdleTimeout())
+                .build();
+        PathPatternParser parser = new PathPatternParser();
+        costMatchers = new ArrayList<>();
+        for (RateLimitProperty.Cost cost : rateLimitProperty.getCosts()) {
+            costMatchers.add(new CostMatcher(cost, parser));
+        }
+
+        allowedCounter = meterRegistry.counter("dc3.gateway.rate-limit.requests", "result", "allowed");
+        rejectedCounter = meterRegistry.counter("dc3.gateway.rate-limit.requests", "result", "rejected");
+        syncFailedCounter = meterRegistry.counter("dc3.gateway.rate-limit.sync.failed");
+        Gauge.builder("dc3.gateway.rate-limit.buckets", buckets, Cache::estimatedSize).register(meterRegistry);
+
+        if (rateLimitProperty.isEnabled()) {
+            synchronization = Flux.interval(rateLimitProperty.getSyncInterval())
+                    .onBackpressureDrop()
+                    .concatMap(tick -> synchronize(), 1)
+                    .subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (null != synchronization) {
+            synchronization.dispose();
+        }
+    }
+
+    public boolean isEnabled() {
+        return rateLimitProperty.isEnabled();
+    }
+
+    /**
+     * 请求消耗的令牌数
+     *
+     * @param request
+     * @return
+     */
+    public int cost(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        for (CostMatcher matcher : costMatchers) {
+            if (matcher.matches(request.getMethod(), path)) {
+                return matcher.cost;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * 从令牌桶中取令牌
+     *
+     * @param routeId
+     * @param key     用户或 IP
+     * @param cost
+     * @return 剩余令牌数，令牌不足时返回 -1
+     */
+    public long tryAcquire(String routeId, String key, int cost) {
+        Bucket bucket = buckets.get(routeId + ":" + key, name -> {
+            RateLimitProperty.Limit limit = rateLimitProperty.getRoutes().get(routeId);
+            return new Bucket(name, null == limit ? rateLimitProperty.getDefaultLimit() : limit);
+        });
+        long remaining = bucket.tryAcquire(cost, System.nanoTime());
+        if (remaining < 0) {
+            rejectedCounter.increment();
+        } else {
+            allowedCounter.increment();
+        }
+        return remaining;
+    }
+
+    /**
+     * 与 Redis 对账，只处理上次对账后有请求的令牌桶
+     *
+     * @return
+     */
+    private Mono<Void> synchronize() {
+        String ttl = String.valueOf(rateLimitProperty.getIdleTimeout().toMillis());
+        return Flux.fromIterable(buckets.asMap().values())
+                .filter(Bucket::isDirty)
+                .flatMap(bucket -> {
+                    long delta = bucket.drain();
+                    List<String> args = Arrays.asList(String.valueOf(delta), ttl);
+                    return reactiveStringRedisTemplate.execute(RECONCILE_SCRIPT, Collections.singletonList(PREFIX + bucket.name), args)
+                            .next()
+                            .doOnNext(total -> bucket.reconcile(delta, total))
+                            .onErrorResume(e -> {
+                                log.debug("rate limit reconcile fail,{}", e.getMessage());
+                                syncFailedCounter.increment();
+                                bucket.restore(delta);
+                                return Mono.empty();
+                            });
+                }, 64)
+                .then();
+    }
+
+    /**
+     * 令牌桶
+     */
+    static class Bucket {
+        private final String name;
+        private final double capacity;
+        /**
+         * 每纳秒补充的令牌数
+         */
+        private final double rate;
+
+        private double tokens;
+        private long refillTime;
+
+        /**
+         * 上次对账后本实例消耗的令牌数
+         */
+        private long pending;
+        private boolean dirty;
+        /**
+         * 上次对账时 Redis 中的集群总消耗
+         */
+        private long seen = -1;
+
+        Bucket(String name, RateLimitProperty.Limit limit) {
+            this.name = name;
+            this.capacity = Math.max(1, limit.getBurstCapacity());
+            this.rate = (double) Math.max(1, limit.getReplenishRate()) / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+            this.refillTime = System.nanoTime();
+        }
+
+        synchronized long tryAcquire(int cost, long now) {
+            tokens = Math.min(capacity, tokens + (now - refillTime) * rate);
+            refillTime = now;
+            dirty = true;
+            // 消耗超过容量的请求按容量计，否则永远无法通过
+            double required = Math.min(cost, capacity);
+            if (tokens < required) {
+                return -1;
+            }
+            tokens -= required;
+            pending += (long) required;
+            return (long) tokens;
+        }
+
+        synchronized boolean isDirty() {
+            return dirty;
+        }
+
+        synchronized long drain() {
+            long delta = pending;
+            pending = 0;
+            dirty = false;
+            return delta;
+        }
+
+        synchronized void restore(long delta) {
+            pending += delta;
+            dirty = true;
+        }
+
+        /**
+         * 扣除其他实例在两次对账之间的消耗，Key 过期重建时只记录总消耗
+         */
+        synchronized void reconcile(long delta, long total) {
+            if (seen >= 0 && total >= seen + delta) {
+                long others = total - seen - delta;
+                if (others > 0) {
+                    tokens = Math.max(0, tokens - others);
+                }
+            }
+            seen = total;
+        }
+    }
+
+    /**
+     * 请求消耗规则
+     */
+    private static class CostMatcher {
+        private final HttpMethod method;
+        private final PathPattern pattern;
+        private final int cost;
+
+        private CostMatcher(RateLimitProperty.Cost cost, PathPatternParser parser) {
+            this.method = StringUtils.isBlank(cost.getMethod()) ? null : HttpMethod.resolve(cost.getMethod().toUpperCase());
+            this.pattern = parser.parse(cost.getPath());
+            this.cost = Math.max(1, cost.getCost());
+        }
+
+        private boolean matches(HttpMethod method, PathContainer path) {
+            return (null == this.method || this.method == method) && pattern.matches(path);
+        }
+    }
+}
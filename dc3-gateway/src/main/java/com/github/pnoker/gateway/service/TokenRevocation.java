@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.service;
+
+import com.github.pnoker.common.bean.R;
+import com.github.pnoker.common.constant.Common;
+import com.github.pnoker.gateway.bean.TokenProperty;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已吊销的令牌 ID 集合，校验时只需一次哈希查找
+ * <p>
+ * 吊销消息由授权中心通过 Redis 发布，网关订阅后写入本地集合；启动时以及之后每隔 revokedSyncInterval
+ * 从授权中心全量同步一次，补齐订阅建立前与断线期间遗漏的消息。集合只保存尚未过期的令牌，
+ * 访问令牌有效期短，集合规模与一个有效期内的吊销次数相当
+ * <p>
+ * 订阅与同步都是响应式的，不占用也不阻塞 Netty 事件循环
+ *
+ * @author pnoker
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties({TokenProperty.class})
+public class TokenRevocation {
+    @Resource
+    private TokenProperty tokenProperty;
+    @Resource(name = "loadBalancedWebClientBuilder")
+    private WebClient.Builder webClientBuilder;
+    @Resource
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 令牌 ID,过期时间
+     */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>(16);
+
+    private static final ParameterizedTypeReference<R<Map<String, Long>>> REVOKED_TYPE = new ParameterizedTypeReference<R<Map<String, Long>>>() {
+    };
+
+    private WebClient webClient;
+    private Disposable subscription;
+    private Disposable synchronization;
+
+    @PostConstruct
+    public void initial() {
+        webClient = webClientBuilder.clone().baseUrl("http://" + Common.Service.DC3_AUTH + Common.Service.DC3_TOKEN_URL_PREFIX).build();
+        Gauge.builder("dc3.gateway.token.revoked", revoked, Map::size).register(meterRegistry);
+
+        subscription = reactiveStringRedisTemplate.listenToChannel(Common.Token.TOPIC)
+                .doOnNext(message -> revoke(message.getMessage()))
+                .doOnError(e -> log.error("subscribe revoked token topic fail,{}", e.getMessage()))
+                .retryBackoff(Long.MAX_VALUE, Duration.ofSeconds(1), Duration.ofMinutes(1))
+                .subscribe();
+
+        Duration interval = tokenProperty.getRevokedSyncInterval();
+        synchronization = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> synchronize(interval), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        subscription.dispose();
+        synchronization.dispose();
+    }
+
+    /**
+     * 令牌是否已被吊销
+     *
+     * @param tokenId
+     * @return
+     */
+    public boolean isRevoked(String tokenId) {
+        return null != tokenId && revoked.containsKey(tokenId);
+    }
+
+    /**
+     * 处理吊销消息，格式为 令牌ID:过期时间
+     *
+     * @param message
+     */
+    private void revoke(String message) {
+        int index = message.lastIndexOf(':');
+        if (index <= 0) {
+            log.warn("invalid revoked token message,{}", message);
+            return;
+        }
+        try {
+            revoked.put(message.substring(0, index), Long.parseLong(message.substring(index + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("invalid revoked token message,{}", message);
+        }
+    }
+
+    /**
+     * 从授权中心全量同步，并清除已过期的令牌
+     *
+     * @param timeout
+     * @return
+     */
+    private Mono<Void> synchronize(Duration timeout) {
+        return webClient.get()
+                .uri("/revoked")
+                .retrieve()
+                .bodyToMono(REVOKED_TYPE)
+                .timeout(timeout)
+                .doOnNext(r -> {
+                    if (r.isOk() && null != r.getData()) {
+                        revoked.putAll(r.getData());
+                    } else {
+                        log.warn("synchronize revoked tokens fail,{}", r.getMessage());
+                    }
+                })
+                .doOnError(e -> log.warn("synchronize revoked tokens fail,{}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> {
+                    long now = System.currentTimeMillis();
+                    revoked.values().removeIf(expiration -> expiration <= now);
+                })
+                .then();
+    }
+}
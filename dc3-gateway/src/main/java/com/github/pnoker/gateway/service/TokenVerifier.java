@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.pnoker.common.constant.Common;
+import com.github.pnoker.common.utils.KeyUtil;
+import com.github.pnoker.gateway.bean.TokenProperty;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 校验，缓存校验结果，命中时只需计算一次 SHA-256 与一次哈希查找
+ * <p>
+ * 缓存以 Token 的 SHA-256 为 Key，不在内存中保存 Token 原文；校验通过的结果在 Token 过期时失效，
+ * 校验失败的 Token 短时间缓存，避免无效 Token 反复解析与签名校验；缓存命中后仍需查询吊销集合，
+ * 刷新令牌只能用于换取新的令牌，不能用于访问接口
+ *
+ * @author pnoker
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties({TokenProperty.class})
+public class TokenVerifier {
+    @Resource
+    private TokenProperty tokenProperty;
+    @Resource
+    private MeterRegistry meterRegistry;
+    @Resource
+    private TokenRevocation tokenRevocation;
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private Cache<ByteBuffer, TokenClaims> verifiedCache;
+    private Cache<ByteBuffer, Boolean> rejectedCache;
+
+    @PostConstruct
+    public void initial() {
+        long cacheTtl = tokenProperty.getCacheTtl().toNanos();
+        verifiedCache = Caffeine.newBuilder()
+                .maximumSize(tokenProperty.getCacheSize())
+                .expireAfter(new Expiry<ByteBuffer, TokenClaims>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, TokenClaims claims, long currentTime) {
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(claims.getExpiration() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(remaining, cacheTtl));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, TokenClaims claims, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, claims, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, TokenClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        rejectedCache = Caffeine.newBuilder()
+                .maximumSize(tokenProperty.getRejectedCacheSize())
+                .expireAfterWrite(tokenProperty.getRejectedCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedCache, "dc3.gateway.token.verified");
+        CaffeineCacheMetrics.monitor(meterRegistry, rejectedCache, "dc3.gateway.token.rejected");
+    }
+
+    /**
+     * 校验 Token
+     *
+     * @param token
+     * @return 校验通过返回 Token 中的信息，否则返回 null
+     */
+    public TokenClaims verify(String token) {
+        ByteBuffer key = digest(token);
+        TokenClaims claims = verifiedCache.getIfPresent(key);
+        if (null != claims) {
+            // 缓存按纳秒时钟过期，这里再按 Token 的过期时间确认一次
+            if (claims.getExpiration() > System.currentTimeMillis()) {
+                return tokenRevocation.isRevoked(claims.getTokenId()) ? null : claims;
+            }
+            verifiedCache.invalidate(key);
+        }
+        if (null != rejectedCache.getIfPresent(key)) {
+            return null;
+        }
+
+        try {
+            claims = new TokenClaims(KeyUtil.parserToken(token));
+        } catch (Exception e) {
+            log.debug("token verify fail,{}", e.getMessage());
+            rejectedCache.put(key, Boolean.TRUE);
+            return null;
+        }
+        if (Common.Token.REFRESH.equals(claims.getType())) {
+            rejectedCache.put(key, Boolean.TRUE);
+            return null;
+        }
+        verifiedCache.put(key, claims);
+        return tokenRevocation.isRevoked(claims.getTokenId()) ? null : claims;
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest digest = DIGEST.get();
+        return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 校验通过的 Token 信息，转发用的请求头值在创建时生成
+     */
+    @Getter
+    public static class TokenClaims {
+        private final String tokenId;
+        private final String type;
+        private final String user;
+        private final long expiration;
+        private final String issuedAtHeader;
+        private final String expirationHeader;
+
+        private TokenClaims(Claims claims) {
+            this.tokenId = claims.getId();
+            this.type = claims.get(Common.Token.TYPE, String.class);
+            // 早期签发的 Token 没有 subject，用户名记录在 ID 中
+            String user = null == claims.getSubject() ? claims.getId() : claims.getSubject();
+            this.user = null == user ? "" : user;
+            Date issuedAt = claims.getIssuedAt();
+            Date expiration = claims.getExpiration();
+            this.expiration = null == expiration ? Long.MAX_VALUE : expiration.getTime();
+            this.issuedAtHeader = null == issuedAt ? "" : String.valueOf(issuedAt.getTime());
+            this.expirationHeader = null == expiration ? "" : String.valueOf(expiration.getTime());
+        }
+    }
+}
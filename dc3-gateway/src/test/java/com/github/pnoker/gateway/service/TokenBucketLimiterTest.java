@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 Pnoker. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pnoker.gateway.service;
+
+import com.github.pnoker.gateway.bean.RateLimitProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link TokenBucketLimiter.Bucket}
+ *
+ * @author pnoker
+ */
+public class TokenBucketLimiterTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private TokenBucketLimiter.Bucket bucket;
+    private long now;
+
+    @BeforeEach
+    public void setUp() {
+        RateLimitProperty.Limit limit = new RateLimitProperty.Limit();
+        limit.setReplenishRate(10);
+        limit.setBurstCapacity(20);
+        bucket = new TokenBucketLimiter.Bucket("route:user", limit);
+        now = System.nanoTime();
+    }
+
+    @Test
+    public void refillsOverTimeUpToTheCapacity() {
+        assertEquals(0, bucket.tryAcquire(20, now));
+        assertEquals(-1, bucket.tryAcquire(1, now));
+
+        // 10 个/秒，550ms 补充 5.5 个
+        assertEquals(0, bucket.tryAcquire(5, now + 550 * MILLIS));
+        assertEquals(-1, bucket.tryAcquire(1, now + 550 * MILLIS));
+
+        assertEquals(19, bucket.tryAcquire(1, now + 10_000 * MILLIS));
+    }
+
+    @Test
+    public void chargesCostsAboveTheCapacityAsTheCapacity() {
+        assertEquals(0, bucket.tryAcquire(50, now));
+        assertEquals(-1, bucket.tryAcquire(50, now + 1_000 * MILLIS));
+        assertEquals(0, bucket.tryAcquire(50, now + 2_000 * MILLIS));
+
+        assertEquals(40, bucket.drain());
+    }
+
+    @Test
+    public void rejectedRequestsAreNotCharged() {
+        assertEquals(0, bucket.tryAcquire(20, now));
+        assertEquals(-1, bucket.tryAcquire(5, now));
+
+        assertTrue(bucket.isDirty());
+        assertEquals(20, bucket.drain());
+        assertFalse(bucket.isDirty());
+        assertEquals(0, bucket.drain());
+    }
+
+    @Test
+    public void firstSyncOnlyRecordsTheTotal() {
+        assertEquals(15, bucket.tryAcquire(5, now));
+
+        // 首次对账前其他实例的消耗无法区分，不扣除
+        bucket.reconcile(bucket.drain(), 1000);
+
+        assertEquals(14, bucket.tryAcquire(1, now));
+    }
+
+    @Test
+    public void laterSyncsDeductOtherInstances() {
+        assertEquals(15, bucket.tryAcquire(5, now));
+        bucket.reconcile(bucket.drain(), 1000);
+
+        assertEquals(13, bucket.tryAcquire(2, now));
+        bucket.reconcile(bucket.drain(), 1000 + 2 + 7);
+
+        assertEquals(5, bucket.tryAcquire(1, now));
+
+        bucket.reconcile(bucket.drain(), 1009 + 1 + 100);
+        assertEquals(-1, bucket.tryAcquire(1, now));
+    }
+
+    @Test
+    public void expiredKeyResetsTheSeenTotal() {
+        assertEquals(17, bucket.tryAcquire(3, now));
+        bucket.reconcile(bucket.drain(), 100);
+
+        // Key 过期后重建，总消耗小于上次记录值加本次增量，只记录新的总消耗
+        assertEquals(15, bucket.tryAcquire(2, now));
+        bucket.reconcile(bucket.drain(), 2);
+        assertEquals(14, bucket.tryAcquire(1, now));
+
+        bucket.reconcile(bucket.drain(), 2 + 1 + 4);
+        assertEquals(9, bucket.tryAcquire(1, now));
+    }
+
+    @Test
+    public void restoresTheDeltaAfterAFailedSync() {
+        assertEquals(17, bucket.tryAcquire(3, now));
+        long delta = bucket.drain();
+        assertEquals(3, delta);
+        assertFalse(bucket.isDirty());
+
+        assertEquals(15, bucket.tryAcquire(2, now));
+        bucket.restore(delta);
+
+        assertTrue(bucket.isDirty());
+        assertEquals(5, bucket.drain());
+    }
+}